@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.annotation.visitor;
+
+import com.kakoo.foundation.common.exception.InvalidArgumentException;
+import eu.infomas.annotation.AnnotationDetector;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * A classpath scanner detecting annotated types using an {@link AnnotationDetector}.
+ * <p>
+ * Compared to a plain {@link AnnotationDetector#detect()}, the scanner:
+ * <ul>
+ * <li>only reports types belonging to the included packages (and not belonging to the excluded ones),</li>
+ * <li>skips the jar files not matching the jar filters or not containing any included package,</li>
+ * <li>scans the classpath entries concurrently on a fork-join pool,</li>
+ * <li>reports the detected types to the reporter in a deterministic order (classpath order, then type name order)
+ * from the calling thread, so the reporter does not need to be thread-safe.</li>
+ * </ul>
+ * The scanner can be configured programmatically or using the following system properties (comma separated values):
+ * <ul>
+ * <li>{@value #PROPERTY_INCLUDE}: package prefixes to include (all packages by default),</li>
+ * <li>{@value #PROPERTY_EXCLUDE}: package prefixes to exclude,</li>
+ * <li>{@value #PROPERTY_JAR_INCLUDE}: jar file name patterns to include (all jar files by default),</li>
+ * <li>{@value #PROPERTY_JAR_EXCLUDE}: jar file name patterns to exclude,</li>
+ * <li>{@value #PROPERTY_PARALLELISM}: number of threads used to scan the classpath.</li>
+ * </ul>
+ * Jar file name patterns may contain '*' (any sequence of characters) and '?' (any character) wildcards such as in
+ * {@code log4j-*.jar}.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ */
+@Log4j
+public final class AnnotationScanner
+{
+    /**
+     * System property containing the package prefixes to include.
+     */
+    public static final String PROPERTY_INCLUDE = "kakoo.annotation.scan.include";
+
+    /**
+     * System property containing the package prefixes to exclude.
+     */
+    public static final String PROPERTY_EXCLUDE = "kakoo.annotation.scan.exclude";
+
+    /**
+     * System property containing the jar file name patterns to include.
+     */
+    public static final String PROPERTY_JAR_INCLUDE = "kakoo.annotation.scan.jar.include";
+
+    /**
+     * System property containing the jar file name patterns to exclude.
+     */
+    public static final String PROPERTY_JAR_EXCLUDE = "kakoo.annotation.scan.jar.exclude";
+
+    /**
+     * System property containing the number of threads used to scan the classpath.
+     */
+    public static final String PROPERTY_PARALLELISM = "kakoo.annotation.scan.parallelism";
+
+    /**
+     * Package prefixes to include.
+     */
+    @Getter
+    private final List<String> includes = new ArrayList<>();
+
+    /**
+     * Package prefixes to exclude.
+     */
+    @Getter
+    private final List<String> excludes = new ArrayList<>();
+
+    /**
+     * Jar file name patterns to include.
+     */
+    private final List<Pattern> jarIncludes = new ArrayList<>();
+
+    /**
+     * Jar file name patterns to exclude.
+     */
+    private final List<Pattern> jarExcludes = new ArrayList<>();
+
+    /**
+     * Number of threads used to scan the classpath.
+     */
+    @Getter
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Creates a new annotation scanner configured from the system properties.
+     * <p>
+     * An invalid parallelism (not a strictly positive number) is reported and the default parallelism is used.
+     * <p>
+     * @return Annotation scanner.
+     */
+    public static AnnotationScanner fromSystemProperties()
+    {
+        AnnotationScanner scanner = new AnnotationScanner()
+                .include(split(System.getProperty(PROPERTY_INCLUDE)))
+                .exclude(split(System.getProperty(PROPERTY_EXCLUDE)))
+                .includeJars(split(System.getProperty(PROPERTY_JAR_INCLUDE)))
+                .excludeJars(split(System.getProperty(PROPERTY_JAR_EXCLUDE)));
+
+        String parallelism = System.getProperty(PROPERTY_PARALLELISM);
+        if (parallelism != null && !parallelism.trim().isEmpty())
+        {
+            try
+            {
+                scanner.parallelism(Integer.parseInt(parallelism.trim()));
+            }
+            catch (NumberFormatException | InvalidArgumentException e)
+            {
+                log.warn(String.format("Ignoring invalid system property: '%s' (%s), using the default parallelism: %d", PROPERTY_PARALLELISM, e.getMessage(), scanner.getParallelism()));
+            }
+        }
+
+        return scanner;
+    }
+
+    /**
+     * Adds package prefixes to include.
+     * <p>
+     * @param packages Package prefixes such as {@code com.kakoo}.
+     * @return This scanner.
+     */
+    public final AnnotationScanner include(final @NonNull String... packages)
+    {
+        includes.addAll(Arrays.asList(packages));
+        return this;
+    }
+
+    /**
+     * Adds package prefixes to exclude.
+     * <p>
+     * @param packages Package prefixes such as {@code com.kakoo.test}.
+     * @return This scanner.
+     */
+    public final AnnotationScanner exclude(final @NonNull String... packages)
+    {
+        excludes.addAll(Arrays.asList(packages));
+        return this;
+    }
+
+    /**
+     * Adds jar file name patterns to include.
+     * <p>
+     * @param patterns Jar file name patterns such as {@code kakoo-*.jar}.
+     * @return This scanner.
+     */
+    public final AnnotationScanner includeJars(final @NonNull String... patterns)
+    {
+        for (String pattern : patterns)
+        {
+            jarIncludes.add(toRegex(pattern));
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds jar file name patterns to exclude.
+     * <p>
+     * @param patterns Jar file name patterns such as {@code log4j-*.jar}.
+     * @return This scanner.
+     */
+    public final AnnotationScanner excludeJars(final @NonNull String... patterns)
+    {
+        for (String pattern : patterns)
+        {
+            jarExcludes.add(toRegex(pattern));
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the number of threads used to scan the classpath.
+     * <p>
+     * @param parallelism Number of threads (must be strictly positive).
+     * @return This scanner.
+     */
+    public final AnnotationScanner parallelism(final int parallelism)
+    {
+        if (parallelism <= 0)
+        {
+            throw new InvalidArgumentException(String.format("Invalid scan parallelism: %d", parallelism));
+        }
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Scans the classpath ({@code java.class.path} system property) and reports the detected annotated types to the
+     * given reporter.
+     * <p>
+     * @param reporter Reporter.
+     * @throws IOException Thrown in case an error occurred while scanning the classpath.
+     */
+    public final void scan(final @NonNull AnnotationDetector.TypeReporter reporter) throws IOException
+    {
+        scan(reporter, getClasspath());
+    }
+
+    /**
+     * Returns the classpath entries ({@code java.class.path} system property).
+     * <p>
+     * @return List of classpath entries (directories or jar files).
+     */
+    public final List<File> getClasspath()
+    {
+        List<File> entries = new ArrayList<>();
+
+        for (String path : System.getProperty("java.class.path").split(File.pathSeparator))
+        {
+            if (!path.isEmpty())
+            {
+                entries.add(new File(path));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Scans the given classpath entries and reports the detected annotated types to the given reporter.
+     * <p>
+     * @param reporter Reporter.
+     * @param entries Classpath entries (directories or jar files).
+     * @throws IOException Thrown in case an error occurred while scanning the classpath.
+     */
+    public final void scan(final @NonNull AnnotationDetector.TypeReporter reporter, final @NonNull List<File> entries) throws IOException
+    {
+        final Class<? extends Annotation>[] annotations = reporter.annotations();
+        final List<Future<List<Hit>>> results = new ArrayList<>();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try
+        {
+            for (File entry : entries)
+            {
+                results.add(pool.submit(() -> scanEntry(entry, annotations)));
+            }
+
+            // Report in the classpath order whatever the order in which the entries have been scanned.
+            for (Future<List<Hit>> result : results)
+            {
+                for (Hit hit : result.get())
+                {
+                    reporter.reportTypeAnnotation(hit.annotation, hit.className);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning the classpath", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause()
+                    : new IOException(e.getCause().getMessage(), e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Scans a classpath entry.
+     * <p>
+     * @param entry Classpath entry (directory or jar file).
+     * @param annotations Annotations to detect.
+     * @return Detected annotated types ordered by type name.
+     * @throws IOException Thrown in case an error occurred while scanning the classpath entry.
+     */
+    private List<Hit> scanEntry(final File entry, final Class<? extends Annotation>[] annotations) throws IOException
+    {
+        final List<File> targets = new ArrayList<>();
+        final SortedSet<Hit> hits = new TreeSet<>();
+
+        if (entry.isDirectory())
+        {
+            if (includes.isEmpty())
+            {
+                targets.add(entry);
+            }
+            else
+            {
+                for (String include : includes)
+                {
+                    File directory = new File(entry, include.replace('.', File.separatorChar));
+                    if (directory.isDirectory())
+                    {
+                        targets.add(directory);
+                    }
+                }
+            }
+        }
+        else if (entry.isFile() && isJar(entry.getName()) && isJarAccepted(entry.getName()) && containsIncludedPackage(entry))
+        {
+            targets.add(entry);
+        }
+
+        if (targets.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        new AnnotationDetector(new AnnotationDetector.TypeReporter()
+        {
+            @Override
+            public Class<? extends Annotation>[] annotations()
+            {
+                return annotations;
+            }
+
+            @Override
+            public void reportTypeAnnotation(final Class<? extends Annotation> annotation, final String className)
+            {
+                if (isPackageAccepted(className))
+                {
+                    hits.add(new Hit(annotation, className));
+                }
+            }
+        }).detect(targets.toArray(new File[0]));
+
+        return new ArrayList<>(hits);
+    }
+
+    /**
+     * Checks if the given jar file contains at least one entry belonging to an included package.
+     * <p>
+     * @param file Jar file.
+     * @return {@code True} if the jar file has to be scanned, {@code false} otherwise.
+     * @throws IOException Thrown in case an error occurred while reading the jar file.
+     */
+    private boolean containsIncludedPackage(final File file) throws IOException
+    {
+        if (includes.isEmpty())
+        {
+            return true;
+        }
+
+        try (JarFile jar = new JarFile(file))
+        {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements())
+            {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && isPackageAccepted(name.substring(0, name.length() - 6).replace('/', '.')))
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the given type belongs to an included package and not to an excluded one.
+     * <p>
+     * @param className Type name.
+     * @return {@code True} if the type is accepted, {@code false} otherwise.
+     */
+    private boolean isPackageAccepted(final String className)
+    {
+        for (String exclude : excludes)
+        {
+            if (className.startsWith(exclude + "."))
+            {
+                return false;
+            }
+        }
+
+        if (includes.isEmpty())
+        {
+            return true;
+        }
+
+        for (String include : includes)
+        {
+            if (className.startsWith(include + "."))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the given jar file name matches the jar filters.
+     * <p>
+     * @param name Jar file name.
+     * @return {@code True} if the jar file is accepted, {@code false} otherwise.
+     */
+    private boolean isJarAccepted(final String name)
+    {
+        for (Pattern exclude : jarExcludes)
+        {
+            if (exclude.matcher(name).matches())
+            {
+                return false;
+            }
+        }
+
+        if (jarIncludes.isEmpty())
+        {
+            return true;
+        }
+
+        for (Pattern include : jarIncludes)
+        {
+            if (include.matcher(name).matches())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if the given file name is the one of a jar file.
+     * <p>
+     * @param name File name.
+     * @return {@code True} if the file is a jar file, {@code false} otherwise.
+     */
+    private static boolean isJar(final String name)
+    {
+        String lower = name.toLowerCase(Locale.ROOT);
+
+        return lower.endsWith(".jar") || lower.endsWith(".zip");
+    }
+
+    /**
+     * Converts a file name pattern containing wildcards to a regular expression.
+     * <p>
+     * @param pattern File name pattern.
+     * @return Regular expression.
+     */
+    private static Pattern toRegex(final String pattern)
+    {
+        StringBuilder regex = new StringBuilder();
+
+        for (char c : pattern.toCharArray())
+        {
+            if (c == '*')
+            {
+                regex.append(".*");
+            }
+            else if (c == '?')
+            {
+                regex.append('.');
+            }
+            else
+            {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Splits a comma separated list of values.
+     * <p>
+     * @param values Comma separated values (can be {@code null}).
+     * @return Array of trimmed non empty values.
+     */
+    private static String[] split(final String values)
+    {
+        List<String> result = new ArrayList<>();
+
+        if (values != null)
+        {
+            for (String value : values.split(","))
+            {
+                if (!value.trim().isEmpty())
+                {
+                    result.add(value.trim());
+                }
+            }
+        }
+
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * A type detected as annotated.
+     */
+    private static final class Hit implements Comparable<Hit>
+    {
+        /**
+         * Annotation class.
+         */
+        private final Class<? extends Annotation> annotation;
+
+        /**
+         * Annotated type name.
+         */
+        private final String className;
+
+        /**
+         * Creates a new detected type.
+         * <p>
+         * @param annotation Annotation class.
+         * @param className Annotated type name.
+         */
+        private Hit(final Class<? extends Annotation> annotation, final String className)
+        {
+            this.annotation = annotation;
+            this.className = className;
+        }
+
+        @Override
+        public int compareTo(final Hit other)
+        {
+            int result = className.compareTo(other.className);
+
+            return result != 0 ? result : annotation.getName().compareTo(other.annotation.getName());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.annotation.visitor;
+
+import eu.infomas.annotation.AnnotationDetector;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * Coordinates several {@link IAnnotationTypeVisitor} so that the classpath is scanned only once for all of them.
+ * <p>
+ * The coordinator unions the annotations of the visitors, walks the classpath once using an
+ * {@link AnnotationScanner} and dispatches each detected annotated type to the visitors interested in its annotation.
+ * Visitors able to load their annotated types from a build-time index are not involved in the scan, and the classpath
+ * roots indexed by all the remaining visitors are not scanned.
+ * <p>
+ * Visitors are usually discovered using the {@link ServiceLoader} mechanism by declaring them in a
+ * {@code META-INF/services/com.kakoo.foundation.common.annotation.visitor.IAnnotationTypeVisitor} resource file.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ */
+@Log4j
+public final class AnnotationVisitorCoordinator
+{
+    /**
+     * Coordinated visitors (in registration order).
+     */
+    private final List<IAnnotationTypeVisitor> visitors = new ArrayList<>();
+
+    /**
+     * Creates a new coordinator for the given visitors.
+     * <p>
+     * @param visitors Visitors to coordinate.
+     */
+    public AnnotationVisitorCoordinator(final @NonNull Collection<? extends IAnnotationTypeVisitor> visitors)
+    {
+        this.visitors.addAll(visitors);
+    }
+
+    /**
+     * Creates a new coordinator for the visitors declared as services and available through the given class loader.
+     * <p>
+     * @param classLoader Class loader.
+     * @return Annotation visitor coordinator.
+     */
+    public static AnnotationVisitorCoordinator load(final @NonNull ClassLoader classLoader)
+    {
+        List<IAnnotationTypeVisitor> visitors = new ArrayList<>();
+
+        for (IAnnotationTypeVisitor visitor : ServiceLoader.load(IAnnotationTypeVisitor.class, classLoader))
+        {
+            visitors.add(visitor);
+        }
+
+        return new AnnotationVisitorCoordinator(visitors);
+    }
+
+    /**
+     * Returns the coordinated visitors.
+     * <p>
+     * @return Unmodifiable list of visitors (in registration order).
+     */
+    public final List<IAnnotationTypeVisitor> getVisitors()
+    {
+        return Collections.unmodifiableList(visitors);
+    }
+
+    /**
+     * Adds a visitor if no visitor of the same type is already coordinated.
+     * <p>
+     * @param visitor Visitor to add.
+     * @return {@code True} if the visitor has been added, {@code false} otherwise.
+     */
+    public final boolean addIfAbsent(final @NonNull IAnnotationTypeVisitor visitor)
+    {
+        for (IAnnotationTypeVisitor existing : visitors)
+        {
+            if (existing.getClass() == visitor.getClass())
+            {
+                return false;
+            }
+        }
+
+        return visitors.add(visitor);
+    }
+
+    /**
+     * Removes the visitors of the given type.
+     * <p>
+     * @param type Type of the visitors to remove.
+     * @return {@code True} if at least one visitor has been removed, {@code false} otherwise.
+     */
+    public final boolean remove(final @NonNull Class<? extends IAnnotationTypeVisitor> type)
+    {
+        return visitors.removeIf(visitor -> visitor.getClass() == type);
+    }
+
+    /**
+     * Detects the annotated types for all the coordinated visitors.
+     * <p>
+     * Visitors are first given the opportunity to load their annotated types from a build-time index. The classpath
+     * roots not indexed by all the remaining visitors (if any) are then scanned once.
+     * <p>
+     * @param classLoader Class loader used to locate the index resources.
+     * @param scanner Scanner used to scan the classpath.
+     * @throws IOException Thrown in case an error occurred while reading an index or scanning the classpath.
+     */
+    public final void detect(final @NonNull ClassLoader classLoader, final @NonNull AnnotationScanner scanner) throws IOException
+    {
+        final Map<Class<? extends Annotation>, List<IAnnotationTypeVisitor>> dispatch = new LinkedHashMap<>();
+        final Set<IAnnotationTypeVisitor> scanned = new LinkedHashSet<>();
+        final List<File> entries = new ArrayList<>();
+
+        for (IAnnotationTypeVisitor visitor : visitors)
+        {
+            if (visitor.loadIndex(classLoader))
+            {
+                continue;
+            }
+
+            scanned.add(visitor);
+            for (Class<? extends Annotation> annotation : visitor.annotations())
+            {
+                dispatch.computeIfAbsent(annotation, k -> new ArrayList<>()).add(visitor);
+            }
+        }
+
+        if (dispatch.isEmpty())
+        {
+            return;
+        }
+
+        for (File entry : scanner.getClasspath())
+        {
+            if (!isIndexed(scanned, entry))
+            {
+                entries.add(entry);
+            }
+        }
+
+        if (entries.isEmpty())
+        {
+            return;
+        }
+
+        log.info(String.format("Scanning %d classpath entries for annotations: %s", entries.size(), dispatch.keySet()));
+
+        @SuppressWarnings("unchecked")
+        final Class<? extends Annotation>[] annotations = dispatch.keySet().toArray((Class<? extends Annotation>[]) new Class<?>[dispatch.size()]);
+
+        scanner.scan(new AnnotationDetector.TypeReporter()
+        {
+            @Override
+            public Class<? extends Annotation>[] annotations()
+            {
+                return annotations;
+            }
+
+            @Override
+            public void reportTypeAnnotation(final Class<? extends Annotation> annotation, final String className)
+            {
+                List<IAnnotationTypeVisitor> targets = dispatch.get(annotation);
+                if (targets != null)
+                {
+                    for (IAnnotationTypeVisitor visitor : targets)
+                    {
+                        visitor.reportTypeAnnotation(annotation, className);
+                    }
+                }
+            }
+        }, entries);
+    }
+
+    /**
+     * Checks if the given classpath root has been indexed by all the given visitors.
+     * <p>
+     * @param visitors Visitors involved in the scan.
+     * @param root Classpath root (directory or jar file).
+     * @return {@code True} if the classpath root does not need to be scanned, {@code false} otherwise.
+     */
+    private static boolean isIndexed(final Collection<IAnnotationTypeVisitor> visitors, final File root)
+    {
+        for (IAnnotationTypeVisitor visitor : visitors)
+        {
+            if (!visitor.isIndexed(root))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Delegates the registration of the detected annotated types to each coordinated visitor (in registration order).
+     * <p>
+     * @throws ClassNotFoundException Thrown in case an error occurred while delegating the registration.
+     */
+    public final void delegateRegistration() throws ClassNotFoundException
+    {
+        for (IAnnotationTypeVisitor visitor : visitors)
+        {
+            visitor.delegateRegistration();
+        }
+    }
+}
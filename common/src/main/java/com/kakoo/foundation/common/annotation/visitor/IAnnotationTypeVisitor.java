@@ -13,6 +13,9 @@ package com.kakoo.foundation.common.annotation.visitor;
 
 import eu.infomas.annotation.AnnotationDetector;
 
+import java.io.File;
+import java.io.IOException;
+
 /**
  * Extend the {@link eu.infomas.annotation.AnnotationDetector.TypeReporter} interface to be able to detect by reflection
  * classes annotated with specific annotations.
@@ -29,4 +32,35 @@ public interface IAnnotationTypeVisitor extends AnnotationDetector.TypeReporter
      * delegate the registration of the annotated class.
      */
     void delegateRegistration() throws ClassNotFoundException;
+
+    /**
+     * Loads the annotated types from a build-time index instead of detecting them by scanning the classpath.
+     * <p>
+     * Visitors returning {@code true} are not involved in the classpath scan. Visitors returning {@code false} may
+     * still have loaded the annotated types of some classpath roots from an index (see {@link #isIndexed(File)}). The
+     * default implementation does not support any index.
+     * <hr>
+     * @param classLoader Class loader used to locate the index resources.
+     * @return {@code True} if the annotated types have been loaded from an index, {@code false} otherwise.
+     * @throws IOException Thrown in case an error occurred while reading the index.
+     */
+    default boolean loadIndex(final ClassLoader classLoader) throws IOException
+    {
+        return false;
+    }
+
+    /**
+     * Checks if the annotated types of the given classpath root have been loaded from a build-time index.
+     * <p>
+     * A classpath root indexed by all the visitors interested in the scan is not scanned. The default implementation
+     * does not support any index.
+     * <hr>
+     * @param root Classpath root (directory or jar file).
+     * @return {@code True} if the annotated types of the classpath root have been loaded from an index, {@code false}
+     * otherwise.
+     */
+    default boolean isIndexed(final File root)
+    {
+        return false;
+    }
 }
@@ -13,8 +13,9 @@ package com.kakoo.foundation.common.exception;
 
 import com.kakoo.foundation.common.resource.bundle.IBundle;
 import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import lombok.NonNull;
 
-import java.text.MessageFormat;
+import java.util.Locale;
 
 /**
  * An abstract implementation of a checked exception.
@@ -44,6 +45,11 @@ public abstract class AbstractCheckedException extends Exception
      */
     protected Enum<? extends IException> key;
 
+    /**
+     * Message of the exception when created from an enumerated value (lazily resolved).
+     */
+    private ExceptionMessage message;
+
     /**
      * Creates a new checked exception.
      */
@@ -59,7 +65,10 @@ public abstract class AbstractCheckedException extends Exception
      */
     public AbstractCheckedException(final Enum<? extends IBundle> key)
     {
-        super(ResourceBundleManager.get(key));
+        super(StackTracePolicy.prepare(key));
+        StackTracePolicy.release();
+
+        this.message = new ExceptionMessage(key);
     }
 
     /**
@@ -102,9 +111,10 @@ public abstract class AbstractCheckedException extends Exception
     @SuppressWarnings({ "unchecked" })
     public AbstractCheckedException(final Enum<?> key, final Object... parameters)
     {
-        super(key instanceof IBundle
-                ? MessageFormat.format(ResourceBundleManager.get((Enum<? extends IBundle>) key), parameters)
-                : MessageFormat.format(((IException) key).getMessage(), parameters));
+        super(StackTracePolicy.prepare(key));
+        StackTracePolicy.release();
+
+        this.message = new ExceptionMessage(key, parameters);
 
         // Do we have an exception in the parameter list?
         for (Object o : parameters)
@@ -122,6 +132,30 @@ public abstract class AbstractCheckedException extends Exception
         }
     }
 
+    /**
+     * Creates a new checked exception based on an enumerated value, without parameters.
+     * <p>
+     * This constructor is intended to create preallocated exceptions shared by several threads, which must then be
+     * created with the suppression and the stack trace disabled.
+     * <hr>
+     * @param key Exception key (enumerated value coming from an enumeration implementing the {@link IBundle} or the
+     * {@link IException} interface).
+     * @param enableSuppression Whether or not suppression is enabled.
+     * @param writableStackTrace Whether or not the stack trace should be writable.
+     */
+    @SuppressWarnings({ "unchecked" })
+    protected AbstractCheckedException(final @NonNull Enum<?> key, final boolean enableSuppression, final boolean writableStackTrace)
+    {
+        super(null, null, enableSuppression, writableStackTrace);
+
+        this.message = ExceptionMessage.shared(key);
+
+        if (key instanceof IException)
+        {
+            this.key = (Enum<? extends IException>) key;
+        }
+    }
+
     /**
      * Returns the exception key.
      * <hr>
@@ -142,6 +176,43 @@ public abstract class AbstractCheckedException extends Exception
         return key.getDeclaringClass();
     }
 
+    /**
+     * Returns the message of the exception.
+     * <p>
+     * When the exception has been created from an enumerated value, the message is resolved (in the locale of the
+     * {@link ResourceBundleManager}) and formatted on first call only.
+     * <hr>
+     * @return Message.
+     */
+    @Override
+    public String getMessage()
+    {
+        return message != null ? message.get() : super.getMessage();
+    }
+
+    /**
+     * Returns the message of the exception rendered in the given locale.
+     * <hr>
+     * @param locale Locale.
+     * @return Message.
+     */
+    public String getMessage(final @NonNull Locale locale)
+    {
+        return message != null ? message.get(locale) : super.getMessage();
+    }
+
+    /**
+     * Fills in the stack trace unless the exception class, or the enumerated value the exception is created from, has
+     * been declared stackless through the {@link StackTracePolicy}.
+     * <hr>
+     * @return This exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        return StackTracePolicy.consume() || StackTracePolicy.isStackless(getClass()) ? this : super.fillInStackTrace();
+    }
+
     @Override
     protected final Object clone() throws CloneNotSupportedException
     {
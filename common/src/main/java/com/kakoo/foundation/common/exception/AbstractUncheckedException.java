@@ -13,8 +13,9 @@ package com.kakoo.foundation.common.exception;
 
 import com.kakoo.foundation.common.resource.bundle.IBundle;
 import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import lombok.NonNull;
 
-import java.text.MessageFormat;
+import java.util.Locale;
 
 /**
  * An abstract implementation of an unchecked exception.
@@ -40,6 +41,11 @@ public abstract class AbstractUncheckedException extends RuntimeException
      */
     protected Enum<? extends IException> key;
 
+    /**
+     * Message of the exception when created from an enumerated value (lazily resolved).
+     */
+    private ExceptionMessage message;
+
     /**
      * Creates a new unchecked empty exception.
      */
@@ -55,7 +61,10 @@ public abstract class AbstractUncheckedException extends RuntimeException
      */
     public AbstractUncheckedException(final Enum<? extends IBundle> key)
     {
-        super(ResourceBundleManager.get(key));
+        super(StackTracePolicy.prepare(key));
+        StackTracePolicy.release();
+
+        this.message = new ExceptionMessage(key);
     }
 
     /**
@@ -67,9 +76,10 @@ public abstract class AbstractUncheckedException extends RuntimeException
     @SuppressWarnings({ "unchecked" })
     public AbstractUncheckedException(final Enum<?> key, final Object... parameters)
     {
-        super(key instanceof IBundle
-                ? MessageFormat.format(ResourceBundleManager.get((Enum<? extends IBundle>) key), parameters)
-                : MessageFormat.format(((IException) key).getMessage(), parameters));
+        super(StackTracePolicy.prepare(key));
+        StackTracePolicy.release();
+
+        this.message = new ExceptionMessage(key, parameters);
 
         // Do we have an exception in the parameter list?
         for (Object o : parameters)
@@ -118,6 +128,30 @@ public abstract class AbstractUncheckedException extends RuntimeException
         super(message, exception);
     }
 
+    /**
+     * Creates a new unchecked exception based on an enumerated value, without parameters.
+     * <p>
+     * This constructor is intended to create preallocated exceptions shared by several threads, which must then be
+     * created with the suppression and the stack trace disabled.
+     * <p>
+     * @param key Exception key (enumerated value coming from an enumeration implementing the {@link IBundle} or the
+     * {@link IException} interface).
+     * @param enableSuppression Whether or not suppression is enabled.
+     * @param writableStackTrace Whether or not the stack trace should be writable.
+     */
+    @SuppressWarnings({ "unchecked" })
+    protected AbstractUncheckedException(final @NonNull Enum<?> key, final boolean enableSuppression, final boolean writableStackTrace)
+    {
+        super(null, null, enableSuppression, writableStackTrace);
+
+        this.message = ExceptionMessage.shared(key);
+
+        if (key instanceof IException)
+        {
+            this.key = (Enum<? extends IException>) key;
+        }
+    }
+
     /**
      * Returns the exception key.
      * <p>
@@ -138,6 +172,43 @@ public abstract class AbstractUncheckedException extends RuntimeException
         return key.getDeclaringClass();
     }
 
+    /**
+     * Returns the message of the exception.
+     * <p>
+     * When the exception has been created from an enumerated value, the message is resolved (in the locale of the
+     * {@link ResourceBundleManager}) and formatted on first call only.
+     * <p>
+     * @return Message.
+     */
+    @Override
+    public String getMessage()
+    {
+        return message != null ? message.get() : super.getMessage();
+    }
+
+    /**
+     * Returns the message of the exception rendered in the given locale.
+     * <p>
+     * @param locale Locale.
+     * @return Message.
+     */
+    public String getMessage(final @NonNull Locale locale)
+    {
+        return message != null ? message.get(locale) : super.getMessage();
+    }
+
+    /**
+     * Fills in the stack trace unless the exception class, or the enumerated value the exception is created from, has
+     * been declared stackless through the {@link StackTracePolicy}.
+     * <p>
+     * @return This exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace()
+    {
+        return StackTracePolicy.consume() || StackTracePolicy.isStackless(getClass()) ? this : super.fillInStackTrace();
+    }
+
     @Override
     protected final Object clone() throws CloneNotSupportedException
     {
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.exception;
+
+import com.kakoo.foundation.common.resource.bundle.IBundle;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The message of an exception created from an enumerated value, resolved and formatted only when requested.
+ * <p>
+ * Only the enumerated value and the parameters are captured when the exception is created, so exceptions caught
+ * without their message being read do not pay for the resource bundle lookup nor for the message formatting. The
+ * message resolved in the locale of the {@link ResourceBundleManager} is memoized, except for the messages of the
+ * shared exceptions which are resolved on each call so that they follow the changes of the manager locale.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+final class ExceptionMessage implements Serializable
+{
+    /**
+     * Default serialization identifier.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Message key (enumerated value coming from an enumeration implementing the {@link IBundle} or the
+     * {@link IException} interface).
+     */
+    private final Enum<?> key;
+
+    /**
+     * Parameters used to populate the message (not serialized, the message is resolved before serialization).
+     */
+    private final transient Object[] parameters;
+
+    /**
+     * Message resolved in the locale of the resource bundle manager (lazily resolved).
+     */
+    private volatile String message;
+
+    /**
+     * Indicates if the message resolved in the locale of the resource bundle manager is memoized.
+     */
+    private final boolean memoized;
+
+    /**
+     * Creates a new exception message.
+     * <p>
+     * @param key Message key.
+     * @param parameters Parameters used to populate the message.
+     */
+    ExceptionMessage(final @NonNull Enum<?> key, final Object... parameters)
+    {
+        this(key, parameters, true);
+    }
+
+    /**
+     * Creates a new exception message.
+     * <p>
+     * @param key Message key.
+     * @param parameters Parameters used to populate the message.
+     * @param memoized Indicates if the message resolved in the locale of the resource bundle manager is memoized.
+     */
+    private ExceptionMessage(final @NonNull Enum<?> key, final Object[] parameters, final boolean memoized)
+    {
+        this.key = key;
+        this.parameters = parameters;
+        this.memoized = memoized;
+    }
+
+    /**
+     * Creates the message of a shared exception, resolved on each call (a shared exception can be used by any thread
+     * for the whole life of the application, its message must follow the changes of the manager locale).
+     * <p>
+     * @param key Message key.
+     * @return Exception message.
+     */
+    static ExceptionMessage shared(final @NonNull Enum<?> key)
+    {
+        return new ExceptionMessage(key, null, false);
+    }
+
+    /**
+     * Returns the message resolved in the locale of the resource bundle manager.
+     * <p>
+     * @return Message.
+     */
+    final String get()
+    {
+        String resolved = message;
+
+        if (resolved == null)
+        {
+            resolved = get(ResourceBundleManager.getLocale());
+            if (memoized)
+            {
+                message = resolved;
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Returns the message resolved in the given locale.
+     * <p>
+     * If the message cannot be resolved (for example if the resource bundle key does not exist), the message is made
+     * of the enumerated value and of the parameters, so retrieving the message of an exception never fails.
+     * <p>
+     * @param locale Locale.
+     * @return Message.
+     */
+    @SuppressWarnings("unchecked")
+    final String get(final @NonNull Locale locale)
+    {
+        try
+        {
+            if (key instanceof IBundle)
+            {
+                return ResourceBundleManager.get((Enum<? extends IBundle>) key, locale, parameters);
+            }
+
+            return new MessageFormat(((IException) key).getMessage(), locale).format(parameters);
+        }
+        catch (RuntimeException e)
+        {
+            return parameters == null || parameters.length == 0
+                    ? key.name()
+                    : key.name() + " " + Arrays.toString(parameters);
+        }
+    }
+
+    /**
+     * Resolves the message before serializing it as the parameters are not serialized.
+     * <p>
+     * @param output Object output stream.
+     * @throws IOException Thrown in case an error occurred while serializing the message.
+     */
+    private void writeObject(final ObjectOutputStream output) throws IOException
+    {
+        ObjectOutputStream.PutField fields = output.putFields();
+
+        fields.put("key", key);
+        fields.put("message", get());
+        fields.put("memoized", memoized);
+        output.writeFields();
+    }
+}
@@ -12,6 +12,11 @@
 package com.kakoo.foundation.common.exception;
 
 import com.kakoo.foundation.common.resource.bundle.IBundle;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Unchecked exception thrown to indicate a method has been passed an illegal or inappropriate argument.
@@ -26,6 +31,11 @@ public class InvalidArgumentException extends AbstractUncheckedException
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Preallocated exceptions (indexed by enumerated value).
+     */
+    private static final Map<Enum<?>, InvalidArgumentException> SHARED = new ConcurrentHashMap<>();
+
     /**
      * Thrown to indicate that a method has been passed an illegal or
      * inappropriate argument.
@@ -96,4 +106,39 @@ public class InvalidArgumentException extends AbstractUncheckedException
     {
         super(message, exception);
     }
+
+    /**
+     * Creates a new shared exception (see {@link #shared(Enum)}).
+     * <p>
+     * @param key Exception key.
+     * @param enableSuppression Whether or not suppression is enabled.
+     * @param writableStackTrace Whether or not the stack trace should be writable.
+     */
+    private InvalidArgumentException(final Enum<?> key, final boolean enableSuppression, final boolean writableStackTrace)
+    {
+        super(key, enableSuppression, writableStackTrace);
+    }
+
+    /**
+     * Returns a preallocated exception, indicating an illegal or inappropriate argument, for the given enumerated value.
+     * <p>
+     * Preallocated exceptions are shared and immutable: they have no stack trace, no parameters and no suppressed
+     * exceptions, so they can be thrown concurrently without any allocation. Their message is not memoized, it is
+     * resolved in the current locale of the {@link ResourceBundleManager} each time it is requested. When the stack
+     * traces are forced through the {@link StackTracePolicy}, a new exception having a stack trace is returned
+     * instead.
+     * <p>
+     * @param key Exception key (enumerated value coming from an enumeration implementing the
+     * {@link IBundle} or the {@link IException} interface).
+     * @return Exception.
+     */
+    public static InvalidArgumentException shared(final @NonNull Enum<?> key)
+    {
+        if (StackTracePolicy.isForced())
+        {
+            return new InvalidArgumentException(key, true, true);
+        }
+
+        return SHARED.computeIfAbsent(key, value -> new InvalidArgumentException(value, false, false));
+    }
 }
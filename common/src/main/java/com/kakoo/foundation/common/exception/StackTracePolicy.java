@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.exception;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Policy determining which exceptions are created without filling in their stack trace.
+ * <p>
+ * Filling in the stack trace usually dominates the cost of exceptions thrown at a high frequency (such as validation
+ * failures). Exceptions extending {@link AbstractCheckedException} or {@link AbstractUncheckedException} can be made
+ * stackless per exception class (including its subclasses) or per enumerated value used to create them.
+ * <p>
+ * Stack traces can be globally forced (for example in debug environments) by setting the {@value #PROPERTY_FORCE}
+ * system property to {@code true}, in which case the stackless settings are ignored.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@UtilityClass
+public class StackTracePolicy
+{
+    /**
+     * System property forcing the stack traces to be always filled in.
+     */
+    public static final String PROPERTY_FORCE = "kakoo.exception.stacktrace.force";
+
+    /**
+     * Indicates if the stack traces are forced.
+     */
+    private static volatile boolean forced = Boolean.getBoolean(PROPERTY_FORCE);
+
+    /**
+     * Exception classes created without stack trace.
+     */
+    private static final Set<Class<?>> CLASSES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Enumerated values whose exceptions are created without stack trace.
+     */
+    private static final Set<Enum<?>> KEYS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Indicates if the exception being created by the current thread is stackless because of its enumerated value.
+     * <p>
+     * The enumerated value of an exception is not yet assigned when its stack trace is filled in (from the
+     * {@link Throwable} constructor), so the decision is taken before calling the constructor and consumed while
+     * filling in the stack trace. Only set for the stackless enumerated values, and always released once the
+     * {@link Throwable} constructor returns (the stack trace may not have been filled in, for example when a subclass
+     * overrides {@link Throwable#fillInStackTrace()}) so that it never applies to another exception.
+     * <p>
+     * The decision is not passed through the {@link Throwable} constructor disabling the stack trace, as this
+     * constructor also initializes the cause, which could then no longer be set through
+     * {@link Throwable#initCause(Throwable)}.
+     */
+    private static final ThreadLocal<Boolean> PENDING = new ThreadLocal<>();
+
+    /**
+     * Returns if the stack traces are forced.
+     * <p>
+     * @return {@code True} if the stack traces are always filled in, {@code false} otherwise.
+     */
+    public static boolean isForced()
+    {
+        return forced;
+    }
+
+    /**
+     * Forces (or not) the stack traces to be always filled in.
+     * <p>
+     * @param forced {@code True} to always fill in the stack traces, {@code false} to apply the stackless settings.
+     */
+    public static void setForced(final boolean forced)
+    {
+        StackTracePolicy.forced = forced;
+    }
+
+    /**
+     * Sets if the exceptions of the given class (and of its subclasses) are created without stack trace.
+     * <p>
+     * @param exceptionClass Exception class.
+     * @param stackless {@code True} to create the exceptions without stack trace, {@code false} otherwise.
+     */
+    public static void setStackless(final @NonNull Class<? extends Throwable> exceptionClass, final boolean stackless)
+    {
+        if (stackless)
+        {
+            CLASSES.add(exceptionClass);
+        }
+        else
+        {
+            CLASSES.remove(exceptionClass);
+        }
+    }
+
+    /**
+     * Sets if the exceptions created from the given enumerated value are created without stack trace.
+     * <p>
+     * @param key Enumerated value (coming from an enumeration implementing the
+     * {@link com.kakoo.foundation.common.resource.bundle.IBundle} or the {@link IException} interface).
+     * @param stackless {@code True} to create the exceptions without stack trace, {@code false} otherwise.
+     */
+    public static void setStackless(final @NonNull Enum<?> key, final boolean stackless)
+    {
+        if (stackless)
+        {
+            KEYS.add(key);
+        }
+        else
+        {
+            KEYS.remove(key);
+        }
+    }
+
+    /**
+     * Returns if the exceptions of the given class are created without stack trace.
+     * <p>
+     * @param exceptionClass Exception class.
+     * @return {@code True} if the exceptions are created without stack trace, {@code false} otherwise.
+     */
+    public static boolean isStackless(final @NonNull Class<?> exceptionClass)
+    {
+        if (forced || CLASSES.isEmpty())
+        {
+            return false;
+        }
+
+        for (Class<?> type = exceptionClass; type != null && type != Throwable.class; type = type.getSuperclass())
+        {
+            if (CLASSES.contains(type))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns if the exceptions created from the given enumerated value are created without stack trace.
+     * <p>
+     * @param key Enumerated value.
+     * @return {@code True} if the exceptions are created without stack trace, {@code false} otherwise.
+     */
+    public static boolean isStackless(final Enum<?> key)
+    {
+        return !forced && key != null && !KEYS.isEmpty() && KEYS.contains(key);
+    }
+
+    /**
+     * Records, before an exception is created from the given enumerated value, if its stack trace must not be filled
+     * in.
+     * <p>
+     * @param key Enumerated value.
+     * @return Always {@code null} (message to pass to the {@link Throwable} constructor, the message of the exceptions
+     * created from an enumerated value being resolved lazily).
+     */
+    static String prepare(final Enum<?> key)
+    {
+        if (isStackless(key))
+        {
+            PENDING.set(Boolean.TRUE);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns (and clears) the decision recorded by {@link #prepare(Enum)} for the exception being created by the
+     * current thread.
+     * <p>
+     * @return {@code True} if the exception must be created without stack trace, {@code false} otherwise.
+     */
+    static boolean consume()
+    {
+        if (PENDING.get() == null)
+        {
+            return false;
+        }
+
+        PENDING.remove();
+        return true;
+    }
+
+    /**
+     * Releases the decision recorded by {@link #prepare(Enum)} for the exception being created by the current thread,
+     * if not consumed while filling in its stack trace.
+     */
+    static void release()
+    {
+        PENDING.remove();
+    }
+
+    /**
+     * Clears all the stackless settings.
+     */
+    public static void reset()
+    {
+        CLASSES.clear();
+        KEYS.clear();
+    }
+}
@@ -91,4 +91,17 @@ public class ResourceException extends AbstractUncheckedException
     {
         super(message, exception);
     }
+
+    /**
+     * Exception thrown to indicate an error occurred while processing a resource, intended to be preallocated.
+     * <p>
+     * @param key Exception key (enumerated value coming from an enumeration implementing the
+     * {@link IBundle} or the {@link com.kakoo.foundation.common.exception.IException} interface).
+     * @param enableSuppression Whether or not suppression is enabled.
+     * @param writableStackTrace Whether or not the stack trace should be writable.
+     */
+    protected ResourceException(final Enum<?> key, final boolean enableSuppression, final boolean writableStackTrace)
+    {
+        super(key, enableSuppression, writableStackTrace);
+    }
 }
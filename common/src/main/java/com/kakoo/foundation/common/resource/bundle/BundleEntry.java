@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * An immutable resource bundle entry as indexed by the {@link ResourceBundleManager}.
+ * <p>
+ * An entry associates a resource bundle key to its value for a given locale and keeps a trace of the resource bundle
+ * file it has been extracted from. The value is compiled into a {@link MessageTemplate} on first use.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class BundleEntry
+{
+    /**
+     * Base bundle file name the entry has been extracted from.
+     */
+    @Getter
+    private final String baseBundleName;
+
+    /**
+     * Locale the entry has been registered for.
+     */
+    @Getter
+    private final Locale locale;
+
+    /**
+     * Resource bundle key.
+     */
+    @Getter
+    private final String key;
+
+    /**
+     * Resource bundle the value is retrieved from ({@code null} if the value is given at creation).
+     */
+    private final ResourceBundle source;
+
+    /**
+     * Resource bundle value (lazily retrieved).
+     */
+    private volatile String value;
+
+    /**
+     * Priority of the resource bundle file the entry has been extracted from.
+     */
+    @Getter
+    private final int priority;
+
+    /**
+     * Compiled message template of the value (lazily compiled).
+     */
+    private volatile MessageTemplate template;
+
+    /**
+     * Creates a new resource bundle entry.
+     * <p>
+     * @param baseBundleName Base bundle file name.
+     * @param locale Locale.
+     * @param key Resource bundle key.
+     * @param value Resource bundle value.
+     * @param priority Priority of the resource bundle file.
+     */
+    public BundleEntry(final @NonNull String baseBundleName, final @NonNull Locale locale, final @NonNull String key, final @NonNull String value, final int priority)
+    {
+        this.baseBundleName = baseBundleName;
+        this.locale = locale;
+        this.key = key;
+        this.source = null;
+        this.value = value;
+        this.priority = priority;
+    }
+
+    /**
+     * Creates a new resource bundle entry whose value is retrieved from the given resource bundle on first use.
+     * <p>
+     * Values are not retrieved when indexing the entries, so the values of resource bundles serving them on demand
+     * (such as the memory-mapped catalogs) are only decoded and held in the heap once effectively used.
+     * <p>
+     * @param baseBundleName Base bundle file name.
+     * @param locale Locale.
+     * @param key Resource bundle key.
+     * @param source Resource bundle containing the key.
+     * @param priority Priority of the resource bundle file.
+     */
+    public BundleEntry(final @NonNull String baseBundleName, final @NonNull Locale locale, final @NonNull String key, final @NonNull ResourceBundle source, final int priority)
+    {
+        this.baseBundleName = baseBundleName;
+        this.locale = locale;
+        this.key = key;
+        this.source = source;
+        this.priority = priority;
+    }
+
+    /**
+     * Returns the resource bundle value.
+     * <p>
+     * @return Resource bundle value.
+     */
+    public final String getValue()
+    {
+        String retrieved = value;
+
+        if (retrieved == null)
+        {
+            retrieved = BundleValuePool.canonicalize(source.getString(key));
+            value = retrieved;
+        }
+
+        return retrieved;
+    }
+
+    /**
+     * Returns the resource bundle value if already retrieved, without retrieving it.
+     * <p>
+     * @return Resource bundle value or {@code null} if not retrieved yet.
+     */
+    final String peekValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the resource bundle the value is retrieved from.
+     * <p>
+     * @return Resource bundle or {@code null} if the value has been given at creation.
+     */
+    final ResourceBundle getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Returns the compiled message template of the value.
+     * <p>
+     * The template is compiled on first use. Concurrent first uses may compile it several times, but as templates
+     * are immutable, any of them can be kept.
+     * <p>
+     * @return Message template.
+     */
+    public final MessageTemplate getTemplate()
+    {
+        MessageTemplate compiled = template;
+
+        if (compiled == null)
+        {
+            compiled = MessageTemplate.compile(getValue(), locale);
+            template = compiled;
+        }
+
+        return compiled;
+    }
+}
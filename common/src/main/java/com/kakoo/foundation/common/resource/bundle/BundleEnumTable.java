@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import com.kakoo.foundation.common.resource.bundle.annotation.Bundle;
+import lombok.NonNull;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An ordinal-indexed table of the resource bundle entries of an enumeration implementing the {@link IBundle}
+ * interface.
+ * <p>
+ * The full resource bundle keys of the enumerated values (made of the {@link Bundle#root()} and the
+ * {@link IBundle#getKey()}) are resolved once when the table is created. The entries are then resolved once per
+ * registry and per locale into an array indexed by the {@link Enum#ordinal()} of the enumerated values.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class BundleEnumTable
+{
+    /**
+     * Full resource bundle keys indexed by ordinal.
+     */
+    private final String[] keys;
+
+    /**
+     * Entries resolved for the current registry.
+     */
+    private volatile Resolution resolution;
+
+    /**
+     * Creates a new table for the given enumeration class.
+     * <p>
+     * @param enumClass Enumeration class (must be annotated with the {@link Bundle} annotation).
+     * @throws ResourceBundleException Thrown in case the enumeration class is not annotated with {@link Bundle}.
+     */
+    public BundleEnumTable(final @NonNull Class<?> enumClass)
+    {
+        Bundle annotation = enumClass.getAnnotation(Bundle.class);
+        Object[] constants = enumClass.getEnumConstants();
+        String root;
+
+        if (annotation == null || constants == null)
+        {
+            throw new ResourceBundleException(String.format("Class: '%s' is not an enumeration annotated with: '%s'", enumClass.getName(), Bundle.class.getName()));
+        }
+
+        root = annotation.root().endsWith(".") ? annotation.root() : annotation.root() + ".";
+
+        keys = new String[constants.length];
+        for (int i = 0; i < constants.length; i++)
+        {
+            keys[i] = root + ((IBundle) constants[i]).getKey();
+        }
+    }
+
+    /**
+     * Returns the full resource bundle key of the enumerated value having the given ordinal.
+     * <p>
+     * @param ordinal Ordinal of the enumerated value.
+     * @return Full resource bundle key.
+     */
+    public final String getKey(final int ordinal)
+    {
+        return keys[ordinal];
+    }
+
+    /**
+     * Returns the resource bundle entry of the enumerated value having the given ordinal.
+     * <p>
+     * @param registry Registry to resolve the entries from.
+     * @param locale Locale.
+     * @param ordinal Ordinal of the enumerated value.
+     * @return Resource bundle entry or {@code null} if the key is not registered for the given locale.
+     */
+    public final BundleEntry getEntry(final @NonNull BundleRegistry registry, final @NonNull Locale locale, final int ordinal)
+    {
+        return getEntries(registry, locale)[ordinal];
+    }
+
+    /**
+     * Returns the resource bundle entries of the enumeration indexed by ordinal.
+     * <p>
+     * @param registry Registry to resolve the entries from.
+     * @param locale Locale.
+     * @return Resource bundle entries indexed by ordinal (an element is {@code null} if the key is not registered for
+     * the given locale).
+     */
+    public final BundleEntry[] getEntries(final @NonNull BundleRegistry registry, final @NonNull Locale locale)
+    {
+        Resolution current = resolution;
+
+        if (current == null || current.registry != registry)
+        {
+            // The registry has changed, entries resolved for the previous one are discarded.
+            current = new Resolution(registry);
+            resolution = current;
+        }
+
+        return current.get(locale);
+    }
+
+    /**
+     * Entries of the enumeration resolved for a given registry.
+     */
+    private final class Resolution
+    {
+        /**
+         * Registry the entries are resolved from.
+         */
+        private final BundleRegistry registry;
+
+        /**
+         * Entries indexed by ordinal grouped by locale.
+         */
+        private final Map<Locale, BundleEntry[]> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Entries of the last locale entries have been requested for.
+         */
+        private volatile LocaleEntries last;
+
+        /**
+         * Creates a new resolution for the given registry.
+         * <p>
+         * @param registry Registry.
+         */
+        private Resolution(final BundleRegistry registry)
+        {
+            this.registry = registry;
+        }
+
+        /**
+         * Returns the entries of the enumeration for the given locale.
+         * <p>
+         * @param locale Locale.
+         * @return Entries indexed by ordinal.
+         */
+        private BundleEntry[] get(final Locale locale)
+        {
+            LocaleEntries recent = last;
+
+            if (recent == null || recent.locale != locale)
+            {
+                recent = new LocaleEntries(locale, entries.computeIfAbsent(locale, this::resolve));
+                last = recent;
+            }
+
+            return recent.entries;
+        }
+
+        /**
+         * Resolves the entries of the enumeration for the given locale.
+         * <p>
+         * @param locale Locale.
+         * @return Entries indexed by ordinal.
+         */
+        private BundleEntry[] resolve(final Locale locale)
+        {
+            BundleEntry[] result = new BundleEntry[keys.length];
+
+            for (int i = 0; i < keys.length; i++)
+            {
+                result[i] = registry.getEntry(keys[i], locale);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Entries of the enumeration resolved for a given locale.
+     */
+    private static final class LocaleEntries
+    {
+        /**
+         * Locale.
+         */
+        private final Locale locale;
+
+        /**
+         * Entries indexed by ordinal.
+         */
+        private final BundleEntry[] entries;
+
+        /**
+         * Creates new locale entries.
+         * <p>
+         * @param locale Locale.
+         * @param entries Entries indexed by ordinal.
+         */
+        private LocaleEntries(final Locale locale, final BundleEntry[] entries)
+        {
+            this.locale = locale;
+            this.entries = entries;
+        }
+    }
+}
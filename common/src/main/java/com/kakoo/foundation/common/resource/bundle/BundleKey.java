@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A reusable handle on a resource bundle key, obtained through {@link ResourceBundleManager#key(String)}.
+ * <p>
+ * A handle is resolved once to a slot of the {@link BundleKeyTable}. Retrieving a value through a handle is then an
+ * array access per locale, without hashing nor comparing the key. There is a single handle per key, so handles can be
+ * kept in constants and compared by reference.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+public final class BundleKey
+{
+    /**
+     * Resource bundle key.
+     */
+    @Getter
+    private final String key;
+
+    /**
+     * Slot of the key in the key table.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final int slot;
+
+    /**
+     * Creates a new key handle.
+     * <p>
+     * @param key Resource bundle key.
+     * @param slot Slot of the key in the key table.
+     */
+    BundleKey(final @NonNull String key, final int slot)
+    {
+        this.key = key;
+        this.slot = slot;
+    }
+
+    @Override
+    public final String toString()
+    {
+        return key;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A slot-indexed table of the resource bundle entries of the {@link BundleKey} handles.
+ * <p>
+ * Each handle is assigned a slot when created. The entries of all the handles are then resolved once per registry
+ * and per locale into an array indexed by slot. A table resolved for a previous registry is detected by a single
+ * reference comparison and resolved again, so handles remain valid across registrations and clearings.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class BundleKeyTable
+{
+    /**
+     * Keys indexed by slot (only the first {@link #count} elements are used).
+     */
+    private volatile String[] keys = new String[16];
+
+    /**
+     * Number of slots.
+     */
+    private volatile int count;
+
+    /**
+     * Entries resolved for the current registry.
+     */
+    private volatile Resolution resolution;
+
+    /**
+     * Creates a handle for the given key in a new slot.
+     * <p>
+     * @param key Resource bundle key.
+     * @return Key handle.
+     */
+    public final synchronized BundleKey add(final @NonNull String key)
+    {
+        String[] current = keys;
+
+        if (count == current.length)
+        {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+
+        current[count] = key;
+        keys = current;
+        count++;
+
+        return new BundleKey(key, count - 1);
+    }
+
+    /**
+     * Returns the resource bundle entry of the given key handle.
+     * <p>
+     * @param registry Registry to resolve the entries from.
+     * @param locale Locale.
+     * @param key Key handle.
+     * @return Resource bundle entry or {@code null} if the key is not registered for the given locale.
+     */
+    public final BundleEntry getEntry(final @NonNull BundleRegistry registry, final @NonNull Locale locale, final @NonNull BundleKey key)
+    {
+        Resolution current = resolution;
+
+        if (current == null || current.registry != registry)
+        {
+            // The registry has changed, entries resolved for the previous one are discarded.
+            current = new Resolution(registry);
+            resolution = current;
+        }
+
+        return current.get(locale, key.getSlot());
+    }
+
+    /**
+     * Entries of the key handles resolved for a given registry.
+     */
+    private final class Resolution
+    {
+        /**
+         * Registry the entries are resolved from.
+         */
+        private final BundleRegistry registry;
+
+        /**
+         * Entries indexed by slot grouped by locale.
+         */
+        private final Map<Locale, BundleEntry[]> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Creates a new resolution for the given registry.
+         * <p>
+         * @param registry Registry.
+         */
+        private Resolution(final BundleRegistry registry)
+        {
+            this.registry = registry;
+        }
+
+        /**
+         * Returns the entry of the given slot for the given locale.
+         * <p>
+         * @param locale Locale.
+         * @param slot Slot.
+         * @return Resource bundle entry or {@code null} if not registered.
+         */
+        private BundleEntry get(final Locale locale, final int slot)
+        {
+            BundleEntry[] resolved = entries.get(locale);
+
+            if (resolved == null || slot >= resolved.length)
+            {
+                // First access to the locale or handle created since the locale has been resolved.
+                resolved = resolve(locale);
+                entries.put(locale, resolved);
+            }
+
+            return resolved[slot];
+        }
+
+        /**
+         * Resolves the entries of all the slots for the given locale.
+         * <p>
+         * @param locale Locale.
+         * @return Entries indexed by slot.
+         */
+        private BundleEntry[] resolve(final Locale locale)
+        {
+            final int size = count;
+            final String[] current = keys;
+            BundleEntry[] result = new BundleEntry[size];
+
+            for (int i = 0; i < size; i++)
+            {
+                result[i] = registry.getEntry(current[i], locale);
+            }
+
+            return result;
+        }
+    }
+}
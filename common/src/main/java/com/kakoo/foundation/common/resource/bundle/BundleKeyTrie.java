@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * An immutable radix trie of resource bundle entries indexed by key.
+ * <p>
+ * Resource bundle keys follow the {@code Bundle#root()} hierarchy, so most of them share long prefixes. Each prefix
+ * is held once by the trie, and all the entries having a given key prefix are retrieved by walking down the prefix
+ * then collecting the nodes below, without scanning the other entries.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class BundleKeyTrie
+{
+    /**
+     * Children of the leaf nodes.
+     */
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * Root node (empty label).
+     */
+    private final Node root = new Node("", null);
+
+    /**
+     * Number of entries.
+     */
+    @Getter
+    private final int size;
+
+    /**
+     * Creates a new trie containing the given entries.
+     * <p>
+     * @param entries Resource bundle entries (with distinct keys).
+     */
+    public BundleKeyTrie(final @NonNull Collection<BundleEntry> entries)
+    {
+        for (BundleEntry entry : entries)
+        {
+            insert(entry);
+        }
+
+        size = entries.size();
+    }
+
+    /**
+     * Returns the entries whose key starts with the given prefix.
+     * <p>
+     * @param prefix Key prefix (an empty prefix returns all the entries).
+     * @return Entries sorted by key.
+     */
+    public final List<BundleEntry> getSubtree(final @NonNull String prefix)
+    {
+        List<BundleEntry> result = new ArrayList<>();
+        Node node = root;
+        Node child;
+        int position = 0;
+        int index;
+        int common;
+
+        while (position < prefix.length())
+        {
+            index = node.find(prefix.charAt(position));
+            if (index < 0)
+            {
+                return result;
+            }
+
+            child = node.children[index];
+            common = commonLength(child.label, prefix, position);
+            if (position + common < prefix.length() && common < child.label.length())
+            {
+                // The prefix diverges from the label of the child.
+                return result;
+            }
+
+            node = child;
+            position += common;
+        }
+
+        collect(node, result);
+
+        return result;
+    }
+
+    /**
+     * Inserts the given entry.
+     * <p>
+     * @param entry Resource bundle entry.
+     */
+    private void insert(final BundleEntry entry)
+    {
+        String key = entry.getKey();
+        Node node = root;
+        Node child;
+        Node middle;
+        int position = 0;
+        int index;
+        int common;
+
+        while (position < key.length())
+        {
+            index = node.find(key.charAt(position));
+            if (index < 0)
+            {
+                node.add(-index - 1, new Node(key.substring(position), entry));
+                return;
+            }
+
+            child = node.children[index];
+            common = commonLength(child.label, key, position);
+            if (common < child.label.length())
+            {
+                // Split the label of the child at the end of the common part.
+                middle = new Node(child.label.substring(0, common), null);
+                child.label = child.label.substring(common);
+                middle.children = new Node[] { child };
+                node.children[index] = middle;
+                child = middle;
+            }
+
+            node = child;
+            position += common;
+        }
+
+        node.entry = entry;
+    }
+
+    /**
+     * Collects (in key order) the entries of the given node and of its descendants.
+     * <p>
+     * @param node Node.
+     * @param result Collected entries.
+     */
+    private static void collect(final Node node, final List<BundleEntry> result)
+    {
+        if (node.entry != null)
+        {
+            result.add(node.entry);
+        }
+
+        for (Node child : node.children)
+        {
+            collect(child, result);
+        }
+    }
+
+    /**
+     * Returns the length of the common part of the given label and of the given key from the given position.
+     * <p>
+     * @param label Node label.
+     * @param key Key.
+     * @param position Position in the key.
+     * @return Number of common characters.
+     */
+    private static int commonLength(final String label, final String key, final int position)
+    {
+        int limit = Math.min(label.length(), key.length() - position);
+        int length = 0;
+
+        while (length < limit && label.charAt(length) == key.charAt(position + length))
+        {
+            length++;
+        }
+
+        return length;
+    }
+
+    /**
+     * A node of the trie (only modified while the trie is created).
+     */
+    private static final class Node
+    {
+        /**
+         * Label of the edge leading to the node.
+         */
+        private String label;
+
+        /**
+         * Entry whose key ends at this node ({@code null} if none).
+         */
+        private BundleEntry entry;
+
+        /**
+         * Children sorted by the first character of their label.
+         */
+        private Node[] children = NO_CHILDREN;
+
+        /**
+         * Creates a new node.
+         * <p>
+         * @param label Label of the edge leading to the node.
+         * @param entry Entry whose key ends at this node ({@code null} if none).
+         */
+        private Node(final String label, final BundleEntry entry)
+        {
+            this.label = label;
+            this.entry = entry;
+        }
+
+        /**
+         * Looks up the child whose label starts with the given character.
+         * <p>
+         * @param first First character.
+         * @return Index of the child or {@code (-(insertion point) - 1)} if not found.
+         */
+        private int find(final char first)
+        {
+            int low = 0;
+            int high = children.length - 1;
+            int middle;
+            char current;
+
+            while (low <= high)
+            {
+                middle = (low + high) >>> 1;
+                current = children[middle].label.charAt(0);
+                if (current < first)
+                {
+                    low = middle + 1;
+                }
+                else if (current > first)
+                {
+                    high = middle - 1;
+                }
+                else
+                {
+                    return middle;
+                }
+            }
+
+            return -(low + 1);
+        }
+
+        /**
+         * Adds a child at the given index.
+         * <p>
+         * @param index Index of the child.
+         * @param child Child node.
+         */
+        private void add(final int index, final Node child)
+        {
+            Node[] extended = new Node[children.length + 1];
+
+            System.arraycopy(children, 0, extended, 0, index);
+            extended[index] = child;
+            System.arraycopy(children, index, extended, index + 1, children.length - index);
+            children = extended;
+        }
+    }
+}
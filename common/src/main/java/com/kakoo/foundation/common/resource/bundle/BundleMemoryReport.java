@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import lombok.Getter;
+
+/**
+ * A report of the estimated memory used by the resource bundles registered in the {@link ResourceBundleManager} and of
+ * the memory saved by sharing the entries of the child locales with their parent locales and by canonicalizing the
+ * keys and values.
+ * <p>
+ * Sizes are estimations (in bytes) of the heap footprint, not exact measures.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Getter
+public final class BundleMemoryReport
+{
+    /**
+     * Number of registered locales.
+     */
+    private final int localeCount;
+
+    /**
+     * Number of indexed entries.
+     */
+    private final long entryCount;
+
+    /**
+     * Estimated heap size of the indexed entries.
+     */
+    private final long weight;
+
+    /**
+     * Number of entries shared with the parent locales (not indexed).
+     */
+    private final long sharedCount;
+
+    /**
+     * Estimated heap size saved by sharing the entries with the parent locales.
+     */
+    private final long sharedBytes;
+
+    /**
+     * Number of references to canonical strings held by the indexed entries beyond the first one (each of them would
+     * otherwise be a distinct copy).
+     */
+    private final long deduplicatedCount;
+
+    /**
+     * Estimated heap size saved by canonicalizing the strings.
+     */
+    private final long deduplicatedBytes;
+
+    /**
+     * Creates a new memory report.
+     * <p>
+     * @param localeCount Number of registered locales.
+     * @param entryCount Number of indexed entries.
+     * @param weight Estimated heap size of the indexed entries.
+     * @param sharedCount Number of entries shared with the parent locales.
+     * @param sharedBytes Estimated heap size saved by sharing the entries.
+     * @param deduplicatedCount Number of references to canonical strings beyond the first one.
+     * @param deduplicatedBytes Estimated heap size saved by canonicalizing the strings.
+     */
+    BundleMemoryReport(final int localeCount, final long entryCount, final long weight, final long sharedCount, final long sharedBytes, final long deduplicatedCount, final long deduplicatedBytes)
+    {
+        this.localeCount = localeCount;
+        this.entryCount = entryCount;
+        this.weight = weight;
+        this.sharedCount = sharedCount;
+        this.sharedBytes = sharedBytes;
+        this.deduplicatedCount = deduplicatedCount;
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    /**
+     * Returns the total estimated heap size saved.
+     * <p>
+     * @return Saved size in bytes.
+     */
+    public final long getSavedBytes()
+    {
+        return sharedBytes + deduplicatedBytes;
+    }
+
+    @Override
+    public final String toString()
+    {
+        return String.format("locales: %d, entries: %d, weight: %d bytes, shared entries: %d (%d bytes saved), deduplicated strings: %d (%d bytes saved)", localeCount, entryCount, weight, sharedCount, sharedBytes, deduplicatedCount, deduplicatedBytes);
+    }
+}
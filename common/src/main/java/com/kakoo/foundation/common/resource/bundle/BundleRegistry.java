@@ -0,0 +1,934 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import com.kakoo.foundation.common.resource.bundle.catalog.ArenaResourceBundle;
+import com.kakoo.foundation.common.resource.bundle.catalog.MappedResourceBundle;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable snapshot of the resource bundles registered in the {@link ResourceBundleManager}.
+ * <p>
+ * A registry is never modified once built. Changes are applied on a {@link Builder} created from the current
+ * registry, off to the side, and the resulting registry is then published by the resource bundle manager in a single
+ * reference store. Readers holding a registry therefore never observe a partially updated state.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class BundleRegistry
+{
+    /**
+     * Empty registry.
+     */
+    public static final BundleRegistry EMPTY = new BundleRegistry(0, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+    /**
+     * Estimated heap size of an indexed entry (entry object, hash table node and string headers).
+     */
+    static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Estimated heap size of a string excluding its characters (object and array headers).
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    /**
+     * Indicates if the strings made of Latin-1 characters are stored using one byte per character (Java 9 and later).
+     */
+    private static final boolean COMPACT_STRINGS = !System.getProperty("java.specification.version", "1.").startsWith("1.");
+
+    /**
+     * Control used to compute the candidate (parent) locales of a locale.
+     */
+    private static final ResourceBundle.Control CANDIDATES = ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+    /**
+     * Version of the registry (incremented each time a new registry is built).
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * Resource bundles grouped by locale.
+     */
+    private final Map<Locale, List<ResourceBundle>> bundles;
+
+    /**
+     * Resource bundle entries grouped by locale (and indexed by key through a {@link PerfectHashIndex} built in the
+     * background once first looked up).
+     */
+    private final Map<Locale, Map<String, BundleEntry>> entries;
+
+    /**
+     * Estimated heap sizes (in bytes) of the resource bundles grouped by locale.
+     */
+    private final Map<Locale, Long> weights;
+
+    /**
+     * Parent locales (nearest registered candidate locale) of the registered locales.
+     */
+    private final Map<Locale, Locale> parents;
+
+    /**
+     * Number of entries of the child locales shared with their parent locales grouped by locale.
+     */
+    private final Map<Locale, Long> shares;
+
+    /**
+     * Number of entries of the child locales shared with their parent locales (not indexed).
+     */
+    @Getter
+    private final long sharedCount;
+
+    /**
+     * Estimated heap size (in bytes) of all the resource bundles.
+     */
+    @Getter
+    private final long weight;
+
+    /**
+     * Key tries grouped by locale (built on first prefix query).
+     */
+    private final Map<Locale, BundleKeyTrie> tries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new registry.
+     * <p>
+     * @param version Version of the registry.
+     * @param bundles Resource bundles grouped by locale.
+     * @param entries Resource bundle entries grouped by locale.
+     * @param weights Estimated heap sizes of the resource bundles grouped by locale.
+     * @param parents Parent locales of the registered locales.
+     * @param shares Number of entries shared with the parent locales grouped by locale.
+     */
+    private BundleRegistry(final long version, final @NonNull Map<Locale, List<ResourceBundle>> bundles, final @NonNull Map<Locale, Map<String, BundleEntry>> entries, final @NonNull Map<Locale, Long> weights, final @NonNull Map<Locale, Locale> parents, final @NonNull Map<Locale, Long> shares)
+    {
+        long total = 0;
+        long shared = 0;
+
+        this.version = version;
+        this.bundles = bundles;
+        this.entries = entries;
+        this.weights = weights;
+        this.parents = parents;
+        this.shares = shares;
+
+        for (Long value : weights.values())
+        {
+            total += value;
+        }
+        this.weight = total;
+
+        for (Long value : shares.values())
+        {
+            shared += value;
+        }
+        this.sharedCount = shared;
+    }
+
+    /**
+     * Returns if the registry does not contain any resource bundle.
+     * <p>
+     * @return {@code True} if the registry is empty, {@code false} otherwise.
+     */
+    public final boolean isEmpty()
+    {
+        return bundles.isEmpty();
+    }
+
+    /**
+     * Checks if the given resource bundle file is registered for the given locale.
+     * <p>
+     * @param baseBundleName Base bundle file name.
+     * @param locale Locale.
+     * @return {@code True} if the resource bundle file is registered, {@code false} otherwise.
+     */
+    public final boolean exist(final @NonNull String baseBundleName, final @NonNull Locale locale)
+    {
+        for (ResourceBundle bundle : getBundles(locale))
+        {
+            if (bundle.getBaseBundleName().equals(baseBundleName))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if at least one resource bundle file is registered for the given locale.
+     * <p>
+     * @param locale Locale.
+     * @return {@code True} if the locale is registered, {@code false} otherwise.
+     */
+    public final boolean contains(final @NonNull Locale locale)
+    {
+        return bundles.containsKey(locale);
+    }
+
+    /**
+     * Returns the resource bundles registered for the given locale.
+     * <p>
+     * @param locale Locale.
+     * @return Unmodifiable list of resource bundles (ordered by registration).
+     */
+    public final List<ResourceBundle> getBundles(final @NonNull Locale locale)
+    {
+        List<ResourceBundle> list = bundles.get(locale);
+
+        return list != null ? list : Collections.emptyList();
+    }
+
+    /**
+     * Returns the locales for which at least one resource bundle file is registered.
+     * <p>
+     * @return Unmodifiable set of locales.
+     */
+    public final Set<Locale> getLocales()
+    {
+        return bundles.keySet();
+    }
+
+    /**
+     * Returns the parent locale of the given locale.
+     * <p>
+     * The parent locale is the nearest registered candidate locale (for example {@code fr} for {@code fr_CA}) at the
+     * time the locale has been registered. The entries of a locale having the same value as the ones of its parent
+     * locale are not indexed but shared with the parent locale.
+     * <p>
+     * @param locale Locale.
+     * @return Parent locale or {@code null} if the locale has no registered parent locale.
+     */
+    public final Locale getParent(final @NonNull Locale locale)
+    {
+        return parents.get(locale);
+    }
+
+    /**
+     * Returns the resource bundle entry for the given key and locale.
+     * <p>
+     * When the entry is shared with the parent locales, the entry of the nearest parent locale is returned. The entry
+     * of a parent locale is only returned if its resource bundle file is also registered for the given locale, as the
+     * file may have its own value for the locale once registered.
+     * <p>
+     * @param key Resource bundle key.
+     * @param locale Locale.
+     * @return Resource bundle entry or {@code null} if not found.
+     */
+    public final BundleEntry getEntry(final @NonNull String key, final @NonNull Locale locale)
+    {
+        Map<String, BundleEntry> index;
+        BundleEntry entry;
+
+        for (Locale current = locale; current != null; current = parents.get(current))
+        {
+            index = entries.get(current);
+            if (index == null)
+            {
+                return null;
+            }
+
+            entry = index.get(key);
+            if (entry != null && (current == locale || exist(entry.getBaseBundleName(), locale)))
+            {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the resource bundle entry for the given key in the given locale or in its nearest parent locale,
+     * whether or not the resource bundle file of the entry is registered for the given locale.
+     * <p>
+     * @param key Resource bundle key.
+     * @param locale Locale.
+     * @return Resource bundle entry or {@code null} if not found.
+     */
+    public final BundleEntry getInheritedEntry(final @NonNull String key, final @NonNull Locale locale)
+    {
+        Map<String, BundleEntry> index;
+        BundleEntry entry;
+
+        for (Locale current = locale; current != null; current = parents.get(current))
+        {
+            index = entries.get(current);
+            if (index == null)
+            {
+                return null;
+            }
+
+            entry = index.get(key);
+            if (entry != null)
+            {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the resource bundle entries registered for the given locale (including the ones shared with its parent
+     * locales whose resource bundle file is registered for the locale).
+     * <p>
+     * @param locale Locale.
+     * @return Unmodifiable map of resource bundle entries indexed by key.
+     */
+    public final Map<String, BundleEntry> getEntries(final @NonNull Locale locale)
+    {
+        final List<Map<String, BundleEntry>> chain = new ArrayList<>();
+        final Map<String, BundleEntry> merged = new HashMap<>();
+        Map<String, BundleEntry> index;
+
+        for (Locale current = locale; current != null && (index = entries.get(current)) != null; current = parents.get(current))
+        {
+            chain.add(index);
+        }
+
+        if (chain.size() <= 1)
+        {
+            return chain.isEmpty() ? Collections.emptyMap() : chain.get(0);
+        }
+
+        // From the farthest parent locale so that the nearest entries take precedence.
+        for (int i = chain.size() - 1; i > 0; i--)
+        {
+            for (BundleEntry entry : chain.get(i).values())
+            {
+                if (exist(entry.getBaseBundleName(), locale))
+                {
+                    merged.put(entry.getKey(), entry);
+                }
+            }
+        }
+        merged.putAll(chain.get(0));
+
+        return Collections.unmodifiableMap(merged);
+    }
+
+    /**
+     * Returns the resource bundle entries of the given locale (including the ones shared with its parent locales)
+     * whose key starts with the given prefix.
+     * <p>
+     * The entries of a locale are organized in a radix trie on the first prefix query for this locale, subsequent
+     * queries only walk the entries below the prefix.
+     * <p>
+     * @param prefix Key prefix.
+     * @param locale Locale.
+     * @return Resource bundle entries sorted by key.
+     */
+    public final List<BundleEntry> getSubtree(final @NonNull String prefix, final @NonNull Locale locale)
+    {
+        if (!entries.containsKey(locale))
+        {
+            return Collections.emptyList();
+        }
+
+        return tries.computeIfAbsent(locale, element -> new BundleKeyTrie(getEntries(element).values())).getSubtree(prefix);
+    }
+
+    /**
+     * Returns the number of entries indexed (not shared with the parent locales) over all the locales.
+     * <p>
+     * @return Number of indexed entries.
+     */
+    public final long getEntryCount()
+    {
+        long count = 0;
+
+        for (Map<String, BundleEntry> index : entries.values())
+        {
+            count += index.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns a report of the estimated memory used by the registered resource bundles and of the memory saved by
+     * sharing the entries with the parent locales and by canonicalizing the strings.
+     * <p>
+     * The savings of the canonicalization are measured on the strings currently held by the indexed entries: each
+     * reference to a canonical string beyond the first one would otherwise be a distinct copy. Values not retrieved
+     * yet are not accounted for.
+     * <p>
+     * @return Memory report.
+     */
+    final BundleMemoryReport getMemoryReport()
+    {
+        final Map<String, Boolean> distinct = new IdentityHashMap<>();
+        long references = 0;
+        long saved = 0;
+
+        for (Map<String, BundleEntry> index : entries.values())
+        {
+            for (BundleEntry entry : index.values())
+            {
+                references++;
+                saved += sizeOfCopy(distinct, entry.getKey());
+                if (entry.peekValue() != null)
+                {
+                    references++;
+                    saved += sizeOfCopy(distinct, entry.peekValue());
+                }
+            }
+        }
+
+        return new BundleMemoryReport(bundles.size(), getEntryCount(), weight, sharedCount, sharedCount * ENTRY_OVERHEAD, references - distinct.size(), saved);
+    }
+
+    /**
+     * Records a reference to the given string and estimates the heap size of the copy it avoids.
+     * <p>
+     * @param distinct Distinct strings already referenced.
+     * @param value String.
+     * @return Estimated size in bytes or {@code 0} if the string is referenced for the first time.
+     */
+    private static long sizeOfCopy(final Map<String, Boolean> distinct, final String value)
+    {
+        return distinct.put(value, Boolean.TRUE) != null ? sizeOf(value) : 0;
+    }
+
+    /**
+     * Estimates the heap size of the given string.
+     * <p>
+     * @param value String.
+     * @return Estimated size in bytes.
+     */
+    private static long sizeOf(final @NonNull String value)
+    {
+        if (COMPACT_STRINGS)
+        {
+            for (int i = 0; i < value.length(); i++)
+            {
+                if (value.charAt(i) > 0xFF)
+                {
+                    return STRING_OVERHEAD + 2L * value.length();
+                }
+            }
+
+            return STRING_OVERHEAD + value.length();
+        }
+
+        return STRING_OVERHEAD + 2L * value.length();
+    }
+
+    /**
+     * Returns the estimated heap size of the resource bundles registered for the given locale.
+     * <p>
+     * The size is estimated from the number and the length of the keys and of the values when the resource bundles
+     * are registered. Values served from memory-mapped catalogs are not accounted for as they are held off-heap, values
+     * packed in compact arenas are accounted for by the size of their arena.
+     * <p>
+     * @param locale Locale.
+     * @return Estimated size in bytes.
+     */
+    public final long getWeight(final @NonNull Locale locale)
+    {
+        return weights.getOrDefault(locale, 0L);
+    }
+
+    /**
+     * Estimates the heap size of the given indexed entry.
+     * <p>
+     * @param bundle Resource bundle the entry is extracted from.
+     * @param key Resource bundle key.
+     * @return Estimated size in bytes.
+     */
+    private static long estimate(final @NonNull ResourceBundle bundle, final @NonNull String key)
+    {
+        long size = ENTRY_OVERHEAD + 2L * key.length();
+        Object value;
+
+        if (!(bundle instanceof MappedResourceBundle) && !(bundle instanceof ArenaResourceBundle))
+        {
+            value = bundle.getObject(key);
+            if (value instanceof String)
+            {
+                size += 2L * ((String) value).length();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Creates a new builder initialized with the content of this registry.
+     * <p>
+     * @return Registry builder.
+     */
+    public final Builder toBuilder()
+    {
+        return new Builder(this, true);
+    }
+
+    /**
+     * Creates a new builder for an empty registry whose version follows the version of this registry.
+     * <p>
+     * @return Registry builder.
+     */
+    public final Builder toEmptyBuilder()
+    {
+        return new Builder(this, false);
+    }
+
+    /**
+     * Builder used to create a new registry from an existing one.
+     * <p>
+     * A builder is not thread-safe and is intended to be used by a single writer.
+     */
+    public static final class Builder
+    {
+        /**
+         * Version of the registry to build.
+         */
+        private final long version;
+
+        /**
+         * Resource bundles grouped by locale.
+         */
+        private final Map<Locale, List<ResourceBundle>> bundles = new HashMap<>();
+
+        /**
+         * Resource bundle entries grouped by locale.
+         */
+        private final Map<Locale, Map<String, BundleEntry>> entries = new HashMap<>();
+
+        /**
+         * Estimated heap sizes of the resource bundles grouped by locale.
+         */
+        private final Map<Locale, Long> weights = new HashMap<>();
+
+        /**
+         * Parent locales of the registered locales.
+         */
+        private final Map<Locale, Locale> parents = new HashMap<>();
+
+        /**
+         * Number of entries shared with the parent locales grouped by locale.
+         */
+        private final Map<Locale, Long> shares = new HashMap<>();
+
+        /**
+         * Locales modified through this builder (for which the collections have already been copied).
+         */
+        private final Set<Locale> modified = new HashSet<>();
+
+        /**
+         * Creates a new builder.
+         * <p>
+         * @param registry Registry the builder is created from.
+         * @param copy Indicates if the content of the registry must be copied.
+         */
+        private Builder(final @NonNull BundleRegistry registry, final boolean copy)
+        {
+            this.version = registry.version + 1;
+
+            if (copy)
+            {
+                bundles.putAll(registry.bundles);
+                entries.putAll(registry.entries);
+                weights.putAll(registry.weights);
+                parents.putAll(registry.parents);
+                shares.putAll(registry.shares);
+            }
+        }
+
+        /**
+         * Checks if the given resource bundle file is registered for the given locale.
+         * <p>
+         * @param baseBundleName Base bundle file name.
+         * @param locale Locale.
+         * @return {@code True} if the resource bundle file is registered, {@code false} otherwise.
+         */
+        public final boolean exist(final @NonNull String baseBundleName, final @NonNull Locale locale)
+        {
+            List<ResourceBundle> list = bundles.get(locale);
+
+            if (list != null)
+            {
+                for (ResourceBundle bundle : list)
+                {
+                    if (bundle.getBaseBundleName().equals(baseBundleName))
+                    {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Registers a resource bundle for the given locale and indexes its entries.
+         * <p>
+         * When a key is already indexed, the entry coming from the resource bundle having the lowest priority value
+         * is kept. On equal priorities, the entry of the first registered resource bundle is kept.
+         * <p>
+         * Child locales are stored as deltas over their parent locales: an entry having the same resource bundle
+         * file, priority and value as the entry of the parent locale is not indexed but shared with the parent
+         * locale. Values containing placeholders are always indexed as their rendering depends on the locale.
+         * <p>
+         * @param bundle Resource bundle.
+         * @param locale Locale.
+         * @param priority Priority of the resource bundle file.
+         * @return This builder.
+         */
+        public final Builder register(final @NonNull ResourceBundle bundle, final @NonNull Locale locale, final int priority)
+        {
+            String baseBundleName = bundle.getBaseBundleName();
+            Map<String, BundleEntry> index;
+            BundleEntry existing;
+            BundleEntry inherited;
+            Locale parent;
+            long weight = 0;
+
+            if (!bundles.containsKey(locale))
+            {
+                parent = findParent(locale);
+                if (parent != null)
+                {
+                    parents.put(locale, parent);
+                }
+            }
+
+            modify(locale);
+            bundles.get(locale).add(bundle);
+
+            parent = parents.get(locale);
+            if (bundle instanceof ArenaResourceBundle && (parent == null || !bundles.get(parent).contains(bundle)))
+            {
+                // Arenas are accounted for once, not for each locale they are registered for as a fallback.
+                weight += ((ArenaResourceBundle) bundle).getWeight();
+            }
+            index = entries.get(locale);
+            for (String key : bundle.keySet())
+            {
+                existing = index.get(key);
+                inherited = existing == null && parent != null ? inherit(parent, key) : null;
+                if (inherited != null && !inherited.getBaseBundleName().equals(baseBundleName) && exist(inherited.getBaseBundleName(), locale))
+                {
+                    // The entry is shared with the parent locale for another resource bundle file of this locale.
+                    existing = inherited;
+                }
+
+                if (existing == null || priority < existing.getPriority())
+                {
+                    if (existing == null && inherited != null && isShared(bundle, key, priority, inherited))
+                    {
+                        continue;
+                    }
+
+                    detach(locale, key, existing != null ? existing : inherited);
+                    index.put(key, new BundleEntry(baseBundleName, locale, BundleValuePool.canonicalize(key), bundle, priority));
+                    weight += estimate(bundle, key);
+                }
+            }
+
+            weights.merge(locale, weight, Long::sum);
+
+            return this;
+        }
+
+        /**
+         * Removes all the resource bundles registered for the given locale.
+         * <p>
+         * The entries the child locales share with the given locale are first indexed in the child locales, which are
+         * then attached to the parent locale of the given locale.
+         * <p>
+         * @param locale Locale.
+         * @return This builder.
+         */
+        public final Builder evict(final @NonNull Locale locale)
+        {
+            Map<String, BundleEntry> index = entries.get(locale);
+            Iterator<Map.Entry<Locale, Locale>> iterator;
+            Map.Entry<Locale, Locale> link;
+            Locale parent;
+
+            if (index != null)
+            {
+                for (BundleEntry entry : new ArrayList<>(index.values()))
+                {
+                    detach(locale, entry.getKey(), entry);
+                }
+            }
+
+            parent = parents.remove(locale);
+            iterator = parents.entrySet().iterator();
+            while (iterator.hasNext())
+            {
+                link = iterator.next();
+                if (link.getValue().equals(locale))
+                {
+                    if (parent != null)
+                    {
+                        link.setValue(parent);
+                    }
+                    else
+                    {
+                        iterator.remove();
+                    }
+                }
+            }
+
+            bundles.remove(locale);
+            entries.remove(locale);
+            weights.remove(locale);
+            shares.remove(locale);
+            modified.remove(locale);
+
+            return this;
+        }
+
+        /**
+         * Copies the collections of the given locale (once per builder) so they can be modified.
+         * <p>
+         * @param locale Locale.
+         */
+        private void modify(final @NonNull Locale locale)
+        {
+            if (modified.add(locale))
+            {
+                bundles.put(locale, bundles.containsKey(locale) ? new ArrayList<>(bundles.get(locale)) : new ArrayList<>());
+                entries.put(locale, entries.containsKey(locale) ? new HashMap<>(entries.get(locale)) : new HashMap<>());
+            }
+        }
+
+        /**
+         * Returns the nearest registered candidate locale of the given locale.
+         * <p>
+         * @param locale Locale.
+         * @return Parent locale or {@code null} if none of the candidate locales is registered.
+         */
+        private Locale findParent(final @NonNull Locale locale)
+        {
+            for (Locale candidate : CANDIDATES.getCandidateLocales("", locale))
+            {
+                if (!candidate.equals(locale) && bundles.containsKey(candidate))
+                {
+                    return candidate;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Returns the entry the given locale inherits from its parent locales for the given key.
+         * <p>
+         * @param locale Locale.
+         * @param key Resource bundle key.
+         * @return Inherited entry or {@code null} if not found.
+         */
+        private BundleEntry inherit(final Locale locale, final @NonNull String key)
+        {
+            Map<String, BundleEntry> index;
+            BundleEntry entry;
+
+            for (Locale current = locale; current != null; current = parents.get(current))
+            {
+                index = entries.get(current);
+                entry = index != null ? index.get(key) : null;
+                if (entry != null)
+                {
+                    return entry;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Checks if the entry of the given resource bundle can be shared with the inherited entry.
+         * <p>
+         * Values are compared without being retained by the inherited entry. Values of resource bundles served on
+         * demand are not retrieved, the entry is then only shared when both entries come from the same resource
+         * bundle. Values packed in arenas are compared in their encoded form so that no string is materialized.
+         * <p>
+         * @param bundle Resource bundle.
+         * @param key Resource bundle key.
+         * @param priority Priority of the resource bundle file.
+         * @param inherited Inherited entry.
+         * @return {@code True} if the entry can be shared, {@code false} otherwise.
+         */
+        private static boolean isShared(final @NonNull ResourceBundle bundle, final @NonNull String key, final int priority, final @NonNull BundleEntry inherited)
+        {
+            final ResourceBundle source = inherited.getSource();
+            Object value;
+
+            if (!inherited.getBaseBundleName().equals(bundle.getBaseBundleName()) || inherited.getPriority() != priority)
+            {
+                return false;
+            }
+
+            if (bundle instanceof MappedResourceBundle && source != bundle)
+            {
+                return false;
+            }
+
+            if (bundle instanceof ArenaResourceBundle)
+            {
+                return source instanceof ArenaResourceBundle && ((ArenaResourceBundle) bundle).sharesValue(key, (ArenaResourceBundle) source);
+            }
+
+            value = bundle.getObject(key);
+            if (!(value instanceof String) || ((String) value).indexOf('{') >= 0)
+            {
+                return false;
+            }
+
+            return source == bundle || value.equals(source != null ? source.getObject(key) : inherited.getValue());
+        }
+
+        /**
+         * Indexes the given entry of a locale in its child locales sharing it, before it is replaced or removed.
+         * <p>
+         * Child locales not having the resource bundle file of the entry keep sharing it with their own child
+         * locales.
+         * <p>
+         * @param locale Locale.
+         * @param key Resource bundle key.
+         * @param previous Entry the child locales may share ({@code null} if none).
+         */
+        private void detach(final @NonNull Locale locale, final @NonNull String key, final BundleEntry previous)
+        {
+            ResourceBundle source;
+            Locale child;
+
+            if (previous == null || !parents.containsValue(locale))
+            {
+                return;
+            }
+
+            for (Map.Entry<Locale, Locale> link : parents.entrySet())
+            {
+                child = link.getKey();
+                if (link.getValue().equals(locale) && !entries.get(child).containsKey(key))
+                {
+                    source = findBundle(child, previous.getBaseBundleName());
+                    if (source != null)
+                    {
+                        modify(child);
+                        entries.get(child).put(key, new BundleEntry(previous.getBaseBundleName(), child, previous.getKey(), source, previous.getPriority()));
+                        weights.merge(child, estimate(source, key), Long::sum);
+                    }
+                    else
+                    {
+                        detach(child, key, previous);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the resource bundle registered for the given locale and resource bundle file.
+         * <p>
+         * @param locale Locale.
+         * @param baseBundleName Base bundle file name.
+         * @return Resource bundle or {@code null} if not registered.
+         */
+        private ResourceBundle findBundle(final @NonNull Locale locale, final @NonNull String baseBundleName)
+        {
+            for (ResourceBundle bundle : bundles.get(locale))
+            {
+                if (bundle.getBaseBundleName().equals(baseBundleName))
+                {
+                    return bundle;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Counts the entries of the given locale shared with its parent locales (not indexed).
+         * <p>
+         * @param locale Locale.
+         * @return Number of shared entries.
+         */
+        private long countShared(final @NonNull Locale locale)
+        {
+            Map<String, BundleEntry> index = entries.get(locale);
+            Set<String> keys = new HashSet<>();
+            long count = 0;
+
+            for (ResourceBundle bundle : bundles.get(locale))
+            {
+                keys.addAll(bundle.keySet());
+            }
+
+            for (String key : keys)
+            {
+                if (!index.containsKey(key))
+                {
+                    count++;
+                }
+            }
+
+            return count;
+        }
+
+        /**
+         * Builds the registry.
+         * <p>
+         * The number of shared entries is only counted again for the modified locales.
+         * <p>
+         * @return Immutable registry.
+         */
+        public final BundleRegistry build()
+        {
+            Map<Locale, List<ResourceBundle>> frozenBundles = new HashMap<>();
+            Map<Locale, Map<String, BundleEntry>> frozenEntries = new HashMap<>();
+
+            for (Locale locale : modified)
+            {
+                if (parents.containsKey(locale))
+                {
+                    shares.put(locale, countShared(locale));
+                }
+                else
+                {
+                    shares.remove(locale);
+                }
+            }
+
+            for (Map.Entry<Locale, List<ResourceBundle>> element : bundles.entrySet())
+            {
+                frozenBundles.put(element.getKey(), modified.contains(element.getKey())
+                        ? Collections.unmodifiableList(element.getValue())
+                        : element.getValue());
+            }
+
+            for (Map.Entry<Locale, Map<String, BundleEntry>> element : entries.entrySet())
+            {
+                frozenEntries.put(element.getKey(), modified.contains(element.getKey())
+                        ? PerfectHashIndex.of(element.getValue())
+                        : element.getValue());
+            }
+
+            modified.clear();
+
+            return new BundleRegistry(version, Collections.unmodifiableMap(frozenBundles), Collections.unmodifiableMap(frozenEntries), Collections.unmodifiableMap(new HashMap<>(weights)), Collections.unmodifiableMap(new HashMap<>(parents)), Collections.unmodifiableMap(new HashMap<>(shares)));
+        }
+    }
+}
@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent snapshot of the resolved state of the {@link ResourceBundleManager}.
+ * <p>
+ * The snapshot contains the annotated classes, the resource bundle priorities and the key/value tables of the
+ * registered resource bundles. It is keyed by a fingerprint of the classpath (paths, sizes and modification times of
+ * the classpath entries), so a snapshot written by a previous run is only reused when the classpath did not change.
+ * The snapshot file is memory-mapped and validated (magic number, format version, fingerprint and checksum) before
+ * being read; any invalid snapshot is simply ignored.
+ * <p>
+ * Snapshots are opt-in and enabled by setting the {@value #PROPERTY_FILE} system property to the path of the
+ * snapshot file.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+@Log4j
+public final class BundleSnapshot
+{
+    /**
+     * System property containing the path of the snapshot file.
+     */
+    public static final String PROPERTY_FILE = "kakoo.bundle.snapshot.file";
+
+    /**
+     * Snapshot file magic number.
+     */
+    private static final int MAGIC = 0x4B42534E;
+
+    /**
+     * Snapshot file format version.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Size of the snapshot file header (magic, format version, fingerprint, payload length and checksum).
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8;
+
+    /**
+     * Snapshot file.
+     */
+    @Getter
+    private final Path file;
+
+    /**
+     * Classpath the fingerprint is computed from.
+     */
+    private final List<Path> classpath;
+
+    /**
+     * Fingerprint of the classpath (lazily computed).
+     */
+    private volatile Long fingerprint;
+
+    /**
+     * Creates a new snapshot for the given file keyed by the fingerprint of the JVM classpath.
+     * <p>
+     * @param file Snapshot file.
+     */
+    public BundleSnapshot(final @NonNull Path file)
+    {
+        this(file, getJvmClasspath());
+    }
+
+    /**
+     * Creates a new snapshot for the given file keyed by the fingerprint of the given classpath.
+     * <p>
+     * @param file Snapshot file.
+     * @param classpath Classpath entries.
+     */
+    public BundleSnapshot(final @NonNull Path file, final @NonNull List<Path> classpath)
+    {
+        this.file = file;
+        this.classpath = new ArrayList<>(classpath);
+    }
+
+    /**
+     * Creates a snapshot configured from the {@value #PROPERTY_FILE} system property.
+     * <p>
+     * @return Snapshot or {@code null} if snapshots are not enabled.
+     */
+    public static BundleSnapshot fromSystemProperties()
+    {
+        String value = System.getProperty(PROPERTY_FILE);
+
+        return value == null || value.trim().isEmpty() ? null : new BundleSnapshot(Paths.get(value.trim()));
+    }
+
+    /**
+     * Returns the fingerprint of the classpath.
+     * <p>
+     * @return Classpath fingerprint.
+     * @throws IOException Thrown in case the classpath entries cannot be read.
+     */
+    public final long getFingerprint() throws IOException
+    {
+        Long value = fingerprint;
+
+        if (value == null)
+        {
+            value = computeFingerprint(classpath, file.toAbsolutePath());
+            fingerprint = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Reads the snapshot.
+     * <p>
+     * @param locale Locale of the resource bundle manager the snapshot must have been written for.
+     * @return Snapshot content or {@code null} if the snapshot file does not exist, is invalid, is outdated or has
+     * been written for another locale.
+     */
+    public final Content read(final @NonNull Locale locale)
+    {
+        if (!Files.isRegularFile(file))
+        {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            return decode(buffer, locale);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            log.warn(String.format("Ignoring invalid resource bundle snapshot: '%s' (%s)", file, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot.
+     * <p>
+     * The snapshot is first written to a temporary file which then replaces the snapshot file, so concurrent readers
+     * never see a partially written snapshot.
+     * <p>
+     * @param locale Locale of the resource bundle manager.
+     * @param annotations Annotated class names and their resource bundle file name (grouped by annotation class name).
+     * @param priorities Resource bundle priorities (indexed by base bundle file name).
+     * @param registry Registry of resource bundles.
+     * @throws IOException Thrown in case the snapshot cannot be written.
+     */
+    public final void write(final @NonNull Locale locale, final @NonNull Map<String, Map<String, String>> annotations, final @NonNull Map<String, Integer> priorities, final @NonNull BundleRegistry registry) throws IOException
+    {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(payload);
+        CRC32 checksum = new CRC32();
+        Path parent = file.toAbsolutePath().getParent();
+        long value = getFingerprint();
+        Path temporary;
+
+        writeString(output, locale.toLanguageTag());
+
+        output.writeInt(annotations.size());
+        for (Map.Entry<String, Map<String, String>> annotation : annotations.entrySet())
+        {
+            writeString(output, annotation.getKey());
+            writeMap(output, annotation.getValue());
+        }
+
+        output.writeInt(priorities.size());
+        for (Map.Entry<String, Integer> priority : priorities.entrySet())
+        {
+            writeString(output, priority.getKey());
+            output.writeInt(priority.getValue());
+        }
+
+        output.writeInt(registry.getLocales().size());
+        for (Locale registered : registry.getLocales())
+        {
+            writeString(output, registered.toLanguageTag());
+            output.writeInt(registry.getBundles(registered).size());
+            for (ResourceBundle bundle : registry.getBundles(registered))
+            {
+                writeString(output, bundle.getBaseBundleName());
+                output.writeInt(bundle.keySet().size());
+                for (String key : bundle.keySet())
+                {
+                    writeString(output, key);
+                    writeString(output, bundle.getString(key));
+                }
+            }
+        }
+
+        output.flush();
+        checksum.update(payload.toByteArray());
+
+        Files.createDirectories(parent);
+        temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try
+        {
+            try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary))))
+            {
+                stream.writeInt(MAGIC);
+                stream.writeInt(FORMAT_VERSION);
+                stream.writeLong(value);
+                stream.writeInt(payload.size());
+                stream.writeLong(checksum.getValue());
+                payload.writeTo(stream);
+            }
+
+            try
+            {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Decodes the content of a snapshot.
+     * <p>
+     * @param buffer Snapshot file content.
+     * @param locale Locale of the resource bundle manager the snapshot must have been written for.
+     * @return Snapshot content or {@code null} if the snapshot is outdated or has been written for another locale.
+     * @throws IOException Thrown in case the snapshot is invalid.
+     */
+    private Content decode(final @NonNull ByteBuffer buffer, final @NonNull Locale locale) throws IOException
+    {
+        Map<String, Map<String, String>> annotations = new LinkedHashMap<>();
+        Map<String, Integer> priorities = new LinkedHashMap<>();
+        BundleRegistry.Builder builder = BundleRegistry.EMPTY.toEmptyBuilder();
+        CRC32 checksum = new CRC32();
+        int length;
+        long expected;
+        int count;
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+        {
+            throw new IOException("Not a resource bundle snapshot or unsupported format version");
+        }
+
+        if (buffer.getLong() != getFingerprint())
+        {
+            log.info(String.format("Outdated resource bundle snapshot: '%s'", file));
+            return null;
+        }
+
+        length = buffer.getInt();
+        expected = buffer.getLong();
+        if (length != buffer.remaining())
+        {
+            throw new IOException("Truncated snapshot");
+        }
+
+        checksum.update(buffer.duplicate());
+        if (checksum.getValue() != expected)
+        {
+            throw new IOException("Corrupted snapshot");
+        }
+
+        if (!Locale.forLanguageTag(readString(buffer)).equals(locale))
+        {
+            log.info(String.format("Resource bundle snapshot: '%s' written for another locale", file));
+            return null;
+        }
+
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++)
+        {
+            annotations.put(readString(buffer), readMap(buffer));
+        }
+
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++)
+        {
+            priorities.put(readString(buffer), buffer.getInt());
+        }
+
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++)
+        {
+            Locale registered = Locale.forLanguageTag(readString(buffer));
+            int bundles = buffer.getInt();
+
+            for (int j = 0; j < bundles; j++)
+            {
+                String baseBundleName = readString(buffer);
+                int priority = priorities.getOrDefault(baseBundleName, ResourceBundleManager.DEFAULT_PRIORITY);
+
+                builder.register(new SnapshotResourceBundle(baseBundleName, readMap(buffer)), registered, priority);
+            }
+        }
+
+        return new Content(locale, annotations, priorities, builder.build());
+    }
+
+    /**
+     * Returns the JVM classpath entries.
+     * <p>
+     * @return Classpath entries.
+     */
+    private static List<Path> getJvmClasspath()
+    {
+        List<Path> entries = new ArrayList<>();
+
+        for (String element : System.getProperty("java.class.path", "").split(File.pathSeparator))
+        {
+            if (!element.isEmpty())
+            {
+                entries.add(Paths.get(element));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Computes the fingerprint of the given classpath.
+     * <p>
+     * The fingerprint covers the path, size and modification time of the jar files, and of each file contained in
+     * the directories (except the snapshot file itself).
+     * <p>
+     * @param classpath Classpath entries.
+     * @param excluded Absolute path of the snapshot file.
+     * @return Classpath fingerprint.
+     * @throws IOException Thrown in case the classpath entries cannot be read.
+     */
+    private static long computeFingerprint(final @NonNull List<Path> classpath, final @NonNull Path excluded) throws IOException
+    {
+        final MessageDigest digest;
+        final ByteBuffer value;
+
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        for (Path entry : classpath)
+        {
+            digest(digest, entry.toAbsolutePath().toString(), entry);
+            if (Files.isDirectory(entry))
+            {
+                List<Path> files = new ArrayList<>();
+
+                try (Stream<Path> walk = Files.walk(entry))
+                {
+                    walk.filter(Files::isRegularFile).filter(path -> !path.toAbsolutePath().equals(excluded)).forEach(files::add);
+                }
+
+                Collections.sort(files);
+                for (Path path : files)
+                {
+                    digest(digest, entry.relativize(path).toString(), path);
+                }
+            }
+        }
+
+        value = ByteBuffer.wrap(digest.digest());
+
+        return value.getLong();
+    }
+
+    /**
+     * Updates the digest with the name, size and modification time of the given path.
+     * <p>
+     * Only the name of directories is taken into account as their modification time changes whenever one of their
+     * files is added, removed or replaced (such as the snapshot file itself).
+     * <p>
+     * @param digest Message digest.
+     * @param name Name of the path.
+     * @param path Path (may not exist or be a directory).
+     * @throws IOException Thrown in case the path attributes cannot be read.
+     */
+    private static void digest(final @NonNull MessageDigest digest, final @NonNull String name, final @NonNull Path path) throws IOException
+    {
+        ByteBuffer attributes = ByteBuffer.allocate(16);
+
+        digest.update(name.getBytes(StandardCharsets.UTF_8));
+        if (Files.isRegularFile(path))
+        {
+            BasicFileAttributes basic = Files.readAttributes(path, BasicFileAttributes.class);
+
+            attributes.putLong(basic.size());
+            attributes.putLong(basic.lastModifiedTime().toMillis());
+        }
+
+        digest.update(attributes.array());
+    }
+
+    /**
+     * Writes a map of strings.
+     * <p>
+     * @param output Output stream.
+     * @param map Map to write.
+     * @throws IOException Thrown in case the map cannot be written.
+     */
+    private static void writeMap(final @NonNull DataOutputStream output, final @NonNull Map<String, String> map) throws IOException
+    {
+        output.writeInt(map.size());
+        for (Map.Entry<String, String> element : map.entrySet())
+        {
+            writeString(output, element.getKey());
+            writeString(output, element.getValue());
+        }
+    }
+
+    /**
+     * Reads a map of strings.
+     * <p>
+     * Keys and values are canonicalized as the same strings are usually written for several locales.
+     * <p>
+     * @param buffer Input buffer.
+     * @return Map of strings (in written order).
+     */
+    private static Map<String, String> readMap(final @NonNull ByteBuffer buffer)
+    {
+        int count = buffer.getInt();
+        Map<String, String> map = new LinkedHashMap<>(Math.max(16, count * 4 / 3 + 1));
+
+        for (int i = 0; i < count; i++)
+        {
+            map.put(BundleValuePool.canonicalize(readString(buffer)), BundleValuePool.canonicalize(readString(buffer)));
+        }
+
+        return map;
+    }
+
+    /**
+     * Writes a string encoded in UTF-8 (unlike {@link DataOutputStream#writeUTF(String)}, strings are not limited to
+     * 65535 bytes).
+     * <p>
+     * @param output Output stream.
+     * @param value String to write.
+     * @throws IOException Thrown in case the string cannot be written.
+     */
+    private static void writeString(final @NonNull DataOutputStream output, final @NonNull String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a string encoded in UTF-8.
+     * <p>
+     * @param buffer Input buffer.
+     * @return String.
+     */
+    private static String readString(final @NonNull ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Content of a snapshot.
+     */
+    public static final class Content
+    {
+        /**
+         * Locale of the resource bundle manager the snapshot has been written for.
+         */
+        @Getter
+        private final Locale locale;
+
+        /**
+         * Annotated class names and their resource bundle file name (grouped by annotation class name).
+         */
+        @Getter
+        private final Map<String, Map<String, String>> annotations;
+
+        /**
+         * Resource bundle priorities (indexed by base bundle file name).
+         */
+        @Getter
+        private final Map<String, Integer> priorities;
+
+        /**
+         * Registry of resource bundles.
+         */
+        @Getter
+        private final BundleRegistry registry;
+
+        /**
+         * Creates a new snapshot content.
+         * <p>
+         * @param locale Locale of the resource bundle manager.
+         * @param annotations Annotated class names and their resource bundle file name.
+         * @param priorities Resource bundle priorities.
+         * @param registry Registry of resource bundles.
+         */
+        private Content(final @NonNull Locale locale, final @NonNull Map<String, Map<String, String>> annotations, final @NonNull Map<String, Integer> priorities, final @NonNull BundleRegistry registry)
+        {
+            this.locale = locale;
+            this.annotations = Collections.unmodifiableMap(annotations);
+            this.priorities = Collections.unmodifiableMap(priorities);
+            this.registry = registry;
+        }
+    }
+
+    /**
+     * A resource bundle restored from a snapshot.
+     */
+    private static final class SnapshotResourceBundle extends ResourceBundle
+    {
+        /**
+         * Base bundle file name.
+         */
+        private final String baseBundleName;
+
+        /**
+         * Resource bundle keys and values.
+         */
+        private final Map<String, String> values;
+
+        /**
+         * Creates a new resource bundle.
+         * <p>
+         * @param baseBundleName Base bundle file name.
+         * @param values Keys and values.
+         */
+        private SnapshotResourceBundle(final @NonNull String baseBundleName, final @NonNull Map<String, String> values)
+        {
+            this.baseBundleName = baseBundleName;
+            this.values = values;
+        }
+
+        @Override
+        public String getBaseBundleName()
+        {
+            return baseBundleName;
+        }
+
+        @Override
+        protected Object handleGetObject(final @NonNull String key)
+        {
+            return values.get(key);
+        }
+
+        @Override
+        public Enumeration<String> getKeys()
+        {
+            return Collections.enumeration(values.keySet());
+        }
+
+        @Override
+        protected Set<String> handleKeySet()
+        {
+            return values.keySet();
+        }
+    }
+}
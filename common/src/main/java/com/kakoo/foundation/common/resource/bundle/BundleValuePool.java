@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.experimental.UtilityClass;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A pool canonicalizing the keys and values of the resource bundles so that identical strings coming from several
+ * resource bundle files or locales (such as {@code fr}, {@code fr_FR} and {@code fr_CA}) are held only once.
+ * <p>
+ * The pool only holds weak references, so the strings of the resource bundles no longer used (for example evicted
+ * locales) can still be garbage collected.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+@UtilityClass
+public class BundleValuePool
+{
+    /**
+     * Canonical strings.
+     */
+    private static final Map<String, WeakReference<String>> POOL = new WeakHashMap<>();
+
+    /**
+     * Returns the canonical instance of the given string.
+     * <p>
+     * @param value String to canonicalize.
+     * @return Canonical instance of the string (the given instance if it is the first one), {@code null} if the
+     * given string is {@code null}.
+     */
+    public static String canonicalize(final String value)
+    {
+        WeakReference<String> reference;
+        String canonical;
+
+        if (value == null)
+        {
+            return null;
+        }
+
+        synchronized (POOL)
+        {
+            reference = POOL.get(value);
+            canonical = reference != null ? reference.get() : null;
+            if (canonical == null)
+            {
+                POOL.put(value, new WeakReference<>(value));
+                return value;
+            }
+        }
+
+        return canonical;
+    }
+
+    /**
+     * Returns the number of canonical strings currently held by the pool.
+     * <p>
+     * @return Number of canonical strings.
+     */
+    public static int size()
+    {
+        synchronized (POOL)
+        {
+            return POOL.size();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.text.Format;
+
+/**
+ * A per-thread pool of the clones of the {@link Format} prototypes shared by the {@link MessageTemplate} and the
+ * {@link LocaleFormatters}.
+ * <p>
+ * Formats are not thread-safe, so each thread formats using its own clone of a shared prototype. All the clones of a
+ * thread are held in a single small direct-mapped table indexed by the identity of their prototype, instead of a
+ * thread local per prototype: the memory retained per thread is bounded whatever the number of prototypes, and a
+ * prototype evicted from the table is simply cloned again on its next use.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@UtilityClass
+class FormatPool
+{
+    /**
+     * Number of slots of the table of a thread (must be a power of two).
+     */
+    private static final int SIZE = 64;
+
+    /**
+     * Prototype and clone pairs of each thread.
+     */
+    private static final ThreadLocal<Format[]> CLONES = ThreadLocal.withInitial(() -> new Format[SIZE * 2]);
+
+    /**
+     * Returns the clone of the given prototype confined to the calling thread.
+     * <p>
+     * @param <F> Type of the format.
+     * @param prototype Format prototype (never used directly to format).
+     * @return Clone of the prototype.
+     */
+    @SuppressWarnings("unchecked")
+    static <F extends Format> F get(final @NonNull F prototype)
+    {
+        final Format[] clones = CLONES.get();
+        final int slot = (System.identityHashCode(prototype) & (SIZE - 1)) << 1;
+
+        if (clones[slot] != prototype)
+        {
+            clones[slot + 1] = (Format) prototype.clone();
+            clones[slot] = prototype;
+        }
+
+        return (F) clones[slot + 1];
+    }
+}
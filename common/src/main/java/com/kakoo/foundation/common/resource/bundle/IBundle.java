@@ -35,4 +35,26 @@ public interface IBundle
      * @return Resource bundle value.
      */
     String getValue();
+
+    /**
+     * Appends the resource bundle value, according to the current locale, to the given appendable.
+     * <p>
+     * The value is written directly into the appendable without creating any intermediate string.
+     * <p>
+     * @param <A> Type of the appendable.
+     * @param output Appendable receiving the resource bundle value.
+     * @param parameters Parameters for message formatting.
+     * @return The given appendable.
+     * @throws ResourceBundleException Thrown in case the value cannot be found or appended.
+     */
+    @SuppressWarnings("unchecked")
+    default <A extends Appendable> A appendTo(final A output, final Object... parameters)
+    {
+        if (!(this instanceof Enum))
+        {
+            throw new ResourceBundleException(String.format("Resource bundle: '%s' is not an enumeration", getClass().getName()));
+        }
+
+        return ResourceBundleManager.formatTo(output, (Enum<? extends IBundle>) this, ResourceBundleManager.getLocale(), parameters);
+    }
 }
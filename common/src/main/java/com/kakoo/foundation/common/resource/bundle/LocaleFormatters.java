@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.text.*;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.chrono.Chronology;
+import java.time.chrono.JapaneseChronology;
+import java.time.chrono.ThaiBuddhistChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+import java.time.format.FormatStyle;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-locale cache of the formatters used to render the number and date arguments of the compiled messages.
+ * <p>
+ * The formatters are created once per locale and shared by all the message templates of this locale:
+ * <ul>
+ * <li>integral numbers are rendered directly from the precomputed decimal symbols (digits, grouping separator and
+ * signs) of the locale, without any formatter,</li>
+ * <li>dates are rendered using an immutable {@link DateTimeFormatter} built from the short date/time pattern of the
+ * locale,</li>
+ * <li>other numbers are rendered using a clone of the {@link NumberFormat} of the locale confined to the calling
+ * thread (see {@link FormatPool}).</li>
+ * </ul>
+ * The rendering is the same as the one of the {@link NumberFormat#getInstance(Locale)} and of the
+ * {@link DateFormat#getDateTimeInstance(int, int, Locale)} (short styles) formatters used by {@link MessageFormat} for
+ * the placeholders without format type.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class LocaleFormatters
+{
+    /**
+     * Formatters per locale.
+     */
+    private static final Map<Locale, LocaleFormatters> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Locale of the formatters.
+     */
+    @Getter
+    private final Locale locale;
+
+    /**
+     * Number formatter prototype (cloned per thread as number formats are not thread-safe).
+     */
+    private final NumberFormat numberFormat;
+
+    /**
+     * Date formatter.
+     */
+    private final DateTimeFormatter dateFormatter;
+
+    /**
+     * Indicates if the integral numbers can be rendered from the precomputed decimal symbols.
+     */
+    private final boolean integral;
+
+    /**
+     * Zero digit of the locale.
+     */
+    private final char zeroDigit;
+
+    /**
+     * Grouping separator of the locale.
+     */
+    private final char groupingSeparator;
+
+    /**
+     * Grouping size ({@code 0} when grouping is not used).
+     */
+    private final int groupingSize;
+
+    /**
+     * Prefix of the positive numbers.
+     */
+    private final String positivePrefix;
+
+    /**
+     * Suffix of the positive numbers.
+     */
+    private final String positiveSuffix;
+
+    /**
+     * Prefix of the negative numbers.
+     */
+    private final String negativePrefix;
+
+    /**
+     * Suffix of the negative numbers.
+     */
+    private final String negativeSuffix;
+
+    /**
+     * Creates the formatters of the given locale.
+     * <p>
+     * @param locale Locale.
+     */
+    private LocaleFormatters(final @NonNull Locale locale)
+    {
+        NumberFormat number = NumberFormat.getInstance(locale);
+        DecimalFormat decimal;
+
+        this.locale = locale;
+        this.numberFormat = number;
+        this.dateFormatter = createDateFormatter(locale);
+
+        if (number instanceof DecimalFormat)
+        {
+            decimal = (DecimalFormat) number;
+            integral = decimal.getMultiplier() == 1 && decimal.getMinimumIntegerDigits() <= 1 && decimal.getMaximumIntegerDigits() >= 20;
+            zeroDigit = decimal.getDecimalFormatSymbols().getZeroDigit();
+            groupingSeparator = decimal.getDecimalFormatSymbols().getGroupingSeparator();
+            groupingSize = decimal.isGroupingUsed() ? decimal.getGroupingSize() : 0;
+            positivePrefix = decimal.getPositivePrefix();
+            positiveSuffix = decimal.getPositiveSuffix();
+            negativePrefix = decimal.getNegativePrefix();
+            negativeSuffix = decimal.getNegativeSuffix();
+        }
+        else
+        {
+            integral = false;
+            zeroDigit = '0';
+            groupingSeparator = ',';
+            groupingSize = 0;
+            positivePrefix = "";
+            positiveSuffix = "";
+            negativePrefix = "-";
+            negativeSuffix = "";
+        }
+    }
+
+    /**
+     * Returns the formatters of the given locale.
+     * <p>
+     * @param locale Locale.
+     * @return Formatters (shared).
+     */
+    public static LocaleFormatters of(final @NonNull Locale locale)
+    {
+        return CACHE.computeIfAbsent(locale, LocaleFormatters::new);
+    }
+
+    /**
+     * Creates the date formatter of the given locale from its short date/time pattern.
+     * <p>
+     * @param locale Locale.
+     * @return Date formatter.
+     */
+    private static DateTimeFormatter createDateFormatter(final Locale locale)
+    {
+        DateFormat format = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+
+        if (format instanceof SimpleDateFormat)
+        {
+            try
+            {
+                return DateTimeFormatter.ofPattern(((SimpleDateFormat) format).toPattern(), locale)
+                        .withChronology(getChronology(locale))
+                        .withDecimalStyle(DecimalStyle.of(locale));
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Pattern letter not supported by the date/time formatter, use the localized style instead.
+            }
+        }
+
+        return DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT).withLocale(locale);
+    }
+
+    /**
+     * Returns the chronology of the calendar used by the date formats of the given locale.
+     * <p>
+     * @param locale Locale.
+     * @return Chronology.
+     */
+    private static Chronology getChronology(final Locale locale)
+    {
+        switch (Calendar.getInstance(locale).getCalendarType())
+        {
+            case "buddhist":
+                return ThaiBuddhistChronology.INSTANCE;
+
+            case "japanese":
+                return JapaneseChronology.INSTANCE;
+
+            default:
+                return Chronology.ofLocale(locale);
+        }
+    }
+
+    /**
+     * Appends the given number to the given appendable.
+     * <p>
+     * @param output Appendable receiving the formatted number.
+     * @param value Number to format.
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    public final void formatNumber(final @NonNull Appendable output, final @NonNull Number value) throws IOException
+    {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+        {
+            formatNumber(output, value.longValue());
+        }
+        else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE)
+        {
+            formatNumber(output, value.longValue());
+        }
+        else
+        {
+            output.append(FormatPool.get(numberFormat).format(value));
+        }
+    }
+
+    /**
+     * Appends the given integral number to the given appendable.
+     * <p>
+     * @param output Appendable receiving the formatted number.
+     * @param value Number to format.
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    public final void formatNumber(final @NonNull Appendable output, final long value) throws IOException
+    {
+        if (!integral)
+        {
+            output.append(FormatPool.get(numberFormat).format(value));
+            return;
+        }
+
+        // Digits are computed on the negative value as the absolute value of Long.MIN_VALUE is not a long.
+        long remaining = value < 0 ? value : -value;
+        long divisor = 1;
+        int digits = 1;
+
+        while (remaining / divisor <= -10)
+        {
+            divisor *= 10;
+            digits++;
+        }
+
+        output.append(value < 0 ? negativePrefix : positivePrefix);
+        while (digits > 0)
+        {
+            output.append((char) (zeroDigit - remaining / divisor));
+            remaining %= divisor;
+            divisor /= 10;
+            digits--;
+            if (groupingSize > 0 && digits > 0 && digits % groupingSize == 0)
+            {
+                output.append(groupingSeparator);
+            }
+        }
+        output.append(value < 0 ? negativeSuffix : positiveSuffix);
+    }
+
+    /**
+     * Appends the given decimal number to the given appendable.
+     * <p>
+     * @param output Appendable receiving the formatted number.
+     * @param value Number to format.
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    public final void formatNumber(final @NonNull Appendable output, final double value) throws IOException
+    {
+        output.append(FormatPool.get(numberFormat).format(value));
+    }
+
+    /**
+     * Appends the given date to the given appendable.
+     * <p>
+     * @param output Appendable receiving the formatted date.
+     * @param value Date to format (in the default time zone).
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    public final void formatDate(final @NonNull Appendable output, final @NonNull Date value) throws IOException
+    {
+        try
+        {
+            dateFormatter.formatTo(value.toInstant().atZone(ZoneId.systemDefault()), output);
+        }
+        catch (DateTimeException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Formats the given integral number.
+     * <p>
+     * @param value Number to format.
+     * @return Formatted number.
+     */
+    public final String format(final long value)
+    {
+        StringBuilder output = new StringBuilder(24);
+
+        try
+        {
+            formatNumber(output, value);
+        }
+        catch (IOException e)
+        {
+            // Cannot happen with a string builder.
+            throw new UncheckedIOException(e);
+        }
+
+        return output.toString();
+    }
+
+    /**
+     * Formats the given decimal number.
+     * <p>
+     * @param value Number to format.
+     * @return Formatted number.
+     */
+    public final String format(final double value)
+    {
+        return FormatPool.get(numberFormat).format(value);
+    }
+}
@@ -0,0 +1,1063 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of fully formatted resource bundle messages keyed by the resource bundle key, the locale and the
+ * formatting arguments.
+ * <p>
+ * The cache is made of two levels:
+ * <ul>
+ * <li>a small direct-mapped cache per thread (L1) answering the hottest messages without any synchronization,</li>
+ * <li>a shared cache (L2) bounded by a maximum weight (the number of characters of the cached messages) using the
+ * W-TinyLFU eviction policy: new messages enter a small LRU window, then compete for the main segmented LRU space
+ * (probation and protected segments) based on their access frequency estimated by a count-min sketch.</li>
+ * </ul>
+ * The shared cache is lock-striped: messages are spread by hash code over independent stripes, each one guarded by
+ * its own lock and owning its share of the maximum weight, its segments and its sketch. Threads missing their per
+ * thread cache therefore only contend when they access the same stripe.
+ * <p>
+ * Entries are stamped with the version of the resource bundle registry they have been formatted from, so the whole
+ * cache is invalidated as soon as a new registry is published (when registering or clearing resource bundles).
+ * <p>
+ * Only messages whose arguments are all immutable values (strings, boxed primitives, big numbers, enumerated values
+ * or {@code null}) are cached.
+ * <p>
+ * The cache is opt-in and enabled by setting the {@value #PROPERTY_WEIGHT} system property to the maximum weight of
+ * the cache.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Log4j
+@Internal
+public final class MessageCache
+{
+    /**
+     * System property containing the maximum weight of the cache.
+     */
+    public static final String PROPERTY_WEIGHT = "kakoo.bundle.cache.weight";
+
+    /**
+     * Number of slots of the per thread cache (must be a power of two).
+     */
+    private static final int LOCAL_SIZE = 64;
+
+    /**
+     * Maximum number of stripes of the shared cache (must be a power of two).
+     */
+    private static final int MAXIMUM_STRIPES = 64;
+
+    /**
+     * Minimum weight of a stripe of the shared cache.
+     */
+    private static final long MINIMUM_STRIPE_WEIGHT = 256;
+
+    /**
+     * Percentage of the maximum weight allocated to the window.
+     */
+    private static final int WINDOW_PERCENTAGE = 1;
+
+    /**
+     * Percentage of the main space allocated to the protected segment.
+     */
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    /**
+     * Argument types considered as immutable values.
+     */
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+            Character.class, Boolean.class, BigInteger.class, BigDecimal.class));
+
+    /**
+     * Maximum weight of the shared cache.
+     */
+    @Getter
+    private final long maximumWeight;
+
+    /**
+     * Per thread caches.
+     */
+    private final ThreadLocal<Slot[]> local = ThreadLocal.withInitial(() -> new Slot[LOCAL_SIZE]);
+
+    /**
+     * Stripes of the shared cache (the number of stripes is a power of two).
+     */
+    private final Stripe[] stripes;
+
+    /**
+     * Generation of the cached messages (incremented each time the cache is explicitly invalidated).
+     */
+    private volatile int generation;
+
+    /**
+     * Number of hits in the per thread caches.
+     */
+    private final LongAdder localHits = new LongAdder();
+
+    /**
+     * Number of hits in the shared cache.
+     */
+    private final LongAdder sharedHits = new LongAdder();
+
+    /**
+     * Number of misses.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of evictions.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new message cache.
+     * <p>
+     * @param maximumWeight Maximum weight (number of characters of the cached messages) of the shared cache.
+     * @throws IllegalArgumentException Thrown in case the maximum weight is not positive.
+     */
+    public MessageCache(final long maximumWeight)
+    {
+        if (maximumWeight <= 0)
+        {
+            throw new IllegalArgumentException(String.format("Invalid maximum weight: %d", maximumWeight));
+        }
+
+        // Twice the number of processors (rounded to a power of two) as long as the stripes keep a meaningful weight.
+        int count = Math.min(MAXIMUM_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1);
+
+        count = (int) Math.min(count, Long.highestOneBit(Math.max(1, maximumWeight / MINIMUM_STRIPE_WEIGHT)));
+
+        this.maximumWeight = maximumWeight;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++)
+        {
+            // The remainder of the maximum weight is given to the first stripe.
+            stripes[i] = new Stripe(maximumWeight / count + (i == 0 ? maximumWeight % count : 0));
+        }
+    }
+
+    /**
+     * Creates the message cache configured by the system properties.
+     * <p>
+     * An invalid maximum weight (not a strictly positive number) is reported and the cache is not enabled.
+     * <p>
+     * @return Message cache or {@code null} if the cache is not enabled.
+     */
+    public static MessageCache fromSystemProperties()
+    {
+        String value = System.getProperty(PROPERTY_WEIGHT);
+
+        if (value == null || value.trim().isEmpty())
+        {
+            return null;
+        }
+
+        try
+        {
+            return new MessageCache(Long.parseLong(value.trim()));
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.warn(String.format("Ignoring invalid system property: '%s' (%s), the message cache is not enabled", PROPERTY_WEIGHT, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a message formatted with the given arguments can be cached.
+     * <p>
+     * @param arguments Formatting arguments.
+     * @return {@code True} if there is at least one argument and all the arguments are immutable values.
+     */
+    public static boolean isCacheable(final Object[] arguments)
+    {
+        if (arguments == null || arguments.length == 0)
+        {
+            return false;
+        }
+
+        for (Object argument : arguments)
+        {
+            if (argument != null && !(argument instanceof Enum) && !IMMUTABLE_TYPES.contains(argument.getClass()))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the cached message for the given key, locales and arguments.
+     * <p>
+     * @param version Version of the current registry.
+     * @param key Resource bundle key.
+     * @param locale Requested locale.
+     * @param fallback Fallback (default) locale.
+     * @param arguments Formatting arguments.
+     * @return Cached message or {@code null} if not cached.
+     */
+    public final String get(final long version, final @NonNull String key, final @NonNull Locale locale, final @NonNull Locale fallback, final @NonNull Object[] arguments)
+    {
+        final int hash = Key.hash(key, locale, fallback, arguments);
+        final Slot[] slots = local.get();
+        final Slot slot = slots[spread(hash) & (LOCAL_SIZE - 1)];
+        final Stripe stripe;
+        final int current = generation;
+        Node node;
+        String message;
+
+        if (slot != null && slot.version == version && slot.generation == current && slot.key.matches(hash, key, locale, fallback, arguments))
+        {
+            localHits.increment();
+            return slot.message;
+        }
+
+        stripe = stripe(hash);
+        synchronized (stripe)
+        {
+            stripe.validate(version);
+
+            node = stripe.nodes.get(new Key(hash, key, locale, fallback, arguments));
+            stripe.sketch.increment(hash);
+            if (node == null)
+            {
+                misses.increment();
+                return null;
+            }
+
+            stripe.onHit(node);
+            message = node.message;
+        }
+
+        slots[spread(hash) & (LOCAL_SIZE - 1)] = new Slot(node.key, message, version, current);
+        sharedHits.increment();
+
+        return message;
+    }
+
+    /**
+     * Caches the given message.
+     * <p>
+     * The message is ignored if it has been formatted from an outdated registry.
+     * <p>
+     * @param version Version of the registry the message has been formatted from.
+     * @param key Resource bundle key.
+     * @param locale Requested locale.
+     * @param fallback Fallback (default) locale.
+     * @param arguments Formatting arguments (copied).
+     * @param message Formatted message.
+     */
+    public final void put(final long version, final @NonNull String key, final @NonNull Locale locale, final @NonNull Locale fallback, final @NonNull Object[] arguments, final @NonNull String message)
+    {
+        final Key entry = new Key(Key.hash(key, locale, fallback, arguments), key, locale, fallback, arguments.clone());
+        final int weight = Math.max(1, message.length());
+        final Stripe stripe = stripe(entry.hash);
+        final int current = generation;
+        Node node;
+
+        if (weight > stripe.maximumWeight)
+        {
+            return;
+        }
+
+        synchronized (stripe)
+        {
+            stripe.validate(version);
+            if (version != stripe.version)
+            {
+                return;
+            }
+
+            node = stripe.nodes.get(entry);
+            if (node != null)
+            {
+                node.segment.weight += weight - node.weight;
+                node.weight = weight;
+                node.message = message;
+            }
+            else
+            {
+                node = new Node(entry, message, weight);
+                stripe.nodes.put(entry, node);
+                stripe.window.addLast(node);
+            }
+
+            stripe.balance();
+        }
+
+        local.get()[spread(entry.hash) & (LOCAL_SIZE - 1)] = new Slot(entry, message, version, current);
+    }
+
+    /**
+     * Removes all the cached messages.
+     * <p>
+     * The messages cached per thread are discarded lazily (when they are accessed).
+     */
+    public final synchronized void invalidate()
+    {
+        generation++;
+        for (Stripe stripe : stripes)
+        {
+            synchronized (stripe)
+            {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of messages of the shared cache.
+     * <p>
+     * @return Number of cached messages.
+     */
+    public final int size()
+    {
+        int size = 0;
+
+        for (Stripe stripe : stripes)
+        {
+            synchronized (stripe)
+            {
+                size += stripe.nodes.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the current weight of the shared cache.
+     * <p>
+     * @return Weight (number of characters of the cached messages).
+     */
+    public final long getWeight()
+    {
+        long weight = 0;
+
+        for (Stripe stripe : stripes)
+        {
+            synchronized (stripe)
+            {
+                weight += stripe.window.weight + stripe.probation.weight + stripe.protection.weight;
+            }
+        }
+
+        return weight;
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     * <p>
+     * @return Statistics.
+     */
+    public final Statistics getStatistics()
+    {
+        return new Statistics(localHits.sum(), sharedHits.sum(), misses.sum(), evictions.sum(), size(), getWeight());
+    }
+
+    /**
+     * Returns the stripe of the shared cache owning the given hash code.
+     * <p>
+     * @param hash Hash code.
+     * @return Stripe.
+     */
+    private Stripe stripe(final int hash)
+    {
+        // Uses other bits than the ones selecting the slot of the per thread caches.
+        return stripes[((hash * 0x9E3779B9) >>> 16) & (stripes.length - 1)];
+    }
+
+    /**
+     * Spreads the bits of the given hash code.
+     * <p>
+     * @param hash Hash code.
+     * @return Spread hash code.
+     */
+    private static int spread(final int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A stripe of the shared cache guarded by its own lock (the stripe itself) and managing its share of the maximum
+     * weight with its own W-TinyLFU policy.
+     */
+    private final class Stripe
+    {
+        /**
+         * Maximum weight of the stripe.
+         */
+        private final long maximumWeight;
+
+        /**
+         * Maximum weight of the window.
+         */
+        private final long maximumWindowWeight;
+
+        /**
+         * Maximum weight of the protected segment.
+         */
+        private final long maximumProtectedWeight;
+
+        /**
+         * Cached nodes.
+         */
+        private final Map<Key, Node> nodes = new HashMap<>();
+
+        /**
+         * Window segment (least recently used first).
+         */
+        private final Segment window = new Segment();
+
+        /**
+         * Probation segment (least recently used first).
+         */
+        private final Segment probation = new Segment();
+
+        /**
+         * Protected segment (least recently used first).
+         */
+        private final Segment protection = new Segment();
+
+        /**
+         * Access frequency sketch.
+         */
+        private final FrequencySketch sketch;
+
+        /**
+         * Registry version of the cached messages.
+         */
+        private long version = Long.MIN_VALUE;
+
+        /**
+         * Creates a new stripe.
+         * <p>
+         * @param maximumWeight Maximum weight of the stripe.
+         */
+        private Stripe(final long maximumWeight)
+        {
+            this.maximumWeight = maximumWeight;
+            this.maximumWindowWeight = Math.max(1, maximumWeight * WINDOW_PERCENTAGE / 100);
+            this.maximumProtectedWeight = (maximumWeight - maximumWindowWeight) * PROTECTED_PERCENTAGE / 100;
+            this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64, maximumWeight / 16)));
+        }
+
+        /**
+         * Invalidates the stripe if the given registry version is newer than the one of the cached messages.
+         * <p>
+         * @param version Version of the current registry.
+         */
+        private void validate(final long version)
+        {
+            if (version > this.version)
+            {
+                clear();
+                this.version = version;
+            }
+        }
+
+        /**
+         * Removes all the messages of the stripe.
+         */
+        private void clear()
+        {
+            nodes.clear();
+            window.clear();
+            probation.clear();
+            protection.clear();
+        }
+
+        /**
+         * Updates the segments of the given node when it is accessed.
+         * <p>
+         * @param node Accessed node.
+         */
+        private void onHit(final Node node)
+        {
+            if (node.segment == probation)
+            {
+                // Promote to the protected segment, demoting its least recently used nodes if needed.
+                probation.remove(node);
+                protection.addLast(node);
+                while (protection.weight > maximumProtectedWeight && protection.head != node)
+                {
+                    Node demoted = protection.head;
+                    protection.remove(demoted);
+                    probation.addLast(demoted);
+                }
+            }
+            else
+            {
+                node.segment.moveToLast(node);
+            }
+        }
+
+        /**
+         * Moves the nodes exceeding the window to the probation segment and evicts nodes until the stripe fits within
+         * its maximum weight.
+         */
+        private void balance()
+        {
+            Node candidate;
+            Node victim;
+
+            while (window.weight > maximumWindowWeight && window.head != null)
+            {
+                candidate = window.head;
+                window.remove(candidate);
+                probation.addLast(candidate);
+            }
+
+            while (window.weight + probation.weight + protection.weight > maximumWeight)
+            {
+                if (probation.head != null)
+                {
+                    // The least recently used node of the probation segment (victim) competes with the most recent one
+                    // (candidate coming from the window), the least frequently used one is evicted.
+                    victim = probation.head;
+                    candidate = probation.tail;
+                    evict(candidate != victim && sketch.frequency(candidate.key.hash) > sketch.frequency(victim.key.hash) ? victim : candidate);
+                }
+                else if (protection.head != null)
+                {
+                    evict(protection.head);
+                }
+                else
+                {
+                    evict(window.head);
+                }
+            }
+        }
+
+        /**
+         * Evicts the given node.
+         * <p>
+         * @param node Node to evict.
+         */
+        private void evict(final Node node)
+        {
+            node.segment.remove(node);
+            nodes.remove(node.key);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Statistics of a message cache.
+     */
+    @Getter
+    public static final class Statistics
+    {
+        /**
+         * Number of hits in the per thread caches.
+         */
+        private final long localHitCount;
+
+        /**
+         * Number of hits in the shared cache.
+         */
+        private final long sharedHitCount;
+
+        /**
+         * Number of misses.
+         */
+        private final long missCount;
+
+        /**
+         * Number of evictions.
+         */
+        private final long evictionCount;
+
+        /**
+         * Number of messages of the shared cache.
+         */
+        private final int size;
+
+        /**
+         * Weight of the shared cache.
+         */
+        private final long weight;
+
+        /**
+         * Creates new statistics.
+         * <p>
+         * @param localHitCount Number of hits in the per thread caches.
+         * @param sharedHitCount Number of hits in the shared cache.
+         * @param missCount Number of misses.
+         * @param evictionCount Number of evictions.
+         * @param size Number of messages of the shared cache.
+         * @param weight Weight of the shared cache.
+         */
+        private Statistics(final long localHitCount, final long sharedHitCount, final long missCount, final long evictionCount, final int size, final long weight)
+        {
+            this.localHitCount = localHitCount;
+            this.sharedHitCount = sharedHitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        /**
+         * Returns the total number of hits.
+         * <p>
+         * @return Number of hits (per thread and shared).
+         */
+        public final long getHitCount()
+        {
+            return localHitCount + sharedHitCount;
+        }
+
+        /**
+         * Returns the ratio of the requests answered by the cache.
+         * <p>
+         * @return Hit rate (between {@code 0} and {@code 1}).
+         */
+        public final double getHitRate()
+        {
+            long requests = getHitCount() + missCount;
+
+            return requests == 0 ? 1.0 : (double) getHitCount() / requests;
+        }
+
+        @Override
+        public final String toString()
+        {
+            return String.format("hits: %d (local: %d), misses: %d, evictions: %d, size: %d, weight: %d", getHitCount(), localHitCount, missCount, evictionCount, size, weight);
+        }
+    }
+
+    /**
+     * Key of a cached message.
+     */
+    private static final class Key
+    {
+        /**
+         * Hash code.
+         */
+        private final int hash;
+
+        /**
+         * Resource bundle key.
+         */
+        private final String key;
+
+        /**
+         * Requested locale.
+         */
+        private final Locale locale;
+
+        /**
+         * Fallback locale.
+         */
+        private final Locale fallback;
+
+        /**
+         * Formatting arguments.
+         */
+        private final Object[] arguments;
+
+        /**
+         * Creates a new key.
+         * <p>
+         * @param hash Hash code.
+         * @param key Resource bundle key.
+         * @param locale Requested locale.
+         * @param fallback Fallback locale.
+         * @param arguments Formatting arguments.
+         */
+        private Key(final int hash, final String key, final Locale locale, final Locale fallback, final Object[] arguments)
+        {
+            this.hash = hash;
+            this.key = key;
+            this.locale = locale;
+            this.fallback = fallback;
+            this.arguments = arguments;
+        }
+
+        /**
+         * Computes the hash code of a key.
+         * <p>
+         * @param key Resource bundle key.
+         * @param locale Requested locale.
+         * @param fallback Fallback locale.
+         * @param arguments Formatting arguments.
+         * @return Hash code.
+         */
+        private static int hash(final String key, final Locale locale, final Locale fallback, final Object[] arguments)
+        {
+            return ((key.hashCode() * 31 + locale.hashCode()) * 31 + fallback.hashCode()) * 31 + Arrays.hashCode(arguments);
+        }
+
+        /**
+         * Checks if this key matches the given elements.
+         * <p>
+         * @param hash Hash code.
+         * @param key Resource bundle key.
+         * @param locale Requested locale.
+         * @param fallback Fallback locale.
+         * @param arguments Formatting arguments.
+         * @return {@code True} if the key matches, {@code false} otherwise.
+         */
+        private boolean matches(final int hash, final String key, final Locale locale, final Locale fallback, final Object[] arguments)
+        {
+            return this.hash == hash
+                    && this.key.equals(key)
+                    && this.locale.equals(locale)
+                    && this.fallback.equals(fallback)
+                    && Arrays.equals(this.arguments, arguments);
+        }
+
+        @Override
+        public final int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public final boolean equals(final Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+
+            if (!(other instanceof Key))
+            {
+                return false;
+            }
+
+            Key that = (Key) other;
+
+            return matches(that.hash, that.key, that.locale, that.fallback, that.arguments);
+        }
+    }
+
+    /**
+     * Message cached per thread.
+     */
+    private static final class Slot
+    {
+        /**
+         * Message key.
+         */
+        private final Key key;
+
+        /**
+         * Formatted message.
+         */
+        private final String message;
+
+        /**
+         * Registry version of the message.
+         */
+        private final long version;
+
+        /**
+         * Cache generation of the message.
+         */
+        private final int generation;
+
+        /**
+         * Creates a new slot.
+         * <p>
+         * @param key Message key.
+         * @param message Formatted message.
+         * @param version Registry version of the message.
+         * @param generation Cache generation of the message.
+         */
+        private Slot(final Key key, final String message, final long version, final int generation)
+        {
+            this.key = key;
+            this.message = message;
+            this.version = version;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Message of the shared cache (linked into its segment).
+     */
+    private static final class Node
+    {
+        /**
+         * Message key.
+         */
+        private final Key key;
+
+        /**
+         * Formatted message.
+         */
+        private String message;
+
+        /**
+         * Weight of the message.
+         */
+        private int weight;
+
+        /**
+         * Segment containing the node.
+         */
+        private Segment segment;
+
+        /**
+         * Previous node of the segment.
+         */
+        private Node previous;
+
+        /**
+         * Next node of the segment.
+         */
+        private Node next;
+
+        /**
+         * Creates a new node.
+         * <p>
+         * @param key Message key.
+         * @param message Formatted message.
+         * @param weight Weight of the message.
+         */
+        private Node(final Key key, final String message, final int weight)
+        {
+            this.key = key;
+            this.message = message;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A segment of the shared cache ordered from the least to the most recently used node.
+     */
+    private static final class Segment
+    {
+        /**
+         * Least recently used node.
+         */
+        private Node head;
+
+        /**
+         * Most recently used node.
+         */
+        private Node tail;
+
+        /**
+         * Weight of the nodes of the segment.
+         */
+        private long weight;
+
+        /**
+         * Adds the given node as the most recently used one.
+         * <p>
+         * @param node Node to add.
+         */
+        private void addLast(final Node node)
+        {
+            node.segment = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null)
+            {
+                head = node;
+            }
+            else
+            {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        /**
+         * Removes the given node.
+         * <p>
+         * @param node Node to remove.
+         */
+        private void remove(final Node node)
+        {
+            if (node.previous == null)
+            {
+                head = node.next;
+            }
+            else
+            {
+                node.previous.next = node.next;
+            }
+
+            if (node.next == null)
+            {
+                tail = node.previous;
+            }
+            else
+            {
+                node.next.previous = node.previous;
+            }
+
+            node.previous = null;
+            node.next = null;
+            node.segment = null;
+            weight -= node.weight;
+        }
+
+        /**
+         * Moves the given node as the most recently used one.
+         * <p>
+         * @param node Node to move.
+         */
+        private void moveToLast(final Node node)
+        {
+            if (node != tail)
+            {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        /**
+         * Removes all the nodes.
+         */
+        private void clear()
+        {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+
+    /**
+     * A count-min sketch estimating the access frequency of the messages using 4 rows of saturating counters (up to
+     * {@code 15}), periodically halved so that the estimations reflect the recent accesses.
+     */
+    private static final class FrequencySketch
+    {
+        /**
+         * Maximum value of a counter.
+         */
+        private static final int MAXIMUM_COUNT = 15;
+
+        /**
+         * Seeds of the hash functions of the rows.
+         */
+        private static final int[] SEEDS = { 0x97CB3127, 0x2C1B3C6D, 0x297A2D39, 0x9E3779B9 };
+
+        /**
+         * Counters per row.
+         */
+        private final byte[][] counters;
+
+        /**
+         * Mask of the counter indexes.
+         */
+        private final int mask;
+
+        /**
+         * Number of increments before the counters are halved.
+         */
+        private final int sampleSize;
+
+        /**
+         * Number of increments since the counters have been halved.
+         */
+        private int additions;
+
+        /**
+         * Creates a new sketch.
+         * <p>
+         * @param width Expected number of distinct messages.
+         */
+        private FrequencySketch(final int width)
+        {
+            int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+
+            counters = new byte[SEEDS.length][size];
+            mask = size - 1;
+            sampleSize = 10 * size;
+        }
+
+        /**
+         * Returns the index of the counter of the given row.
+         * <p>
+         * @param hash Hash code.
+         * @param row Row.
+         * @return Counter index.
+         */
+        private int index(final int hash, final int row)
+        {
+            int h = hash * SEEDS[row];
+
+            return (h ^ (h >>> 17)) & mask;
+        }
+
+        /**
+         * Increments the estimated frequency of the given hash code.
+         * <p>
+         * @param hash Hash code.
+         */
+        private void increment(final int hash)
+        {
+            boolean incremented = false;
+            int index;
+
+            for (int row = 0; row < counters.length; row++)
+            {
+                index = index(hash, row);
+                if (counters[row][index] < MAXIMUM_COUNT)
+                {
+                    counters[row][index]++;
+                    incremented = true;
+                }
+            }
+
+            if (incremented && ++additions >= sampleSize)
+            {
+                for (byte[] row : counters)
+                {
+                    for (int i = 0; i < row.length; i++)
+                    {
+                        row[i] = (byte) (row[i] >>> 1);
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        /**
+         * Returns the estimated frequency of the given hash code.
+         * <p>
+         * @param hash Hash code.
+         * @return Estimated frequency.
+         */
+        private int frequency(final int hash)
+        {
+            int frequency = MAXIMUM_COUNT;
+
+            for (int row = 0; row < counters.length; row++)
+            {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+
+            return frequency;
+        }
+    }
+}
@@ -0,0 +1,517 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable and thread-safe pre-compiled message template.
+ * <p>
+ * A message template is compiled once from a {@link MessageFormat} pattern and can then be shared between threads
+ * to format messages without parsing the pattern again:
+ * <ul>
+ * <li>a pattern without any placeholder is compiled to its (unquoted) text which is returned as-is,</li>
+ * <li>a pattern only made of simple placeholders such as <code>{0}</code> is compiled to a list of literal and
+ * argument segments,</li>
+ * <li>a pattern containing typed placeholders such as <code>{0,number,#.##}</code> is compiled once to a
+ * {@link MessageFormat} prototype whose clones are pooled per thread (as {@link MessageFormat} is not
+ * thread-safe, see {@link FormatPool}).</li>
+ * </ul>
+ * The number and date arguments of the simple placeholders are rendered using the formatters cached per locale (see
+ * {@link LocaleFormatters}).
+ * <p>
+ * Unlike {@link MessageFormat#format(String, Object...)}, which renders the arguments in the default locale of the
+ * JVM, a template renders them in the locale it has been compiled for (the locale of the resource bundle entry), so
+ * for example {@code 1234.5} is rendered {@code 1.234,5} by a German template on any JVM.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class MessageTemplate
+{
+    /**
+     * Maximum number of digits of a simple placeholder argument index.
+     */
+    private static final int MAX_INDEX_DIGITS = 4;
+
+    /**
+     * Pattern the template has been compiled from.
+     */
+    @Getter
+    private final String pattern;
+
+    /**
+     * Locale used to format the arguments.
+     */
+    @Getter
+    private final Locale locale;
+
+    /**
+     * Text of the template when the pattern does not contain any placeholder, {@code null} otherwise.
+     */
+    private final String text;
+
+    /**
+     * Literal ({@link String}) and argument index ({@link Integer}) segments of a pattern containing only simple
+     * placeholders, {@code null} otherwise.
+     */
+    private final Object[] segments;
+
+    /**
+     * Message format prototype of a pattern containing typed placeholders, {@code null} otherwise.
+     */
+    private final MessageFormat prototype;
+
+    /**
+     * Formatters of the number and date arguments.
+     */
+    private final LocaleFormatters formatters;
+
+    /**
+     * Creates a new message template.
+     * <p>
+     * @param pattern Pattern.
+     * @param locale Locale.
+     * @param text Text of a pattern without placeholder.
+     * @param segments Segments of a pattern with simple placeholders.
+     * @param prototype Message format prototype of a pattern with typed placeholders.
+     */
+    private MessageTemplate(final String pattern, final Locale locale, final String text, final Object[] segments, final MessageFormat prototype)
+    {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.text = text;
+        this.segments = segments;
+        this.prototype = prototype;
+        this.formatters = LocaleFormatters.of(locale);
+    }
+
+    /**
+     * Compiles the given {@link MessageFormat} pattern.
+     * <p>
+     * @param pattern Pattern to compile.
+     * @param locale Locale used to format the arguments.
+     * @return Compiled message template.
+     * @throws IllegalArgumentException Thrown in case the pattern is invalid.
+     */
+    public static MessageTemplate compile(final @NonNull String pattern, final @NonNull Locale locale)
+    {
+        List<Object> parts = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        String argument;
+        char c;
+        int end;
+
+        for (int i = 0; i < pattern.length(); i++)
+        {
+            c = pattern.charAt(i);
+            if (c == '\'')
+            {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'')
+                {
+                    literal.append('\'');
+                    i++;
+                }
+                else
+                {
+                    quoted = !quoted;
+                }
+            }
+            else if (c == '{' && !quoted)
+            {
+                end = pattern.indexOf('}', i + 1);
+                argument = end < 0 ? null : pattern.substring(i + 1, end);
+                if (!isSimpleArgument(argument))
+                {
+                    // Typed placeholder (or invalid pattern), let the message format handle it.
+                    return new MessageTemplate(pattern, locale, null, null, new MessageFormat(pattern, locale));
+                }
+
+                if (literal.length() > 0)
+                {
+                    parts.add(literal.toString());
+                    literal.setLength(0);
+                }
+
+                parts.add(Integer.valueOf(argument));
+                i = end;
+            }
+            else
+            {
+                literal.append(c);
+            }
+        }
+
+        if (parts.isEmpty())
+        {
+            // Keep the pattern instance itself when nothing has been unquoted.
+            return new MessageTemplate(pattern, locale, literal.length() == pattern.length() ? pattern : literal.toString(), null, null);
+        }
+
+        if (literal.length() > 0)
+        {
+            parts.add(literal.toString());
+        }
+
+        return new MessageTemplate(pattern, locale, null, parts.toArray(), null);
+    }
+
+    /**
+     * Checks if the given placeholder argument is a simple argument index.
+     * <p>
+     * @param argument Placeholder argument (text between the braces).
+     * @return {@code True} if the argument is a simple argument index, {@code false} otherwise.
+     */
+    private static boolean isSimpleArgument(final String argument)
+    {
+        if (argument == null || argument.isEmpty() || argument.length() > MAX_INDEX_DIGITS)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < argument.length(); i++)
+        {
+            if (argument.charAt(i) < '0' || argument.charAt(i) > '9')
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns if the template does not contain any placeholder.
+     * <p>
+     * @return {@code True} if the template is a constant text, {@code false} otherwise.
+     */
+    public final boolean isConstant()
+    {
+        return text != null;
+    }
+
+    /**
+     * Formats a message using the given parameters.
+     * <p>
+     * @param parameters Parameters for message formatting.
+     * @return Formatted message.
+     */
+    public final String format(final Object... parameters)
+    {
+        if (text != null)
+        {
+            return text;
+        }
+
+        if (prototype != null)
+        {
+            return FormatPool.get(prototype).format(parameters);
+        }
+
+        return formatTo(new StringBuilder(pattern.length() + 16), parameters).toString();
+    }
+
+    /**
+     * Formats a message using the given argument.
+     * <p>
+     * Unlike {@link #format(Object...)}, no parameter array is created for a template with simple placeholders.
+     * <p>
+     * @param first Argument {@code {0}}.
+     * @return Formatted message.
+     */
+    public final String format(final Object first)
+    {
+        return format(1, first, null, null, null);
+    }
+
+    /**
+     * Formats a message using the given arguments.
+     * <p>
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @return Formatted message.
+     * @see #format(Object)
+     */
+    public final String format(final Object first, final Object second)
+    {
+        return format(2, first, second, null, null);
+    }
+
+    /**
+     * Formats a message using the given arguments.
+     * <p>
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @param third Argument {@code {2}}.
+     * @return Formatted message.
+     * @see #format(Object)
+     */
+    public final String format(final Object first, final Object second, final Object third)
+    {
+        return format(3, first, second, third, null);
+    }
+
+    /**
+     * Formats a message using the given arguments.
+     * <p>
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @param third Argument {@code {2}}.
+     * @param fourth Argument {@code {3}}.
+     * @return Formatted message.
+     * @see #format(Object)
+     */
+    public final String format(final Object first, final Object second, final Object third, final Object fourth)
+    {
+        return format(4, first, second, third, fourth);
+    }
+
+    /**
+     * Formats a message using the given integer argument.
+     * <p>
+     * The argument is not boxed for a template with simple placeholders.
+     * <p>
+     * @param value Argument {@code {0}}.
+     * @return Formatted message.
+     */
+    public final String format(final int value)
+    {
+        return format((long) value);
+    }
+
+    /**
+     * Formats a message using the given long argument.
+     * <p>
+     * @param value Argument {@code {0}}.
+     * @return Formatted message.
+     * @see #format(int)
+     */
+    public final String format(final long value)
+    {
+        if (text != null)
+        {
+            return text;
+        }
+
+        if (prototype != null)
+        {
+            return FormatPool.get(prototype).format(new Object[] { value });
+        }
+
+        return format(1, formatters.format(value), null, null, null);
+    }
+
+    /**
+     * Formats a message using the given double argument.
+     * <p>
+     * @param value Argument {@code {0}}.
+     * @return Formatted message.
+     * @see #format(int)
+     */
+    public final String format(final double value)
+    {
+        if (text != null)
+        {
+            return text;
+        }
+
+        if (prototype != null)
+        {
+            return FormatPool.get(prototype).format(new Object[] { value });
+        }
+
+        return format(1, formatters.format(value), null, null, null);
+    }
+
+    /**
+     * Formats a message using a fixed number of arguments.
+     * <p>
+     * @param count Number of arguments.
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @param third Argument {@code {2}}.
+     * @param fourth Argument {@code {3}}.
+     * @return Formatted message.
+     */
+    private String format(final int count, final Object first, final Object second, final Object third, final Object fourth)
+    {
+        if (text != null)
+        {
+            return text;
+        }
+
+        if (prototype != null)
+        {
+            return FormatPool.get(prototype).format(Arrays.copyOf(new Object[] { first, second, third, fourth }, count));
+        }
+
+        try
+        {
+            return append(new StringBuilder(pattern.length() + 16), null, count, first, second, third, fourth).toString();
+        }
+        catch (IOException e)
+        {
+            // Cannot happen with a string builder.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Formats a message using the given parameters directly into the given string builder.
+     * <p>
+     * @param output String builder receiving the formatted message.
+     * @param parameters Parameters for message formatting.
+     * @return The given string builder.
+     */
+    public final StringBuilder formatTo(final @NonNull StringBuilder output, final Object... parameters)
+    {
+        try
+        {
+            formatTo((Appendable) output, parameters);
+        }
+        catch (IOException e)
+        {
+            // Cannot happen with a string builder.
+            throw new UncheckedIOException(e);
+        }
+
+        return output;
+    }
+
+    /**
+     * Formats a message using the given parameters directly into the given appendable.
+     * <p>
+     * The literal segments of the template and the string arguments are appended as-is, without creating any
+     * intermediate string.
+     * <p>
+     * @param <A> Type of the appendable.
+     * @param output Appendable receiving the formatted message.
+     * @param parameters Parameters for message formatting.
+     * @return The given appendable.
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    public final <A extends Appendable> A formatTo(final @NonNull A output, final Object... parameters) throws IOException
+    {
+        if (text != null)
+        {
+            output.append(text);
+            return output;
+        }
+
+        if (prototype != null)
+        {
+            output.append(FormatPool.get(prototype).format(parameters));
+            return output;
+        }
+
+        return append(output, parameters, parameters == null ? 0 : parameters.length, null, null, null, null);
+    }
+
+    /**
+     * Appends the segments of a template with simple placeholders to the given appendable.
+     * <p>
+     * The arguments are taken from the parameter array if any, otherwise from the fixed arguments.
+     * <p>
+     * @param <A> Type of the appendable.
+     * @param output Appendable receiving the formatted message.
+     * @param parameters Parameters for message formatting ({@code null} to use the fixed arguments).
+     * @param count Number of arguments.
+     * @param first Fixed argument {@code {0}}.
+     * @param second Fixed argument {@code {1}}.
+     * @param third Fixed argument {@code {2}}.
+     * @param fourth Fixed argument {@code {3}}.
+     * @return The given appendable.
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    private <A extends Appendable> A append(final A output, final Object[] parameters, final int count, final Object first, final Object second, final Object third, final Object fourth) throws IOException
+    {
+        int index;
+
+        for (Object segment : segments)
+        {
+            if (segment instanceof String)
+            {
+                output.append((String) segment);
+            }
+            else
+            {
+                index = (Integer) segment;
+                if (index >= count)
+                {
+                    output.append('{').append(String.valueOf(index)).append('}');
+                }
+                else if (parameters != null)
+                {
+                    appendArgument(output, parameters[index]);
+                }
+                else
+                {
+                    appendArgument(output, index == 0 ? first : index == 1 ? second : index == 2 ? third : fourth);
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Appends an argument of a simple placeholder formatted the same way {@link MessageFormat} does.
+     * <p>
+     * @param output Appendable receiving the formatted argument.
+     * @param argument Argument to format.
+     * @throws IOException Thrown in case an error occurred while appending to the appendable.
+     */
+    private void appendArgument(final Appendable output, final Object argument) throws IOException
+    {
+        if (argument == null)
+        {
+            output.append("null");
+        }
+        else if (argument instanceof String)
+        {
+            output.append((String) argument);
+        }
+        else if (argument instanceof Number)
+        {
+            formatters.formatNumber(output, (Number) argument);
+        }
+        else if (argument instanceof Date)
+        {
+            formatters.formatDate(output, (Date) argument);
+        }
+        else
+        {
+            String value = argument.toString();
+
+            output.append(value != null ? value : "null");
+        }
+    }
+
+    @Override
+    public final String toString()
+    {
+        return pattern;
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An immutable index of resource bundle entries by key based on a minimal perfect hash function.
+ * <p>
+ * The key set of a registered locale never changes once indexed, so the index is built once using the hash and
+ * displace method: keys are first distributed in buckets, then the buckets are placed (largest first) in
+ * a table having exactly one slot per key by searching for each bucket a displacement seed mapping its keys to free
+ * slots. Buckets of a single key directly reference their slot.
+ * <p>
+ * A lookup costs one bucket read, one slot read and one key comparison, without probing nor collision chain. Both
+ * hashes are derived from the (cached) {@link String#hashCode()} of the key. The index only holds an integer per
+ * bucket and a reference per slot.
+ * <p>
+ * As registering several resource bundle files for a locale creates a new index for each file, the perfect hash
+ * function is not built when the index is created but in the background (in the common fork/join pool) once the index
+ * is first looked up: until then, the lookups are served by the given entries, so readers never wait for the build.
+ * The index of a locale is then built once whatever the number of files registered in a row, and kept by the following
+ * registries as long as the locale is not modified.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+public final class PerfectHashIndex extends AbstractMap<String, BundleEntry>
+{
+    /**
+     * Maximum number of seeds tried to place a bucket.
+     */
+    private static final int MAX_ATTEMPTS = 1 << 20;
+
+    /**
+     * Maximum number of seeds tried to place all the buckets.
+     */
+    private static final int MAX_TOTAL_ATTEMPTS = 1 << 24;
+
+    /**
+     * Multiplier spreading the seeds (golden ratio).
+     */
+    private static final int GOLDEN = 0x9E3779B9;
+
+    /**
+     * Entries to index ({@code null} once the perfect hash function is built).
+     */
+    private volatile Map<String, BundleEntry> source;
+
+    /**
+     * Lookup table ({@code null} until built).
+     */
+    private volatile Table table;
+
+    /**
+     * Indicates if the build of the lookup table has been requested.
+     */
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    /**
+     * Number of entries.
+     */
+    private final int count;
+
+    /**
+     * Creates a new index.
+     * <p>
+     * @param source Entries to index.
+     */
+    private PerfectHashIndex(final Map<String, BundleEntry> source)
+    {
+        this.source = source;
+        this.count = source.size();
+    }
+
+    /**
+     * Creates an immutable index of the given entries.
+     * <p>
+     * The perfect hash function is built in the background once the index is first looked up. If none can be built
+     * for the keys (such as when two keys have the same hash code), the lookups keep being served by the given map.
+     * <p>
+     * @param entries Resource bundle entries indexed by key (must not be modified afterwards).
+     * @return Perfect hash index.
+     */
+    public static Map<String, BundleEntry> of(final @NonNull Map<String, BundleEntry> entries)
+    {
+        return new PerfectHashIndex(entries);
+    }
+
+    /**
+     * Checks if the lookup table has been built.
+     * <p>
+     * @return {@code True} if the lookup table has been built, {@code false} otherwise.
+     */
+    public final boolean isBuilt()
+    {
+        return table != null;
+    }
+
+    /**
+     * Builds the lookup table (called once, in the background).
+     */
+    private void build()
+    {
+        final Map<String, BundleEntry> entries = source;
+        final Table built = create(entries.values());
+
+        if (built == null)
+        {
+            table = new Table(entries);
+        }
+        else
+        {
+            // The table is published before the source is released, see get() and entrySet().
+            table = built;
+            source = null;
+        }
+    }
+
+    /**
+     * Builds the perfect hash function of the given entries.
+     * <p>
+     * @param entries Resource bundle entries (with distinct keys).
+     * @return Lookup table or {@code null} if no perfect hash function has been found.
+     */
+    private static Table create(final Collection<BundleEntry> entries)
+    {
+        final int count = entries.size();
+        final int[] seeds = new int[count];
+        final BundleEntry[] slots = new BundleEntry[count];
+        final List<List<BundleEntry>> buckets = new ArrayList<>(Collections.nCopies(count, (List<BundleEntry>) null));
+        final List<Integer> order = new ArrayList<>(count);
+        List<BundleEntry> keys;
+        int[] placed = new int[0];
+        int remaining = MAX_TOTAL_ATTEMPTS;
+        int bucket;
+        int seed;
+        int free = 0;
+
+        for (BundleEntry entry : entries)
+        {
+            bucket = reduce(mix(entry.getKey().hashCode()), count);
+            if (buckets.get(bucket) == null)
+            {
+                buckets.set(bucket, new ArrayList<>(2));
+                order.add(bucket);
+            }
+            buckets.get(bucket).add(entry);
+        }
+
+        // Largest buckets first, while most of the slots are still free.
+        order.sort((first, second) -> buckets.get(second).size() - buckets.get(first).size());
+
+        for (int index : order)
+        {
+            keys = buckets.get(index);
+            if (keys.size() == 1)
+            {
+                // Buckets of a single key are placed last, in the remaining free slots.
+                while (slots[free] != null)
+                {
+                    free++;
+                }
+
+                slots[free] = keys.get(0);
+                seeds[index] = -(free + 1);
+                continue;
+            }
+
+            if (placed.length < keys.size())
+            {
+                placed = new int[keys.size()];
+            }
+
+            seed = findSeed(keys, slots, placed, Math.min(MAX_ATTEMPTS, remaining));
+            if (seed < 0)
+            {
+                return null;
+            }
+            remaining -= seed + 1;
+
+            for (int i = 0; i < keys.size(); i++)
+            {
+                slots[placed[i]] = keys.get(i);
+            }
+            seeds[index] = seed;
+        }
+
+        return new Table(seeds, slots);
+    }
+
+    /**
+     * Searches for a seed mapping all the keys of the given bucket to distinct free slots.
+     * <p>
+     * @param keys Entries of the bucket.
+     * @param slots Slots (a slot is free when {@code null}).
+     * @param placed Slots selected for the keys of the bucket being tested.
+     * @param attempts Maximum number of seeds to try (seeds are tried in sequence from {@code 0}).
+     * @return Seed or {@code -1} if not found.
+     */
+    private static int findSeed(final List<BundleEntry> keys, final BundleEntry[] slots, final int[] placed, final int attempts)
+    {
+        boolean found;
+        int slot;
+
+        for (int i = 0; i < keys.size(); i++)
+        {
+            for (int j = 0; j < i; j++)
+            {
+                if (keys.get(i).getKey().hashCode() == keys.get(j).getKey().hashCode())
+                {
+                    // Keys having the same hash code always share the same slot.
+                    return -1;
+                }
+            }
+        }
+
+        for (int seed = 0; seed < attempts; seed++)
+        {
+            found = true;
+            for (int i = 0; i < keys.size() && found; i++)
+            {
+                slot = reduce(mix(keys.get(i).getKey().hashCode() ^ seed * GOLDEN), slots.length);
+                found = slots[slot] == null;
+                for (int j = 0; j < i && found; j++)
+                {
+                    found = placed[j] != slot;
+                }
+                placed[i] = slot;
+            }
+
+            if (found)
+            {
+                return seed;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public final BundleEntry get(final Object key)
+    {
+        final Table current = table;
+        final Map<String, BundleEntry> pending;
+
+        if (current != null)
+        {
+            return current.get(key);
+        }
+
+        pending = source;
+        if (pending == null)
+        {
+            // Built in the meantime.
+            return table.get(key);
+        }
+
+        if (!requested.get() && requested.compareAndSet(false, true))
+        {
+            ForkJoinPool.commonPool().execute(this::build);
+        }
+
+        return pending.get(key);
+    }
+
+    @Override
+    public final boolean containsKey(final Object key)
+    {
+        return get(key) != null;
+    }
+
+    @Override
+    public final int size()
+    {
+        return count;
+    }
+
+    @Override
+    public final Set<Map.Entry<String, BundleEntry>> entrySet()
+    {
+        final Map<String, BundleEntry> pending = source;
+        final BundleEntry[] slots;
+
+        // Iterating does not build the table (the entries are copied each time a file is registered for the locale).
+        if (pending != null)
+        {
+            return Collections.unmodifiableMap(pending).entrySet();
+        }
+
+        slots = table.slots;
+
+        return new AbstractSet<Map.Entry<String, BundleEntry>>()
+        {
+            @Override
+            public Iterator<Map.Entry<String, BundleEntry>> iterator()
+            {
+                return new Iterator<Map.Entry<String, BundleEntry>>()
+                {
+                    /**
+                     * Index of the next slot.
+                     */
+                    private int index;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return index < slots.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, BundleEntry> next()
+                    {
+                        if (index >= slots.length)
+                        {
+                            throw new NoSuchElementException();
+                        }
+
+                        return new AbstractMap.SimpleImmutableEntry<>(slots[index].getKey(), slots[index++]);
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return slots.length;
+            }
+        };
+    }
+
+    /**
+     * Mixes the bits of the given hash code (MurmurHash3 finalizer).
+     * <p>
+     * @param hash Hash code.
+     * @return Mixed hash code.
+     */
+    private static int mix(final int hash)
+    {
+        int mixed = hash;
+
+        mixed ^= mixed >>> 16;
+        mixed *= 0x85EBCA6B;
+        mixed ^= mixed >>> 13;
+        mixed *= 0xC2B2AE35;
+        mixed ^= mixed >>> 16;
+
+        return mixed;
+    }
+
+    /**
+     * Maps the given hash code to the range {@code [0, size)} without division.
+     * <p>
+     * @param hash Hash code.
+     * @param size Size of the range.
+     * @return Value in the range.
+     */
+    private static int reduce(final int hash, final int size)
+    {
+        return (int) (((hash & 0xFFFFFFFFL) * size) >>> 32);
+    }
+
+    /**
+     * Lookup table of the index: either the perfect hash function or, if none can be built, the indexed map.
+     */
+    private static final class Table
+    {
+        /**
+         * Displacement seed of each bucket (or {@code -(slot + 1)} for the buckets of a single key).
+         */
+        private final int[] seeds;
+
+        /**
+         * Entries (one per slot).
+         */
+        private final BundleEntry[] slots;
+
+        /**
+         * Indexed map serving the lookups when no perfect hash function can be built ({@code null} otherwise).
+         */
+        private final Map<String, BundleEntry> fallback;
+
+        /**
+         * Creates a new perfect hash table.
+         * <p>
+         * @param seeds Displacement seeds of the buckets.
+         * @param slots Entries.
+         */
+        private Table(final int[] seeds, final BundleEntry[] slots)
+        {
+            this.seeds = seeds;
+            this.slots = slots;
+            this.fallback = null;
+        }
+
+        /**
+         * Creates a new table delegating the lookups to the given map.
+         * <p>
+         * @param fallback Indexed map.
+         */
+        private Table(final Map<String, BundleEntry> fallback)
+        {
+            this.seeds = null;
+            this.slots = null;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Returns the entry of the given key.
+         * <p>
+         * @param key Key.
+         * @return Entry or {@code null} if not found.
+         */
+        private BundleEntry get(final Object key)
+        {
+            BundleEntry entry;
+            int hash;
+            int seed;
+
+            if (fallback != null)
+            {
+                return fallback.get(key);
+            }
+
+            if (!(key instanceof String) || slots.length == 0)
+            {
+                return null;
+            }
+
+            hash = key.hashCode();
+            seed = seeds[reduce(mix(hash), slots.length)];
+            entry = slots[seed < 0 ? -seed - 1 : reduce(mix(hash ^ seed * GOLDEN), slots.length)];
+
+            return entry.getKey().equals(key) ? entry : null;
+        }
+    }
+}
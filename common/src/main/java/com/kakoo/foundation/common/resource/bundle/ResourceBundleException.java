@@ -11,7 +11,13 @@
  */
 package com.kakoo.foundation.common.resource.bundle;
 
+import com.kakoo.foundation.common.exception.IException;
+import com.kakoo.foundation.common.exception.StackTracePolicy;
 import com.kakoo.foundation.common.resource.ResourceException;
+import lombok.NonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Unchecked exception thrown to indicate an error occurred while processing a resource bundle.
@@ -26,6 +32,11 @@ public class ResourceBundleException extends ResourceException
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Preallocated exceptions (indexed by enumerated value).
+     */
+    private static final Map<Enum<?>, ResourceBundleException> SHARED = new ConcurrentHashMap<>();
+
     /**
      * Exception thrown to indicate an error occurred while processing a resource bundle.
      */
@@ -90,4 +101,39 @@ public class ResourceBundleException extends ResourceException
     {
         super(message, exception);
     }
+
+    /**
+     * Creates a new shared exception (see {@link #shared(Enum)}).
+     * <p>
+     * @param key Exception key.
+     * @param enableSuppression Whether or not suppression is enabled.
+     * @param writableStackTrace Whether or not the stack trace should be writable.
+     */
+    private ResourceBundleException(final Enum<?> key, final boolean enableSuppression, final boolean writableStackTrace)
+    {
+        super(key, enableSuppression, writableStackTrace);
+    }
+
+    /**
+     * Returns a preallocated exception, indicating a resource bundle error, for the given enumerated value.
+     * <p>
+     * Preallocated exceptions are shared and immutable: they have no stack trace, no parameters and no suppressed
+     * exceptions, so they can be thrown concurrently without any allocation. Their message is not memoized, it is
+     * resolved in the current locale of the {@link ResourceBundleManager} each time it is requested. When the stack
+     * traces are forced through the {@link StackTracePolicy}, a new exception having a stack trace is returned
+     * instead.
+     * <p>
+     * @param key Exception key (enumerated value coming from an enumeration implementing the
+     * {@link IBundle} or the {@link IException} interface).
+     * @return Exception.
+     */
+    public static ResourceBundleException shared(final @NonNull Enum<?> key)
+    {
+        if (StackTracePolicy.isForced())
+        {
+            return new ResourceBundleException(key, true, true);
+        }
+
+        return SHARED.computeIfAbsent(key, value -> new ResourceBundleException(value, false, false));
+    }
 }
@@ -11,9 +11,13 @@
  */
 package com.kakoo.foundation.common.resource.bundle;
 
+import com.kakoo.foundation.common.annotation.visitor.AnnotationScanner;
+import com.kakoo.foundation.common.annotation.visitor.AnnotationVisitorCoordinator;
 import com.kakoo.foundation.common.resource.bundle.annotation.Bundle;
 import com.kakoo.foundation.common.resource.bundle.annotation.BundleAnnotationTypeVisitor;
-import eu.infomas.annotation.AnnotationDetector;
+import com.kakoo.foundation.common.resource.bundle.annotation.BundleIndex;
+import com.kakoo.foundation.common.resource.bundle.catalog.ArenaResourceBundle;
+import com.kakoo.foundation.common.resource.bundle.catalog.BundleCatalogControl;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Synchronized;
@@ -21,10 +25,11 @@ import lombok.experimental.UtilityClass;
 import lombok.extern.log4j.Log4j;
 import org.jeasy.props.api.PropertiesInjector;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.jeasy.props.PropertiesInjectorBuilder.aNewPropertiesInjector;
 
@@ -42,23 +47,120 @@ public class ResourceBundleManager
      * Locale of manager (set to the JVM default).
      */
     @Getter
-    private static Locale locale = Locale.getDefault();
+    private static volatile Locale locale = Locale.getDefault();
 
     /**
-     * Thread-safe collection of resource bundles grouped by locale.
+     * System property containing the memory budget (in bytes) of the registered resource bundles.
      */
-    private static final Map<Locale, List<ResourceBundle>> BUNDLES = new ConcurrentHashMap<>();
+    public static final String PROPERTY_LOCALE_BUDGET = "kakoo.bundle.locale.budget";
 
     /**
-     * Thread-safe collection of annotated classes.
+     * System property indicating if the content of the {@code .properties} files is packed in compact arenas.
      */
-    private static final Map<Class<? extends Annotation>, Map<Class<?>, String>> ANNOTATION_CLASSES = new ConcurrentHashMap<>();
+    public static final String PROPERTY_COMPACT = "kakoo.bundle.compact";
+
+    /**
+     * Default priority of a resource bundle file when not declared through a {@link Bundle} annotation.
+     */
+    static final int DEFAULT_PRIORITY = 100;
+
+    /**
+     * Immutable snapshot of the registered resource bundles.
+     * <p>
+     * The registry is rebuilt off to the side by writers (holding the manager lock) and published with a single
+     * volatile store, so readers always see a consistent state without acquiring any lock.
+     */
+    private static volatile BundleRegistry registry = BundleRegistry.EMPTY;
+
+    /**
+     * Ordinal-indexed tables of the resource bundle entries of the enumerations implementing {@link IBundle}.
+     */
+    private static final ClassValue<BundleEnumTable> ENUM_TABLES = new ClassValue<BundleEnumTable>()
+    {
+        @Override
+        protected BundleEnumTable computeValue(final Class<?> type)
+        {
+            return new BundleEnumTable(type);
+        }
+    };
+
+    /**
+     * Key handles (indexed by key).
+     */
+    private static final Map<String, BundleKey> KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * Slot-indexed table of the resource bundle entries of the key handles.
+     */
+    private static final BundleKeyTable KEY_TABLE = new BundleKeyTable();
+
+    /**
+     * Thread-safe collection of resource bundle priorities (indexed by base bundle file name).
+     */
+    private static final Map<String, Integer> PRIORITIES = new ConcurrentHashMap<>();
+
+    /**
+     * Thread-safe collection of annotated class names and their resource bundle file name (grouped by annotation).
+     * <p>
+     * Annotated classes are kept by name so that they do not need to be loaded before being effectively used.
+     */
+    private static final Map<Class<? extends Annotation>, Map<String, String>> ANNOTATION_CLASSES = new ConcurrentHashMap<>();
 
     /**
      * Resource bundle status type.
+     * <p>
+     * Declared volatile so that, once initialized, readers can check the status without acquiring the manager lock.
+     */
+    @Getter
+    private static volatile StatusType status = StatusType.UNKNOWN;
+
+    /**
+     * Scanner used to detect the annotated types on the classpath roots not shipping a {@link BundleIndex} (configured
+     * by default from the system properties).
      */
     @Getter
-    private static StatusType status = StatusType.UNKNOWN;
+    private static AnnotationScanner scanner = AnnotationScanner.fromSystemProperties();
+
+    /**
+     * Persistent snapshot of the resolved state of the manager (configured by default from the system properties,
+     * {@code null} when snapshots are not enabled).
+     */
+    @Getter
+    private static BundleSnapshot snapshot = BundleSnapshot.fromSystemProperties();
+
+    /**
+     * Cache of the formatted messages (configured by default from the system properties, {@code null} when the cache
+     * is not enabled).
+     */
+    @Getter
+    private static volatile MessageCache cache = MessageCache.fromSystemProperties();
+
+    /**
+     * Memory budget (estimated heap size in bytes) of the registered resource bundles, {@code 0} for no budget.
+     */
+    @Getter
+    private static volatile long budget = getBudgetProperty();
+
+    /**
+     * Indicates if the content of the {@code .properties} files is packed in compact arenas.
+     */
+    @Getter
+    private static volatile boolean compact = Boolean.getBoolean(PROPERTY_COMPACT);
+
+    /**
+     * Locales whose resource bundles are never evicted (in addition to the default locale).
+     */
+    private static final Set<Locale> PINNED = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Last access time of the locales (only maintained when a memory budget is set).
+     */
+    private static final Map<Locale, AtomicLong> ACCESSES = new ConcurrentHashMap<>();
+
+    /**
+     * Base names of the resource bundle files evicted per locale (registered again on the next access to the locale).
+     */
+    private static final Map<Locale, Set<String>> EVICTED = new ConcurrentHashMap<>();
 
     /**
      * Properties injector.
@@ -67,11 +169,26 @@ public class ResourceBundleManager
 
     /**
      * Initializes the resource bundle manager.
+     * <p>
+     * Once the resource bundle manager is initialized, this method returns without acquiring any lock.
      *
      * @throws ResourceBundleManagerException Thrown if the initialization of the resource bundle manager has failed.
      */
-    @Synchronized
     public static final void initialize()
+    {
+        if (ResourceBundleManager.status != StatusType.INITIALIZED)
+        {
+            initializeSynchronized();
+        }
+    }
+
+    /**
+     * Initializes the resource bundle manager while holding the manager lock.
+     *
+     * @throws ResourceBundleManagerException Thrown if the initialization of the resource bundle manager has failed.
+     */
+    @Synchronized
+    private static void initializeSynchronized()
     {
         if (ResourceBundleManager.status == StatusType.UNKNOWN)
         {
@@ -80,243 +197,1023 @@ public class ResourceBundleManager
             // Instantiates a properties injector for direct injection of properties.
             propertiesInjector = aNewPropertiesInjector();
 
-            // Automatically detect annotated elements.
-            autoDetectAnnotated();
+            // Restore the snapshot of a previous run or automatically detect the @Bundle annotated elements. The snapshot
+            // only replaces the detection of the @Bundle annotated elements, the other visitors are always run.
+            final boolean restored = restoreSnapshot();
+            autoDetectAnnotated(!restored);
+            if (!restored)
+            {
+                saveSnapshot();
+            }
 
             ResourceBundleManager.status = StatusType.INITIALIZED;
         }
     }
 
+    /**
+     * Sets the scanner used to detect the annotated types on the classpath roots not shipping a {@link BundleIndex}.
+     * <p>
+     * The scanner must be set before the resource bundle manager is initialized to be taken into account.
+     *
+     * @param scanner Annotation scanner.
+     */
+    @Synchronized
+    public static final void setScanner(final @NonNull AnnotationScanner scanner)
+    {
+        ResourceBundleManager.scanner = scanner;
+    }
+
+    /**
+     * Sets the persistent snapshot used to restore the resolved state of the manager at initialization.
+     * <p>
+     * The snapshot must be set before the resource bundle manager is initialized to be taken into account.
+     *
+     * @param snapshot Snapshot or {@code null} to disable snapshots.
+     */
+    @Synchronized
+    public static final void setSnapshot(final BundleSnapshot snapshot)
+    {
+        ResourceBundleManager.snapshot = snapshot;
+    }
+
+    /**
+     * Sets the cache of the formatted messages.
+     *
+     * @param cache Message cache or {@code null} to disable the cache.
+     */
+    @Synchronized
+    public static final void setCache(final MessageCache cache)
+    {
+        ResourceBundleManager.cache = cache;
+    }
+
+    /**
+     * Sets the memory budget of the registered resource bundles.
+     * <p>
+     * When the estimated heap size of the registered resource bundles exceeds the budget, the resource bundles of
+     * the least recently used locales are evicted. They are transparently registered again the next time they are
+     * requested. The resource bundles of the default locale and of the pinned locales are never evicted.
+     *
+     * @param budget Memory budget in bytes or {@code 0} for no budget.
+     * @see BundleRegistry#getWeight(Locale)
+     */
+    @Synchronized
+    public static final void setBudget(final long budget)
+    {
+        ResourceBundleManager.budget = Math.max(0, budget);
+        if (ResourceBundleManager.budget == 0)
+        {
+            ACCESSES.clear();
+        }
+        else
+        {
+            enforceBudget(locale);
+        }
+    }
+
+    /**
+     * Sets if the content of the {@code .properties} files is packed in compact arenas.
+     * <p>
+     * In compact mode, the keys and values of a resource bundle file are encoded in a single byte array instead of
+     * being held as individual strings, and values are only materialized when retrieved. The mode applies to the
+     * resource bundles loaded afterwards, call {@link #clear()} to reload the registered ones.
+     *
+     * @param compact {@code True} to pack the resource bundles in compact arenas, {@code false} otherwise.
+     * @see ArenaResourceBundle
+     */
+    @Synchronized
+    public static final void setCompact(final boolean compact)
+    {
+        if (ResourceBundleManager.compact != compact)
+        {
+            ResourceBundleManager.compact = compact;
+            ResourceBundle.clearCache();
+        }
+    }
+
+    /**
+     * Pins the given locale so that its resource bundles are never evicted.
+     *
+     * @param locale Locale to pin.
+     */
+    public static final void pin(final @NonNull Locale locale)
+    {
+        PINNED.add(locale);
+    }
+
+    /**
+     * Unpins the given locale so that its resource bundles can be evicted.
+     *
+     * @param locale Locale to unpin.
+     */
+    public static final void unpin(final @NonNull Locale locale)
+    {
+        PINNED.remove(locale);
+    }
+
+    /**
+     * Returns the pinned locales.
+     *
+     * @return Unmodifiable set of pinned locales.
+     */
+    public static final Set<Locale> getPinned()
+    {
+        return Collections.unmodifiableSet(PINNED);
+    }
+
     /**
      * Sets the default locale of the resource bundle manager.
      *
      * @param locale Locale to set.
      * @return Previous locale.
      */
-    @Synchronized
-    public static final Locale setLocale(final @NonNull Locale locale)
+    @Synchronized
+    public static final Locale setLocale(final @NonNull Locale locale)
+    {
+        initialize();
+
+        if (ResourceBundleManager.locale != locale)
+        {
+            ResourceBundleManager.locale = locale;
+        }
+
+        return ResourceBundleManager.locale;
+    }
+
+    /**
+     * Checks if the given bundle file name for the given locale exist.
+     *
+     * @param baseBundleName Bundle base file name.
+     * @return {@code True} if the given bundle file exist, {@code false} otherwise.
+     */
+    public static final boolean exist(final @NonNull String baseBundleName, final @NonNull Locale locale)
+    {
+        return registry.exist(baseBundleName, locale);
+    }
+
+    /**
+     * Gets a resource bundle value given its key.
+     *
+     * @param key Key to retrieve.
+     * @return Resource bundle value.
+     */
+    public static final String get(final @NonNull String key)
+    {
+        return get(key, ResourceBundleManager.locale);
+    }
+
+    /**
+     * Gets the resource bundle value of the given key.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @return The resource bundle value if found.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     */
+    public static final String get(final @NonNull String key, final @NonNull Locale locale)
+    {
+        initialize();
+
+        return retrieve(lookup(key, locale), locale);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value.
+     *
+     * @param key Key to retrieve.
+     * @return Resource bundle value.
+     */
+    public static final String get(final Enum<? extends IBundle> key)
+    {
+        return get(key, locale);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @return Resource bundle value.
+     */
+    public static final String get(final Enum<? extends IBundle> key, final @NonNull Locale locale)
+    {
+        return get(key, locale, (Object[]) null);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value.
+     * <p>
+     * The entries of an enumeration are resolved once per locale into a table indexed by the ordinal of the
+     * enumerated values, so that retrieving a value does not require any key computation nor lookup.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @return Resource bundle value.
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object... parameters)
+    {
+        initialize();
+
+        final MessageCache current = cache;
+        if (current != null && MessageCache.isCacheable(parameters))
+        {
+            return cached(current, ENUM_TABLES.get(key.getDeclaringClass()).getKey(key.ordinal()), locale, parameters);
+        }
+
+        touch(locale);
+        BundleEntry entry = ENUM_TABLES.get(key.getDeclaringClass()).getEntry(registry, locale, key.ordinal());
+        if (entry != null)
+        {
+            return entry.getTemplate().format(parameters);
+        }
+
+        return extract(key, locale, parameters);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with one argument.
+     * <p>
+     * The fixed-arity overloads feed the compiled message template directly so that no parameter array is created.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param first Argument {@code {0}}.
+     * @return Resource bundle value.
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object first)
+    {
+        return resolve(key, locale).getTemplate().format(first);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with two arguments.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @return Resource bundle value.
+     * @see #get(Enum, Locale, Object)
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object first, final Object second)
+    {
+        return resolve(key, locale).getTemplate().format(first, second);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with three arguments.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @param third Argument {@code {2}}.
+     * @return Resource bundle value.
+     * @see #get(Enum, Locale, Object)
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object first, final Object second, final Object third)
+    {
+        return resolve(key, locale).getTemplate().format(first, second, third);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with four arguments.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param first Argument {@code {0}}.
+     * @param second Argument {@code {1}}.
+     * @param third Argument {@code {2}}.
+     * @param fourth Argument {@code {3}}.
+     * @return Resource bundle value.
+     * @see #get(Enum, Locale, Object)
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object first, final Object second, final Object third, final Object fourth)
+    {
+        return resolve(key, locale).getTemplate().format(first, second, third, fourth);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with an integer argument.
+     * <p>
+     * The primitive overloads do not box the argument.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param value Argument {@code {0}}.
+     * @return Resource bundle value.
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final int value)
+    {
+        return resolve(key, locale).getTemplate().format(value);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with a long argument.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param value Argument {@code {0}}.
+     * @return Resource bundle value.
+     * @see #get(Enum, Locale, int)
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final long value)
+    {
+        return resolve(key, locale).getTemplate().format(value);
+    }
+
+    /**
+     * Gets a resource bundle value given its key using an enumerated value, formatted with a double argument.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param value Argument {@code {0}}.
+     * @return Resource bundle value.
+     * @see #get(Enum, Locale, int)
+     */
+    public static final String get(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final double value)
+    {
+        return resolve(key, locale).getTemplate().format(value);
+    }
+
+    /**
+     * Gets the resource bundle value of the given key.
+     *
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @return The resource bundle value if found.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     */
+    public static final String get(final @NonNull String key, final @NonNull Locale locale, final Object... parameters)
+    {
+        initialize();
+
+        final MessageCache current = cache;
+        if (current != null && MessageCache.isCacheable(parameters))
+        {
+            return cached(current, key, locale, parameters);
+        }
+
+        return retrieve(lookup(key, locale), locale, parameters);
+    }
+
+    /**
+     * Returns the handle of the given resource bundle key.
+     * <p>
+     * The handle is resolved once to a slot, retrieving a value through it is then an array access per locale instead
+     * of a hash lookup of the key. Handles remain valid when resource bundles are registered or cleared.
+     *
+     * @param key Resource bundle key.
+     * @return Key handle (the same instance for a given key).
+     */
+    public static final BundleKey key(final @NonNull String key)
+    {
+        return KEYS.computeIfAbsent(key, KEY_TABLE::add);
+    }
+
+    /**
+     * Gets the resource bundle value of the given key handle, in the current locale.
+     *
+     * @param key Key handle.
+     * @return Resource bundle value.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     */
+    public static final String get(final @NonNull BundleKey key)
+    {
+        return get(key, ResourceBundleManager.locale);
+    }
+
+    /**
+     * Gets the resource bundle value of the given key handle.
+     *
+     * @param key Key handle.
+     * @param locale Locale to use.
+     * @return Resource bundle value.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     */
+    public static final String get(final @NonNull BundleKey key, final @NonNull Locale locale)
+    {
+        return get(key, locale, (Object[]) null);
+    }
+
+    /**
+     * Gets the resource bundle value of the given key handle.
+     *
+     * @param key Key handle.
+     * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
+     * @return Resource bundle value.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     */
+    public static final String get(final @NonNull BundleKey key, final @NonNull Locale locale, final Object... parameters)
+    {
+        initialize();
+
+        final MessageCache current = cache;
+        if (current != null && MessageCache.isCacheable(parameters))
+        {
+            return cached(current, key.getKey(), locale, parameters);
+        }
+
+        touch(locale);
+        BundleEntry entry = KEY_TABLE.getEntry(registry, locale, key);
+        if (entry != null)
+        {
+            return entry.getTemplate().format(parameters);
+        }
+
+        return retrieve(lookup(key.getKey(), locale), locale, parameters);
+    }
+
+    /**
+     * Finds a resource bundle value given its key, in the current locale.
+     *
+     * @param key Key to find.
+     * @return Resource bundle value or an empty optional if the key cannot be found.
+     */
+    public static final Optional<String> find(final @NonNull String key)
+    {
+        return find(key, ResourceBundleManager.locale);
+    }
+
+    /**
+     * Finds a resource bundle value given its key.
+     *
+     * @param key Key to find.
+     * @param locale Locale to use.
+     * @return Resource bundle value or an empty optional if the key cannot be found.
+     */
+    public static final Optional<String> find(final @NonNull String key, final @NonNull Locale locale)
+    {
+        return find(key, locale, (Object[]) null);
+    }
+
+    /**
+     * Finds a resource bundle value given its key.
+     * <p>
+     * Unlike {@link #get(String, Locale, Object...)}, a missing key (or an empty registry) does not throw any
+     * exception, so this method is suited to optional values which are frequently missing.
+     *
+     * @param key Key to find.
+     * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
+     * @return Resource bundle value or an empty optional if the key cannot be found.
+     */
+    public static final Optional<String> find(final @NonNull String key, final @NonNull Locale locale, final Object... parameters)
+    {
+        initialize();
+
+        BundleEntry entry = search(key, locale);
+
+        return entry != null ? Optional.of(retrieve(entry, locale, parameters)) : Optional.empty();
+    }
+
+    /**
+     * Finds a resource bundle value given its key using an enumerated value, in the current locale.
+     *
+     * @param key Key to find.
+     * @return Resource bundle value or an empty optional if the key cannot be found.
+     */
+    public static final Optional<String> find(final @NonNull Enum<? extends IBundle> key)
+    {
+        return find(key, ResourceBundleManager.locale);
+    }
+
+    /**
+     * Finds a resource bundle value given its key using an enumerated value.
+     *
+     * @param key Key to find.
+     * @param locale Locale to use.
+     * @return Resource bundle value or an empty optional if the key cannot be found.
+     */
+    public static final Optional<String> find(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale)
+    {
+        return find(key, locale, (Object[]) null);
+    }
+
+    /**
+     * Finds a resource bundle value given its key using an enumerated value.
+     * <p>
+     * Unlike {@link #get(Enum, Locale, Object...)}, a missing key does not throw any exception.
+     *
+     * @param key Key to find.
+     * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
+     * @return Resource bundle value or an empty optional if the key cannot be found.
+     */
+    public static final Optional<String> find(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object... parameters)
+    {
+        initialize();
+
+        touch(locale);
+        BundleEnumTable table = ENUM_TABLES.get(key.getDeclaringClass());
+        BundleEntry entry = table.getEntry(registry, locale, key.ordinal());
+        if (entry != null)
+        {
+            return Optional.of(entry.getTemplate().format(parameters));
+        }
+
+        return find(table.getKey(key.ordinal()), locale, parameters);
+    }
+
+    /**
+     * Formats a resource bundle value given its key directly into the given appendable.
+     * <p>
+     * The compiled message is written into the appendable without creating any intermediate string (except for the
+     * arguments requiring a formatting such as numbers and dates).
+     *
+     * @param <A> Type of the appendable.
+     * @param output Appendable receiving the formatted value.
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
+     * @return The given appendable.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found or the value cannot be appended.
+     */
+    public static final <A extends Appendable> A formatTo(final @NonNull A output, final @NonNull String key, final @NonNull Locale locale, final Object... parameters)
+    {
+        initialize();
+
+        return formatTo(output, localize(lookup(key, locale), locale), parameters);
+    }
+
+    /**
+     * Formats a resource bundle value given its key using an enumerated value directly into the given appendable.
+     *
+     * @param <A> Type of the appendable.
+     * @param output Appendable receiving the formatted value.
+     * @param key Key to retrieve.
+     * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
+     * @return The given appendable.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found or the value cannot be appended.
+     * @see #formatTo(Appendable, String, Locale, Object...)
+     */
+    public static final <A extends Appendable> A formatTo(final @NonNull A output, final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object... parameters)
+    {
+        return formatTo(output, resolve(key, locale), parameters);
+    }
+
+    /**
+     * Formats the value of the given resource bundle entry directly into the given appendable.
+     *
+     * @param <A> Type of the appendable.
+     * @param output Appendable receiving the formatted value.
+     * @param entry Resource bundle entry.
+     * @param parameters Parameters for message formatting.
+     * @return The given appendable.
+     * @throws ResourceBundleException Thrown in case the value cannot be appended.
+     */
+    private static <A extends Appendable> A formatTo(final @NonNull A output, final @NonNull BundleEntry entry, final Object... parameters)
+    {
+        try
+        {
+            return entry.getTemplate().formatTo(output, parameters);
+        }
+        catch (IOException e)
+        {
+            throw new ResourceBundleException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the resource bundle values of the given keys in one pass.
+     * <p>
+     * The keys are resolved against a single registry snapshot, with the same locale fallback as
+     * {@link #get(String, Locale)} but without the per key overhead (initialization check, registration of the
+     * resource bundles in the requested locale, exception on a missing key).
+     *
+     * @param keys Keys to retrieve.
+     * @param locale Locale to use.
+     * @return Resource bundle values indexed by key (in the iteration order of the given keys, missing keys are not
+     * included).
+     */
+    public static final Map<String, String> getAll(final @NonNull Collection<String> keys, final @NonNull Locale locale)
+    {
+        initialize();
+
+        final BundleRegistry snapshot = prepare(locale);
+        final Map<String, String> values = new LinkedHashMap<>();
+        BundleEntry entry;
+
+        for (String key : keys)
+        {
+            entry = snapshot.getEntry(key, locale);
+            if (entry == null)
+            {
+                entry = snapshot.getEntry(key, ResourceBundleManager.locale);
+            }
+
+            if (entry != null)
+            {
+                values.put(key, entry.getTemplate().format());
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Gets the resource bundle values of the given keys for several locales.
+     *
+     * @param keys Keys to retrieve.
+     * @param locales Locales to use.
+     * @return Resource bundle values indexed by locale then by key (missing keys are not included).
+     * @see #getAll(Collection, Locale)
+     */
+    public static final Map<Locale, Map<String, String>> getAll(final @NonNull Collection<String> keys, final @NonNull Collection<Locale> locales)
+    {
+        final Map<Locale, Map<String, String>> values = new LinkedHashMap<>();
+
+        for (Locale element : locales)
+        {
+            values.put(element, getAll(keys, element));
+        }
+
+        return values;
+    }
+
+    /**
+     * Gets the resource bundle values of all the keys starting with the given prefix.
+     * <p>
+     * Only the keys below the prefix are walked (see {@link BundleKeyTrie}), with the same locale fallback as
+     * {@link #getAll(Collection, Locale)}. The prefix is matched as is, so a prefix such as
+     * {@code "kakoo-foundation-common.test."} selects a whole section of the resource bundles.
+     *
+     * @param prefix Key prefix.
+     * @param locale Locale to use.
+     * @return Resource bundle values indexed by key (sorted by key).
+     */
+    public static final SortedMap<String, String> getSubtree(final @NonNull String prefix, final @NonNull Locale locale)
+    {
+        initialize();
+
+        final BundleRegistry snapshot = prepare(locale);
+        final SortedMap<String, String> values = new TreeMap<>();
+
+        if (!locale.equals(ResourceBundleManager.locale))
+        {
+            for (BundleEntry entry : snapshot.getSubtree(prefix, ResourceBundleManager.locale))
+            {
+                values.put(entry.getKey(), entry.getTemplate().format());
+            }
+        }
+
+        for (BundleEntry entry : snapshot.getSubtree(prefix, locale))
+        {
+            values.put(entry.getKey(), entry.getTemplate().format());
+        }
+
+        return values;
+    }
+
+    /**
+     * Gets the resource bundle values of all the enumerated values of a resource bundle enumeration in one pass.
+     *
+     * @param <E> Type of the resource bundle enumeration.
+     * @param enumClass Resource bundle enumeration class.
+     * @param locale Locale to use.
+     * @return Resource bundle values indexed by enumerated value (missing keys are not included).
+     */
+    public static final <E extends Enum<E> & IBundle> EnumMap<E, String> getAll(final @NonNull Class<E> enumClass, final @NonNull Locale locale)
+    {
+        return getAll(enumClass, EnumSet.allOf(enumClass), locale);
+    }
+
+    /**
+     * Gets the resource bundle values of some enumerated values of a resource bundle enumeration in one pass.
+     * <p>
+     * The entries of the enumeration are resolved through its ordinal-indexed tables, in the given locale and in the
+     * default locale, against a single registry snapshot.
+     *
+     * @param <E> Type of the resource bundle enumeration.
+     * @param enumClass Resource bundle enumeration class.
+     * @param keys Enumerated values to retrieve.
+     * @param locale Locale to use.
+     * @return Resource bundle values indexed by enumerated value (missing keys are not included).
+     */
+    public static final <E extends Enum<E> & IBundle> EnumMap<E, String> getAll(final @NonNull Class<E> enumClass, final @NonNull Collection<E> keys, final @NonNull Locale locale)
     {
         initialize();
 
-        if (ResourceBundleManager.locale != locale)
+        final BundleRegistry snapshot = prepare(locale);
+        final BundleEnumTable table = ENUM_TABLES.get(enumClass);
+        final BundleEntry[] entries = table.getEntries(snapshot, locale);
+        final BundleEntry[] defaults = table.getEntries(snapshot, ResourceBundleManager.locale);
+        final EnumMap<E, String> values = new EnumMap<>(enumClass);
+        BundleEntry entry;
+
+        for (E key : keys)
         {
-            ResourceBundleManager.locale = locale;
+            entry = entries[key.ordinal()];
+            if (entry == null)
+            {
+                entry = defaults[key.ordinal()];
+            }
+
+            if (entry != null)
+            {
+                values.put(key, entry.getTemplate().format());
+            }
         }
 
-        return ResourceBundleManager.locale;
+        return values;
     }
 
     /**
-     * Checks if the given bundle file name for the given locale exist.
+     * Registers in the given locale the resource bundles registered in the default locale (if not already done) so
+     * that a batch of keys can then be resolved against a single registry snapshot.
      *
-     * @param baseBundleName Bundle base file name.
-     * @return {@code True} if the given bundle file exist, {@code false} otherwise.
+     * @param locale Locale to prepare.
+     * @return Registry snapshot to use.
      */
-    public static final boolean exist(final @NonNull String baseBundleName, final @NonNull Locale locale)
+    private static BundleRegistry prepare(final @NonNull Locale locale)
     {
-        if (BUNDLES.get(locale) == null)
-        {
-            return false;
-        }
+        touch(locale);
 
-        for (ResourceBundle bundle : BUNDLES.get(locale))
+        for (ResourceBundle bundle : registry.getBundles(ResourceBundleManager.locale))
         {
-            if (bundle.getBaseBundleName().equals(baseBundleName))
+            if (!exist(bundle.getBaseBundleName(), locale))
             {
-                return true;
+                register(bundle.getBaseBundleName(), locale);
             }
         }
 
-        return false;
+        return registry;
     }
 
     /**
-     * Gets a resource bundle value given its key.
+     * Searches the given key in the index of the given locale then, if not found, in the index of the default locale.
+     * <p>
+     * The indexes are hash tables owned by the immutable registry snapshot, so a missing key is answered by two
+     * probes without going through the registered resource bundles, and a new registry published by a registration
+     * or a clearing is immediately taken into account.
+     * <p>
+     * The entry found in a parent locale of the given locale may come from a resource bundle file not registered for
+     * the given locale yet, the caller is then expected to localize it.
      *
-     * @param key Key to retrieve.
-     * @return Resource bundle value.
+     * @param key Key to search.
+     * @param locale Locale to use.
+     * @return Resource bundle entry or {@code null} if not found.
      */
-    public static final String get(final @NonNull String key)
+    private static BundleEntry search(final @NonNull String key, final @NonNull Locale locale)
     {
-        return get(key, ResourceBundleManager.locale);
+        touch(locale);
+
+        final BundleRegistry snapshot = registry;
+        BundleEntry entry = snapshot.getInheritedEntry(key, locale);
+
+        return entry != null ? entry : snapshot.getEntry(key, ResourceBundleManager.locale);
     }
 
     /**
-     * Gets the resource bundle value of the given key.
+     * Lookup the given key to determine in which bundle it is located.
+     * <p>
+     * The key is first looked up in the index of the given locale then, if not found, in the index of the default
+     * locale.
      *
-     * @param key Key to retrieve.
+     * @param key Key to lookup.
      * @param locale Locale to use.
-     * @return The resource bundle value if found.
+     * @return If found, the resource bundle entry.
+     * @throws ResourceBundleManagerException Thrown in case no resource bundle is registered.
      * @throws ResourceBundleException Thrown in case the given key cannot be found.
      */
-    public static final String get(final @NonNull String key, final @NonNull Locale locale)
+    private static BundleEntry lookup(final @NonNull String key, final @NonNull Locale locale)
     {
-        return retrieve(lookup(key, locale), key, locale);
+        BundleEntry entry;
+
+        if (registry.isEmpty())
+        {
+            throw new ResourceBundleManagerException("No resource bundle registered!");
+        }
+
+        entry = search(key, locale);
+        if (entry == null)
+        {
+            throw new ResourceBundleException(String.format("Can't find resource bundle key: '%s'", key));
+        }
+
+        return entry;
     }
 
     /**
-     * Gets a resource bundle value given its key using an enumerated value.
+     * Retrieves the value of the given resource bundle entry in the given locale.
      *
-     * @param key Key to retrieve.
+     * @param entry Resource bundle entry.
+     * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
      * @return Resource bundle value.
      */
-    public static final String get(final Enum<? extends IBundle> key)
+    private static String retrieve(final @NonNull BundleEntry entry, final @NonNull Locale locale, final Object... parameters)
     {
-        return get(key, locale);
+        return localize(entry, locale).getTemplate().format(parameters);
     }
 
     /**
-     * Gets a resource bundle value given its key using an enumerated value.
+     * Gets the resource bundle value of the given key from the given message cache, formatting and caching it if
+     * not already cached.
      *
+     * @param cache Message cache.
      * @param key Key to retrieve.
      * @param locale Locale to use.
+     * @param parameters Parameters for message formatting.
      * @return Resource bundle value.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
      */
-    public static final String get(final Enum<? extends IBundle> key, final @NonNull Locale locale)
+    private static String cached(final @NonNull MessageCache cache, final @NonNull String key, final @NonNull Locale locale, final @NonNull Object[] parameters)
     {
-        return get(key, locale, null);
+        // The version is read before formatting so that a message formatted from an outdated registry is not cached.
+        final long version = registry.getVersion();
+        final Locale fallback = ResourceBundleManager.locale;
+        String message = cache.get(version, key, locale, fallback, parameters);
+
+        if (message == null)
+        {
+            message = retrieve(lookup(key, locale), locale, parameters);
+            cache.put(version, key, locale, fallback, parameters, message);
+        }
+
+        return message;
     }
 
     /**
-     * Gets a resource bundle value given its key using an enumerated value.
+     * Resolves the resource bundle entry of the given enumerated value in the given locale.
      *
-     * @param key Key to retrieve.
+     * @param key Key to resolve.
      * @param locale Locale to use.
-     * @return Resource bundle value.
+     * @return Resource bundle entry.
+     * @throws ResourceBundleException Thrown in case the given key cannot be found.
      */
-    public static final String get(final Enum<? extends IBundle> key, final @NonNull Locale locale, final Object... parameters)
+    private static BundleEntry resolve(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale)
     {
         initialize();
 
-        return extract(key, locale, parameters);
+        touch(locale);
+        BundleEnumTable table = ENUM_TABLES.get(key.getDeclaringClass());
+        BundleEntry entry = table.getEntry(registry, locale, key.ordinal());
+
+        return entry != null ? entry : localize(lookup(table.getKey(key.ordinal()), locale), locale);
     }
 
     /**
-     * Gets the resource bundle value of the given key.
+     * Returns the resource bundle entry corresponding to the given one in the given locale.
      *
-     * @param key Key to retrieve.
+     * @param entry Resource bundle entry.
      * @param locale Locale to use.
-     * @return The resource bundle value if found.
-     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     * @return Resource bundle entry in the given locale if it exists, the given entry otherwise.
      */
-    public static final String get(final @NonNull String key, final @NonNull Locale locale, final Object... parameters)
+    private static BundleEntry localize(final @NonNull BundleEntry entry, final @NonNull Locale locale)
     {
-        initialize();
+        BundleEntry localized = entry;
+
+        if (!entry.getLocale().equals(locale))
+        {
+            // Try to register the resource bundle in the requested locale.
+            if (!exist(entry.getBaseBundleName(), locale))
+            {
+                register(entry.getBaseBundleName(), locale);
+            }
+
+            localized = registry.getEntry(entry.getKey(), locale);
+            if (localized == null)
+            {
+                localized = entry;
+            }
+        }
 
-        return retrieve(lookup(key), key, locale, parameters);
+        return localized;
     }
 
     /**
-     * Lookup the given key to determine in which bundle it is located.
+     * Returns the control used to load the resource bundle files.
      *
-     * @param key Key to lookup.
-     * @return If found, the resource bundle base name.
-     * @throws ResourceBundleManagerException Thrown in case no resource bundle is registered.
-     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     * @return Resource bundle control.
      */
-    private static String lookup(final @NonNull String key)
+    private static ResourceBundle.Control getControl()
     {
-        return lookup(key, locale);
+        return compact ? BundleCatalogControl.COMPACT : BundleCatalogControl.INSTANCE;
     }
 
     /**
-     * Lookup the given key to determine in which bundle it is located.
+     * Records an access to the given locale (only when a memory budget is set).
      *
-     * @param key Key to lookup.
-     * @return If found, the resource bundle base name.
-     * @throws ResourceBundleManagerException Thrown in case no resource bundle is registered.
-     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     * @param locale Accessed locale.
      */
-    private static String lookup(final @NonNull String key, final @NonNull Locale locale)
+    private static void touch(final @NonNull Locale locale)
     {
-        String baseBundleName;
-
-        if (BUNDLES.size() == 0)
+        if (budget > 0)
         {
-            throw new ResourceBundleManagerException("No resource bundle registered!");
-        }
+            AtomicLong access = ACCESSES.get(locale);
+            if (access == null)
+            {
+                access = ACCESSES.computeIfAbsent(locale, element -> new AtomicLong());
+            }
 
-        // We are looking with the default locale.
-        if (!BUNDLES.containsKey(locale))
-        {
-            // Do a lookup with the default locale.
-            for (ResourceBundle bundle : BUNDLES.get(ResourceBundleManager.locale))
+            access.lazySet(System.nanoTime());
+
+            if (!EVICTED.isEmpty() && EVICTED.containsKey(locale))
             {
-                if (bundle.containsKey(key))
-                {
-                    baseBundleName =  bundle.getBaseBundleName();
-                    if (baseBundleName != null)
-                    {
-                        return baseBundleName;
-                    }
-                }
+                reload(locale);
             }
         }
-        else
+    }
+
+    /**
+     * Registers again the resource bundle files evicted for the given locale.
+     *
+     * @param locale Locale.
+     */
+    @Synchronized
+    private static void reload(final @NonNull Locale locale)
+    {
+        Set<String> baseBundleNames = EVICTED.remove(locale);
+
+        if (baseBundleNames != null)
         {
-            for (ResourceBundle bundle : BUNDLES.get(locale))
+            for (String baseBundleName : baseBundleNames)
             {
-                if (bundle.containsKey(key))
-                {
-                    return bundle.getBaseBundleName();
-                }
+                register(baseBundleName, locale);
             }
         }
-
-        throw new ResourceBundleException(String.format("Can't register resource bundle find key: '%s'", key));
     }
 
     /**
-     * Retrieves the given key.
+     * Returns the last access time of the given locale.
      *
-     * @param baseBundleName Base bundle file name.
-     * @param key Key o retrieve.
-     * @param locale Locale to use.
-     * @return If found, the resource bundle value.
-     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     * @param locale Locale.
+     * @return Last access time or {@link Long#MIN_VALUE} if never accessed.
      */
-    private static String retrieve(final @NonNull String baseBundleName, final @NonNull String key, final @NonNull Locale locale)
+    private static long getLastAccess(final @NonNull Locale locale)
     {
-        return retrieve(baseBundleName, key, locale, new Object[]{});
+        AtomicLong access = ACCESSES.get(locale);
+
+        return access != null ? access.get() : Long.MIN_VALUE;
     }
 
     /**
-     * Retrieves the given key.
+     * Evicts the resource bundles of the least recently used locales until the registry fits within the memory
+     * budget (if any).
+     * <p>
+     * The resource bundles of the default locale, of the pinned locales and of the given locale are never evicted.
      *
-     * @param baseBundleName Base bundle file name.
-     * @param key Key o retrieve.
-     * @param locale Locale to use.
-     * @return If found, the resource bundle value.
-     * @throws ResourceBundleException Thrown in case the given key cannot be found.
+     * @param registered Locale whose resource bundles have just been registered.
      */
-    private static String retrieve(final @NonNull String baseBundleName,  final @NonNull String key, final @NonNull Locale locale, final Object... parameters)
+    private static void enforceBudget(final @NonNull Locale registered)
     {
-        if (BUNDLES.get(locale) == null)
+        final long limit = budget;
+        final List<Locale> candidates = new ArrayList<>();
+        BundleRegistry.Builder builder = null;
+        Set<String> baseBundleNames;
+        long weight = registry.getWeight();
+
+        if (limit <= 0 || weight <= limit)
         {
-            // Try to register the resource bundle in the requested locale.
-            register(baseBundleName, locale);
+            return;
         }
 
-        List<ResourceBundle> list = BUNDLES.get(locale);
-        if (list == null)
+        for (Locale candidate : registry.getLocales())
         {
-            // Try to load it from the default locale.
-            list = BUNDLES.get(ResourceBundleManager.locale);
-            if (list == null)
+            if (!candidate.equals(locale) && !candidate.equals(registered) && !PINNED.contains(candidate))
             {
-                throw new ResourceBundleException(String.format("Can't find resource bundle file: '%s', locale: '%s'", baseBundleName, locale));
+                candidates.add(candidate);
             }
         }
 
-        for (ResourceBundle bundle : list)
+        candidates.sort(Comparator.comparingLong(ResourceBundleManager::getLastAccess));
+
+        for (Locale candidate : candidates)
         {
-            if (bundle.getBaseBundleName().equals(baseBundleName))
+            if (weight <= limit)
+            {
+                break;
+            }
+
+            // Keep a trace of the evicted files so that they are registered again on the next access to the locale.
+            baseBundleNames = EVICTED.computeIfAbsent(candidate, element -> ConcurrentHashMap.newKeySet());
+            for (ResourceBundle bundle : registry.getBundles(candidate))
+            {
+                baseBundleNames.add(bundle.getBaseBundleName());
+            }
+
+            if (builder == null)
             {
-                return MessageFormat.format(bundle.getString(key), parameters);
+                builder = registry.toBuilder();
             }
+            builder.evict(candidate);
+            weight -= registry.getWeight(candidate);
+            ACCESSES.remove(candidate);
+            log.info(String.format("Evicted resource bundles of locale: '%s' (memory budget: %d bytes)", candidate, limit));
         }
 
-        throw new ResourceBundleException(String.format("Can't find resource bundle key: '%s'", key));
+        if (weight > limit)
+        {
+            log.warn(String.format("Resource bundles of the default, pinned and last registered locales exceed the memory budget: %d bytes", limit));
+        }
+
+        if (builder != null)
+        {
+            registry = builder.build();
+        }
     }
 
     /**
@@ -345,23 +1242,19 @@ public class ResourceBundleManager
         initialize();
 
         ResourceBundle bundle;
-        List<ResourceBundle> resources;
 
         // Register the bundle using the given locale if not the same as the current one.
         if (!exist(baseBundleName, locale))
         {
-            resources = BUNDLES.get(locale);
-            if (resources == null)
-            {
-                resources = new ArrayList<>();
-            }
-
-            bundle = ResourceBundle.getBundle(baseBundleName, locale);
+            bundle = ResourceBundle.getBundle(baseBundleName, locale, getControl());
             if (bundle != null)
             {
-                resources.add(ResourceBundle.getBundle(baseBundleName, locale));
-                BUNDLES.put(locale, resources);
+                registry = registry.toBuilder()
+                        .register(bundle, locale, PRIORITIES.getOrDefault(baseBundleName, DEFAULT_PRIORITY))
+                        .build();
                 log.info(String.format("Registered resource bundle file: '%s', locale: '%s'", baseBundleName, locale));
+
+                enforceBudget(locale);
             }
             else
             {
@@ -401,7 +1294,28 @@ public class ResourceBundleManager
 
         if (annotationClass.isAssignableFrom(Bundle.class))
         {
-            registerBundleAnnotatedClass(annotationClass, annotatedClass);
+            // Extract the resource bundle annotation element values.
+            Bundle annotation = annotatedClass.getAnnotation(Bundle.class);
+
+            registerBundleAnnotated(annotationClass, new BundleIndex.Entry(annotatedClass.getName(), annotation.file(), annotation.root(), annotation.priority()));
+        }
+    }
+
+    /**
+     * Registers an annotated class given its annotation element values.
+     * <p>
+     * The annotated class is not loaded, it will only be loaded when effectively used.
+     *
+     * @param annotationClass Annotation class.
+     * @param entry Annotated class description (name and annotation element values).
+     */
+    public static final void register(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull BundleIndex.Entry entry)
+    {
+        initialize();
+
+        if (annotationClass.isAssignableFrom(Bundle.class))
+        {
+            registerBundleAnnotated(annotationClass, entry);
         }
     }
 
@@ -409,39 +1323,41 @@ public class ResourceBundleManager
      * Registers a class annotated with the {@link Bundle} annotation.
      *
      * @param annotationClass Annotation class.
-     * @param annotatedClass Annotated class.
+     * @param entry Annotated class description (name and annotation element values).
      */
-    private static void registerBundleAnnotatedClass(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull Class<?> annotatedClass)
+    private static void registerBundleAnnotated(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull BundleIndex.Entry entry)
     {
         // Extract the resource bundle file name.
-        Bundle annotation = annotatedClass.getAnnotation(Bundle.class);
-        String baseBundleName = annotation.file();
+        String baseBundleName = entry.getFile();
 
-        if (check(annotationClass, annotatedClass, baseBundleName))
+        if (check(annotationClass, entry.getClassName(), baseBundleName))
         {
             throw new ResourceBundleException(
                     String.format("Already registered annotated class: '%s' for annotation: '%s' with resource bundle file: '%s'",
-                            annotatedClass.getName(), annotationClass.getName(), baseBundleName));
+                            entry.getClassName(), annotationClass.getName(), baseBundleName));
         }
 
+        // Keep a trace of the priority of the bundle file name.
+        PRIORITIES.put(baseBundleName, entry.getPriority());
+
         // Keep a trace of this association between the annotation, the annotated class and the bundle file name.
-        update(annotationClass, annotatedClass, baseBundleName);
+        update(annotationClass, entry.getClassName(), baseBundleName);
     }
 
     /**
      * Checks if the given annotation class is already registered for the given annotated class.
      *
      * @param annotationClass Annotation class.
-     * @param annotatedClass Annotated class.
+     * @param annotatedClassName Annotated class name.
      * @param baseBundleName Base bundle file name.
      * @return {@code True} if already registered, {@code false} otherwise.
      */
-    private static boolean check(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull Class<?> annotatedClass, final @NonNull String baseBundleName)
+    private static boolean check(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull String annotatedClassName, final @NonNull String baseBundleName)
     {
-        Map<Class<?>, String> classes = ANNOTATION_CLASSES.get(annotationClass);
+        Map<String, String> classes = ANNOTATION_CLASSES.get(annotationClass);
         if (classes != null)
         {
-            String filename = classes.get(annotatedClass);
+            String filename = classes.get(annotatedClassName);
             return (filename != null && filename.equals(baseBundleName));
         }
 
@@ -452,23 +1368,23 @@ public class ResourceBundleManager
      * Updates the data structure keeping a trace of the association between the annotation class, the annotated class and the resource bundle file name.
      *
      * @param annotationClass Annotation class.
-     * @param annotatedClass Annotated class.
+     * @param annotatedClassName Annotated class name.
      * @param baseBundleName Base bundle file name.
      */
-    private static void update(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull Class<?> annotatedClass, final @NonNull String baseBundleName)
+    private static void update(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull String annotatedClassName, final @NonNull String baseBundleName)
     {
         String filename;
 
-        Map<Class<?>, String> classes = ANNOTATION_CLASSES.get(annotationClass);
+        Map<String, String> classes = ANNOTATION_CLASSES.get(annotationClass);
         if (classes == null)
         {
-            classes = new HashMap<>();
+            classes = new ConcurrentHashMap<>();
         }
 
-        filename = classes.get(annotatedClass);
+        filename = classes.get(annotatedClassName);
         if (filename == null)
         {
-            classes.put(annotatedClass, baseBundleName);
+            classes.put(annotatedClassName, baseBundleName);
             ANNOTATION_CLASSES.put(annotationClass, classes);
 
             register(baseBundleName);
@@ -479,21 +1395,47 @@ public class ResourceBundleManager
      * Clears all registered resource bundles.
      * <p>
      * Only the directly registered resource bundles are cleared, not the ones registered through annotations.
+     * <p>
+     * The new registry is entirely rebuilt before being published, so concurrent readers keep on using the previous
+     * registry until the new one is available.
      */
     @Synchronized
     public static final void clear()
     {
         initialize();
 
-        // Clear all the bundle files loaded directly.
-        BUNDLES.clear();
-
-        // Reload the annotated elements.
-        reloadAnnotated();
+        // Clear all the bundle files loaded directly and reload the annotated elements.
+        BundleRegistry.Builder builder = registry.toEmptyBuilder();
+        reloadAnnotated(builder);
+        registry = builder.build();
+        EVICTED.clear();
 
         log.info("Cleared the resource bundle cache");
     }
 
+    /**
+     * Returns the version of the resource bundle registry.
+     * <p>
+     * The version is incremented each time a new registry is published (when registering or clearing resource bundles).
+     *
+     * @return Registry version.
+     */
+    public static final long getVersion()
+    {
+        return registry.getVersion();
+    }
+
+    /**
+     * Returns a report of the estimated memory used by the registered resource bundles and of the memory saved by
+     * sharing the entries of the child locales with their parent locales and by canonicalizing the keys and values.
+     *
+     * @return Memory report.
+     */
+    public static final BundleMemoryReport getMemoryReport()
+    {
+        return registry.getMemoryReport();
+    }
+
     /**
      * Returns the number of resource bundle files registered for the current locale.
      *
@@ -514,8 +1456,7 @@ public class ResourceBundleManager
     {
         initialize();
 
-        return BUNDLES.get(locale).size();
-
+        return registry.getBundles(locale).size();
     }
 
     /**
@@ -539,34 +1480,50 @@ public class ResourceBundleManager
         initialize();
 
         List<String> result = new ArrayList<>();
-        List<ResourceBundle> resources = BUNDLES.get(locale);
 
-        if (resources != null)
+        for (ResourceBundle bundle : registry.getBundles(locale))
         {
-            for (ResourceBundle bundle : resources)
-            {
-                result.add(bundle.getBaseBundleName());
-            }
+            result.add(bundle.getBaseBundleName());
         }
 
         return result;
     }
 
     /**
-     * Automatically detect annotated elements on the classpath.
+     * Automatically detect annotated elements.
+     * <p>
+     * All the annotation type visitors declared as services (and at least the {@link BundleAnnotationTypeVisitor})
+     * are coordinated so that the classpath is scanned only once (using the configured {@link AnnotationScanner}).
+     * Classpath roots shipping a build-time index, such as the {@link BundleIndex}, are not scanned for the visitors
+     * able to read it.
+     * <p>
+     * When the {@link Bundle} annotated elements have been restored from a snapshot, the
+     * {@link BundleAnnotationTypeVisitor} is not involved and only the other visitors are run.
      *
+     * @param bundles Indicates if the {@link Bundle} annotated elements must be detected.
+     * @see AnnotationVisitorCoordinator
      * @see BundleAnnotationTypeVisitor
-     * @see AnnotationDetector
+     * @see BundleIndex
+     * @see AnnotationScanner
      */
-    private static void autoDetectAnnotated()
+    private static void autoDetectAnnotated(final boolean bundles)
     {
         try
         {
-            final BundleAnnotationTypeVisitor visitor = new BundleAnnotationTypeVisitor();
-            final AnnotationDetector detector = new AnnotationDetector(visitor);
-            detector.detect();
+            final ClassLoader classLoader = getClassLoader();
+            final AnnotationVisitorCoordinator coordinator = AnnotationVisitorCoordinator.load(classLoader);
+
+            if (bundles)
+            {
+                coordinator.addIfAbsent(new BundleAnnotationTypeVisitor());
+            }
+            else
+            {
+                coordinator.remove(BundleAnnotationTypeVisitor.class);
+            }
 
-            visitor.delegateRegistration();
+            coordinator.detect(classLoader, scanner);
+            coordinator.delegateRegistration();
         }
         catch (Exception e)
         {
@@ -575,6 +1532,127 @@ public class ResourceBundleManager
         }
     }
 
+    /**
+     * Restores the annotated classes and the registered resource bundles from the snapshot (if enabled).
+     *
+     * @return {@code True} if the snapshot has been restored, {@code false} if it is disabled, missing, outdated or
+     * invalid.
+     */
+    private static boolean restoreSnapshot()
+    {
+        final Map<Class<? extends Annotation>, Map<String, String>> annotations = new HashMap<>();
+        BundleSnapshot.Content content;
+
+        if (snapshot == null)
+        {
+            return false;
+        }
+
+        content = snapshot.read(locale);
+        if (content == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            for (Map.Entry<String, Map<String, String>> annotation : content.getAnnotations().entrySet())
+            {
+                annotations.put(Class.forName(annotation.getKey(), false, getClassLoader()).asSubclass(Annotation.class),
+                        new ConcurrentHashMap<>(annotation.getValue()));
+            }
+        }
+        catch (ClassNotFoundException | ClassCastException e)
+        {
+            log.warn(String.format("Ignoring resource bundle snapshot: '%s' (%s)", snapshot.getFile(), e.getMessage()));
+            return false;
+        }
+
+        ANNOTATION_CLASSES.putAll(annotations);
+        PRIORITIES.putAll(content.getPriorities());
+        registry = content.getRegistry();
+        log.info(String.format("Restored resource bundle snapshot: '%s'", snapshot.getFile()));
+
+        return true;
+    }
+
+    /**
+     * Saves the annotated classes and the registered resource bundles to the snapshot (if enabled).
+     * <p>
+     * A failure to save the snapshot is logged but does not prevent the manager from being initialized.
+     */
+    private static void saveSnapshot()
+    {
+        final Map<String, Map<String, String>> annotations = new LinkedHashMap<>();
+
+        if (snapshot == null)
+        {
+            return;
+        }
+
+        for (Map.Entry<Class<? extends Annotation>, Map<String, String>> annotation : ANNOTATION_CLASSES.entrySet())
+        {
+            annotations.put(annotation.getKey().getName(), annotation.getValue());
+        }
+
+        try
+        {
+            snapshot.write(locale, annotations, PRIORITIES, registry);
+            log.info(String.format("Saved resource bundle snapshot: '%s'", snapshot.getFile()));
+        }
+        catch (IOException e)
+        {
+            log.warn(String.format("Can't save resource bundle snapshot: '%s' (%s)", snapshot.getFile(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Returns the memory budget configured by the {@value #PROPERTY_LOCALE_BUDGET} system property.
+     * <p>
+     * An invalid budget (not a positive number) is reported and no budget is set.
+     *
+     * @return Memory budget in bytes or {@code 0} for no budget.
+     */
+    private static long getBudgetProperty()
+    {
+        final String value = System.getProperty(PROPERTY_LOCALE_BUDGET);
+        long budget;
+
+        if (value == null || value.trim().isEmpty())
+        {
+            return 0;
+        }
+
+        try
+        {
+            budget = Long.parseLong(value.trim());
+            if (budget >= 0)
+            {
+                return budget;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Reported below.
+        }
+
+        log.warn(String.format("Ignoring invalid system property: '%s' (%s), no memory budget is set", PROPERTY_LOCALE_BUDGET, value));
+
+        return 0;
+    }
+
+    /**
+     * Returns the class loader to use to load resources.
+     *
+     * @return Thread context class loader if set, otherwise the class loader of the resource bundle manager.
+     */
+    private static ClassLoader getClassLoader()
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+        return classLoader != null ? classLoader : ResourceBundleManager.class.getClassLoader();
+    }
+
     /**
      * Extracts the resource bundle message.
      *
@@ -597,24 +1675,25 @@ public class ResourceBundleManager
      */
     private static String extract(final @NonNull Enum<? extends IBundle> key, final @NonNull Locale locale, final Object... parameters)
     {
-        Bundle annotation = key.getDeclaringClass().getAnnotation(Bundle.class);
-        String aKey = ((IBundle) key).getKey();
-
-        aKey = annotation.root().endsWith(".") ? annotation.root() + aKey : annotation.root() + "." + aKey;
-
-        return get(aKey, locale, parameters);
+        return get(ENUM_TABLES.get(key.getDeclaringClass()).getKey(key.ordinal()), locale, parameters);
     }
 
     /**
-     * Reload the resource bundles associated with annotated classes.
+     * Reload the resource bundles associated with annotated classes into the given registry builder.
+     *
+     * @param builder Registry builder.
      */
-    private static void reloadAnnotated()
+    private static void reloadAnnotated(final @NonNull BundleRegistry.Builder builder)
     {
-        for (Map<Class<?>, String> annotationClass : ANNOTATION_CLASSES.values())
+        for (Map<String, String> annotationClass : ANNOTATION_CLASSES.values())
         {
             for (String baseBundleName : annotationClass.values())
             {
-                register(baseBundleName);
+                if (!builder.exist(baseBundleName, locale))
+                {
+                    builder.register(ResourceBundle.getBundle(baseBundleName, locale, getControl()), locale, PRIORITIES.getOrDefault(baseBundleName, DEFAULT_PRIORITY));
+                    log.info(String.format("Registered resource bundle file: '%s', locale: '%s'", baseBundleName, locale));
+                }
             }
         }
     }
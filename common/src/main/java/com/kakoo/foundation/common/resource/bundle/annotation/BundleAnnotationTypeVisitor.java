@@ -12,11 +12,12 @@
 package com.kakoo.foundation.common.resource.bundle.annotation;
 
 import com.kakoo.foundation.common.annotation.visitor.IAnnotationTypeVisitor;
-import com.kakoo.foundation.common.resource.bundle.IBundle;
 import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.*;
 
@@ -32,12 +33,28 @@ public final class BundleAnnotationTypeVisitor implements IAnnotationTypeVisitor
     /**
      * Collection of detected annotated types with the @Bundle annotation (grouped by priority).
      */
-    private Map<Integer, List<String>> bundleAnnotated = new TreeMap<>();
+    private Map<Class<? extends Annotation>, Map<Integer,  List<BundleIndex.Entry>>> annotated = new HashMap<>();
 
     /**
-     * Collection of detected annotated types with the @Bundle annotation (grouped by priority).
+     * Classpath roots (normalized absolute paths) from which the annotated types have been loaded using an index.
+     */
+    private final Set<File> indexed = new HashSet<>();
+
+    /**
+     * Class loader used to locate the class files of the detected annotated types.
      */
-    private Map<Class<? extends Annotation>, Map<Integer,  List<String>>> annotated = new HashMap<>();
+    private final ClassLoader classLoader;
+
+    /**
+     * Creates a new visitor using the thread context class loader (or the class loader of the visitor if not set) to
+     * locate the class files of the detected annotated types.
+     */
+    public BundleAnnotationTypeVisitor()
+    {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        this.classLoader = loader != null ? loader : BundleAnnotationTypeVisitor.class.getClassLoader();
+    }
 
     @SuppressWarnings("unchecked")
     @Override
@@ -58,79 +75,123 @@ public final class BundleAnnotationTypeVisitor implements IAnnotationTypeVisitor
     @Override
     public void delegateRegistration()
     {
-        Map<Integer, List<String>> ordered;
-        List<String> classes;
+        Map<Integer, List<BundleIndex.Entry>> ordered;
 
         for (Class<? extends Annotation> annotationClass : annotated.keySet())
         {
             ordered = annotated.get(annotationClass);
             for (Integer priority : ordered.keySet() )
             {
-                classes = ordered.get(priority);
-                for (String annotatedClass : classes)
+                for (BundleIndex.Entry entry : ordered.get(priority))
                 {
-                    callForRegistration(annotationClass, annotatedClass);
+                    ResourceBundleManager.register(annotationClass, entry);
                 }
             }
         }
     }
 
     /**
-     * Call the resource bundle manager to register the given annotated class for the given annotation.
-     * <hr>
-     * @param annotationClass Annotation class.
-     * @param annotatedClassName Name of the annotated class.
+     * Loads the types annotated with the @Bundle annotation from the {@link BundleIndex} resources.
+     * <p>
+     * Indexes are loaded per classpath root, so the visitor is still involved in the scan of the classpath roots not
+     * shipping an index (see {@link #isIndexed(File)}).
+     * <p>
+     * @param classLoader Class loader used to locate the index resources.
+     * @return Always {@code false} as the classpath roots not shipping an index must still be scanned.
+     * @throws IOException Thrown in case an error occurred while reading an index resource.
      */
-    private void callForRegistration(final @NonNull Class<? extends Annotation> annotationClass, final @NonNull String annotatedClassName)
+    @Override
+    public boolean loadIndex(final @NonNull ClassLoader classLoader) throws IOException
     {
-        try
-        {
-            ResourceBundleManager.register(annotationClass, Class.forName(annotatedClassName));
-        }
-        catch (ClassNotFoundException e)
+        for (Map.Entry<File, List<BundleIndex.Entry>> index : BundleIndex.loadByRoot(classLoader).entrySet())
         {
-            log.error(e.getMessage(), e);
+            if (index.getKey() != null)
+            {
+                indexed.add(normalize(index.getKey()));
+            }
+
+            for (BundleIndex.Entry entry : index.getValue())
+            {
+                report(entry);
+            }
         }
+
+        return false;
+    }
+
+    @Override
+    public boolean isIndexed(final @NonNull File root)
+    {
+        return indexed.contains(normalize(root));
+    }
+
+    /**
+     * Normalizes a classpath root so that the same root is equally represented whatever the way it is declared.
+     * <p>
+     * @param root Classpath root.
+     * @return Normalized absolute classpath root.
+     */
+    private static File normalize(final File root)
+    {
+        return root.getAbsoluteFile().toPath().normalize().toFile();
     }
 
     /**
      * Reports annotated types with the @Bundle annotation.
      * <p>
+     * The annotation element values are read from the class file, so the annotated type is neither loaded nor
+     * initialized.
+     * <p>
      * @param annotatedClassName Annotated class name.
      */
-    @SuppressWarnings("unchecked")
     private void reportTypeAnnotationBundle(final @NonNull  String annotatedClassName)
     {
-        List<String> classes;
-        Map<Integer, List<String>> ordered;
-
         try
         {
-            Class<? extends IBundle> bundleAnnotatedClass = (Class<? extends IBundle>) Class.forName(annotatedClassName);
-            Bundle bundle = bundleAnnotatedClass.getAnnotation(Bundle.class);
-
-            ordered = annotated.get(Bundle.class);
-            if (ordered == null)
+            BundleIndex.Entry entry = BundleClassReader.read(classLoader, annotatedClassName);
+            if (entry != null)
             {
-                ordered = new TreeMap<>();
+                report(entry);
             }
-
-            classes = ordered.get(bundle.priority());
-            if (classes == null)
-            {
-                classes = new ArrayList<>();
-            }
-
-            classes.add(annotatedClassName);
-            ordered.put(bundle.priority(), classes);
-            annotated.put(Bundle.class, ordered);
         }
-        catch (ClassNotFoundException e)
+        catch (IOException e)
         {
-            log.error(e.getMessage());
+            log.error(e.getMessage(), e);
         }
     }
 
-}
+    /**
+     * Reports an annotated type with the @Bundle annotation.
+     * <p>
+     * @param entry Annotated type description.
+     */
+    private void report(final @NonNull BundleIndex.Entry entry)
+    {
+        List<BundleIndex.Entry> entries;
+        Map<Integer, List<BundleIndex.Entry>> ordered;
+
+        ordered = annotated.get(Bundle.class);
+        if (ordered == null)
+        {
+            ordered = new TreeMap<>();
+        }
+
+        entries = ordered.get(entry.getPriority());
+        if (entries == null)
+        {
+            entries = new ArrayList<>();
+        }
 
+        for (BundleIndex.Entry existing : entries)
+        {
+            if (existing.getClassName().equals(entry.getClassName()))
+            {
+                return;
+            }
+        }
 
+        entries.add(entry);
+        ordered.put(entry.getPriority(), entries);
+        annotated.put(Bundle.class, ordered);
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.annotation;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.*;
+
+/**
+ * Reads the {@link Bundle} annotation element values of a type directly from its class file.
+ * <p>
+ * Reading the element values from the class file constant pool avoids loading (and statically initializing) the
+ * annotated types when discovering them. The annotated types are only loaded when they are effectively used.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+@UtilityClass
+public class BundleClassReader
+{
+    /**
+     * Class file magic number.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * Name of the class attribute containing the runtime visible annotations.
+     */
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    /**
+     * Descriptor of the {@link Bundle} annotation type.
+     */
+    private static final String BUNDLE_DESCRIPTOR = "L" + Bundle.class.getName().replace('.', '/') + ";";
+
+    /**
+     * Reads the {@link Bundle} annotation element values of the given type using the given class loader.
+     * <p>
+     * @param classLoader Class loader used to locate the class file.
+     * @param className Binary name of the type.
+     * @return Element values or {@code null} if the type is not annotated with {@link Bundle}.
+     * @throws IOException Thrown in case the class file cannot be found or read.
+     */
+    public static final BundleIndex.Entry read(final @NonNull ClassLoader classLoader, final @NonNull String className) throws IOException
+    {
+        String resource = className.replace('.', '/') + ".class";
+
+        try (InputStream input = classLoader.getResourceAsStream(resource))
+        {
+            if (input == null)
+            {
+                throw new FileNotFoundException(String.format("Can't find class file: '%s'", resource));
+            }
+
+            return read(input, className);
+        }
+    }
+
+    /**
+     * Reads the {@link Bundle} annotation element values from the given class file content.
+     * <p>
+     * @param input Class file content.
+     * @param className Binary name of the type.
+     * @return Element values or {@code null} if the type is not annotated with {@link Bundle}.
+     * @throws IOException Thrown in case the class file cannot be read.
+     */
+    public static final BundleIndex.Entry read(final @NonNull InputStream input, final @NonNull String className) throws IOException
+    {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+        Object[] pool;
+        int count;
+
+        if (data.readInt() != MAGIC)
+        {
+            throw new IOException(String.format("Invalid class file for: '%s'", className));
+        }
+
+        // Minor and major versions.
+        skip(data, 4);
+
+        pool = readConstantPool(data);
+
+        // Access flags, this class and super class.
+        skip(data, 6);
+
+        // Interfaces.
+        skip(data, 2 * data.readUnsignedShort());
+
+        // Fields and methods.
+        skipMembers(data);
+        skipMembers(data);
+
+        count = data.readUnsignedShort();
+        for (int i = 0; i < count; i++)
+        {
+            String name = (String) pool[data.readUnsignedShort()];
+            int length = data.readInt();
+
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(name))
+            {
+                return readAnnotations(data, pool, className);
+            }
+
+            skip(data, length);
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the constant pool keeping only the UTF-8 and integer constants.
+     * <p>
+     * @param data Class file content.
+     * @return Constant pool indexed by constant index.
+     * @throws IOException Thrown in case the constant pool cannot be read.
+     */
+    private static Object[] readConstantPool(final DataInputStream data) throws IOException
+    {
+        Object[] pool = new Object[data.readUnsignedShort()];
+        int tag;
+
+        for (int i = 1; i < pool.length; i++)
+        {
+            tag = data.readUnsignedByte();
+            switch (tag)
+            {
+                case 1: // Utf8
+                    pool[i] = data.readUTF();
+                    break;
+
+                case 3: // Integer
+                    pool[i] = data.readInt();
+                    break;
+
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(data, 4);
+                    break;
+
+                case 5: // Long
+                case 6: // Double
+                    skip(data, 8);
+                    i++; // Takes two entries.
+                    break;
+
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(data, 2);
+                    break;
+
+                case 15: // MethodHandle
+                    skip(data, 3);
+                    break;
+
+                default:
+                    throw new IOException(String.format("Invalid constant pool tag: %d", tag));
+            }
+        }
+
+        return pool;
+    }
+
+    /**
+     * Reads the runtime visible annotations attribute looking for the {@link Bundle} annotation.
+     * <p>
+     * @param data Class file content.
+     * @param pool Constant pool.
+     * @param className Binary name of the type.
+     * @return Element values or {@code null} if the type is not annotated with {@link Bundle}.
+     * @throws IOException Thrown in case the annotations cannot be read.
+     */
+    private static BundleIndex.Entry readAnnotations(final DataInputStream data, final Object[] pool, final String className) throws IOException
+    {
+        int count = data.readUnsignedShort();
+        String file = null;
+        String root = null;
+        int priority = getDefaultPriority();
+        String name;
+        int pairs;
+        int tag;
+
+        for (int i = 0; i < count; i++)
+        {
+            if (!BUNDLE_DESCRIPTOR.equals(pool[data.readUnsignedShort()]))
+            {
+                skipPairs(data);
+                continue;
+            }
+
+            pairs = data.readUnsignedShort();
+            for (int j = 0; j < pairs; j++)
+            {
+                name = (String) pool[data.readUnsignedShort()];
+                tag = data.readUnsignedByte();
+                if (tag == 's' && "file".equals(name))
+                {
+                    file = (String) pool[data.readUnsignedShort()];
+                }
+                else if (tag == 's' && "root".equals(name))
+                {
+                    root = (String) pool[data.readUnsignedShort()];
+                }
+                else if (tag == 'I' && "priority".equals(name))
+                {
+                    priority = (Integer) pool[data.readUnsignedShort()];
+                }
+                else
+                {
+                    skipElementValue(data, tag);
+                }
+            }
+
+            if (file == null || root == null)
+            {
+                throw new IOException(String.format("Invalid @Bundle annotation for: '%s'", className));
+            }
+
+            return new BundleIndex.Entry(className, file, root, priority);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the default value of the {@link Bundle#priority()} element.
+     * <p>
+     * @return Default priority.
+     */
+    private static int getDefaultPriority()
+    {
+        try
+        {
+            return (Integer) Bundle.class.getMethod("priority").getDefaultValue();
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Skips the fields or methods of a class file.
+     * <p>
+     * @param data Class file content.
+     * @throws IOException Thrown in case the members cannot be read.
+     */
+    private static void skipMembers(final DataInputStream data) throws IOException
+    {
+        int count = data.readUnsignedShort();
+        int attributes;
+
+        for (int i = 0; i < count; i++)
+        {
+            // Access flags, name and descriptor.
+            skip(data, 6);
+
+            attributes = data.readUnsignedShort();
+            for (int j = 0; j < attributes; j++)
+            {
+                skip(data, 2);
+                skip(data, data.readInt());
+            }
+        }
+    }
+
+    /**
+     * Skips the element value pairs of an annotation.
+     * <p>
+     * @param data Class file content.
+     * @throws IOException Thrown in case the element value pairs cannot be read.
+     */
+    private static void skipPairs(final DataInputStream data) throws IOException
+    {
+        int pairs = data.readUnsignedShort();
+
+        for (int i = 0; i < pairs; i++)
+        {
+            skip(data, 2);
+            skipElementValue(data, data.readUnsignedByte());
+        }
+    }
+
+    /**
+     * Skips an element value.
+     * <p>
+     * @param data Class file content.
+     * @param tag Tag of the element value.
+     * @throws IOException Thrown in case the element value cannot be read.
+     */
+    private static void skipElementValue(final DataInputStream data, final int tag) throws IOException
+    {
+        int count;
+
+        switch (tag)
+        {
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+            case 's':
+            case 'c':
+                skip(data, 2);
+                break;
+
+            case 'e':
+                skip(data, 4);
+                break;
+
+            case '@':
+                skip(data, 2);
+                skipPairs(data);
+                break;
+
+            case '[':
+                count = data.readUnsignedShort();
+                for (int i = 0; i < count; i++)
+                {
+                    skipElementValue(data, data.readUnsignedByte());
+                }
+                break;
+
+            default:
+                throw new IOException(String.format("Invalid annotation element value tag: %c", (char) tag));
+        }
+    }
+
+    /**
+     * Skips the given number of bytes.
+     * <p>
+     * @param data Class file content.
+     * @param length Number of bytes to skip.
+     * @throws IOException Thrown in case the end of the class file has been reached.
+     */
+    private static void skip(final DataInputStream data, final int length) throws IOException
+    {
+        int remaining = length;
+        int skipped;
+
+        while (remaining > 0)
+        {
+            skipped = data.skipBytes(remaining);
+            if (skipped <= 0)
+            {
+                // Force a read to detect the end of the stream.
+                data.readByte();
+                skipped = 1;
+            }
+
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.annotation;
+
+import com.kakoo.foundation.common.annotation.Internal;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Build-time index of the types annotated with the {@link Bundle} annotation.
+ * <p>
+ * The index is generated at compile time by the {@link BundleIndexProcessor} annotation processor in the
+ * {@link #LOCATION} resource of each artifact declaring {@link Bundle} annotated types. It is then read at runtime by
+ * the {@link com.kakoo.foundation.common.resource.bundle.ResourceBundleManager} to avoid scanning the classpath: only
+ * the classpath roots (directories or jar files) not shipping an index are scanned.
+ * <p>
+ * Each line of the index describes an annotated type using tab separated values: the binary name of the annotated
+ * type, the {@link Bundle#file()}, the {@link Bundle#root()} and the {@link Bundle#priority()}. Lines starting with
+ * a '#' character are comments.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@Internal
+@UtilityClass
+public class BundleIndex
+{
+    /**
+     * Location of the index resource in an artifact.
+     */
+    public static final String LOCATION = "META-INF/kakoo/bundle.index";
+
+    /**
+     * Separator of the values of an index line.
+     */
+    private static final char SEPARATOR = '\t';
+
+    /**
+     * Number of values of an index line.
+     */
+    private static final int VALUE_COUNT = 4;
+
+    /**
+     * Loads all the index resources available through the given class loader.
+     * <p>
+     * @param classLoader Class loader.
+     * @return List of indexed entries (empty if no index resource is available).
+     * @throws IOException Thrown in case an error occurred while reading an index resource.
+     */
+    public static final List<Entry> load(final @NonNull ClassLoader classLoader) throws IOException
+    {
+        List<Entry> entries = new ArrayList<>();
+
+        for (List<Entry> index : loadByRoot(classLoader).values())
+        {
+            entries.addAll(index);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Loads all the index resources available through the given class loader grouped by the classpath root
+     * (directory or jar file) containing them.
+     * <p>
+     * Callers can then scan only the classpath roots not shipping an index.
+     * <p>
+     * @param classLoader Class loader.
+     * @return Map of the indexed entries by classpath root (in class loader order). The root of an index resource
+     * not located in a directory or in a jar file is {@code null}.
+     * @throws IOException Thrown in case an error occurred while reading an index resource.
+     */
+    public static final Map<File, List<Entry>> loadByRoot(final @NonNull ClassLoader classLoader) throws IOException
+    {
+        Map<File, List<Entry>> entries = new LinkedHashMap<>();
+        Enumeration<URL> resources = classLoader.getResources(LOCATION);
+        URL resource;
+
+        while (resources.hasMoreElements())
+        {
+            resource = resources.nextElement();
+            try (InputStream input = resource.openStream())
+            {
+                entries.computeIfAbsent(getRoot(resource), k -> new ArrayList<>()).addAll(read(input));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Returns the classpath root (directory or jar file) containing the given index resource.
+     * <p>
+     * @param resource Index resource.
+     * @return Classpath root or {@code null} if the index resource is not located in a directory or in a jar file.
+     * @throws IOException Thrown in case an error occurred while opening the jar file containing the index resource.
+     */
+    private static File getRoot(final URL resource) throws IOException
+    {
+        try
+        {
+            if ("jar".equals(resource.getProtocol()))
+            {
+                URL jar = ((JarURLConnection) resource.openConnection()).getJarFileURL();
+                return "file".equals(jar.getProtocol()) ? new File(jar.toURI()) : null;
+            }
+
+            if ("file".equals(resource.getProtocol()))
+            {
+                // Walks up the 'META-INF/kakoo/bundle.index' path segments.
+                File root = new File(resource.toURI());
+                for (int i = 0; i < LOCATION.split("/").length && root != null; i++)
+                {
+                    root = root.getParentFile();
+                }
+
+                return root;
+            }
+        }
+        catch (URISyntaxException | IllegalArgumentException e)
+        {
+            // The root can't be determined, the classpath root will be scanned.
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads index entries from the given input stream.
+     * <p>
+     * @param input Input stream.
+     * @return List of indexed entries.
+     * @throws IOException Thrown in case an error occurred while reading the index.
+     */
+    public static final List<Entry> read(final @NonNull InputStream input) throws IOException
+    {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String[] values;
+        String line;
+
+        while ((line = reader.readLine()) != null)
+        {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#')
+            {
+                continue;
+            }
+
+            values = line.split(String.valueOf(SEPARATOR), -1);
+            if (values.length != VALUE_COUNT)
+            {
+                throw new IOException(String.format("Invalid @Bundle index line: '%s'", line));
+            }
+
+            try
+            {
+                entries.add(new Entry(values[0], values[1], values[2], Integer.parseInt(values[3])));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IOException(String.format("Invalid @Bundle index priority: '%s'", line), e);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes the given index entries to the given output stream.
+     * <p>
+     * @param output Output stream.
+     * @param entries Entries to write.
+     * @throws IOException Thrown in case an error occurred while writing the index.
+     */
+    public static final void write(final @NonNull OutputStream output, final @NonNull Collection<Entry> entries) throws IOException
+    {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        writer.write("# Index of the types annotated with @" + Bundle.class.getName() + " (generated, do not edit).\n");
+        for (Entry entry : entries)
+        {
+            writer.write(entry.getClassName() + SEPARATOR + entry.getFile() + SEPARATOR + entry.getRoot() + SEPARATOR + entry.getPriority() + "\n");
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * An entry of the index describing a type annotated with the {@link Bundle} annotation.
+     */
+    public static final class Entry
+    {
+        /**
+         * Binary name of the annotated type.
+         */
+        @Getter
+        private final String className;
+
+        /**
+         * Resource bundle file name.
+         */
+        @Getter
+        private final String file;
+
+        /**
+         * Root path of the resource keys.
+         */
+        @Getter
+        private final String root;
+
+        /**
+         * Priority to load the resource bundle file.
+         */
+        @Getter
+        private final int priority;
+
+        /**
+         * Creates a new index entry.
+         * <p>
+         * @param className Binary name of the annotated type.
+         * @param file Resource bundle file name.
+         * @param root Root path of the resource keys.
+         * @param priority Priority to load the resource bundle file.
+         */
+        public Entry(final @NonNull String className, final @NonNull String file, final @NonNull String root, final int priority)
+        {
+            this.className = className;
+            this.file = file;
+            this.root = root;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.annotation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Annotation processor generating the {@link BundleIndex} of the types annotated with the {@link Bundle} annotation.
+ * <p>
+ * The processor is registered as a service so that it is automatically applied when compiling artifacts depending
+ * on this one. The generated index is written to the {@link BundleIndex#LOCATION} class output resource.
+ * <p>
+ * As an incremental compilation only processes the recompiled types, the index previously generated in the class
+ * output is merged with the detected annotated types: its entries are kept as long as their type still exists and is
+ * still annotated.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@SupportedAnnotationTypes("com.kakoo.foundation.common.resource.bundle.annotation.Bundle")
+public final class BundleIndexProcessor extends AbstractProcessor
+{
+    /**
+     * Collection of the detected annotated types (indexed by binary name to get a deterministic index).
+     */
+    private final Map<String, BundleIndex.Entry> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment environment)
+    {
+        Bundle bundle;
+        String className;
+
+        for (Element element : environment.getElementsAnnotatedWith(Bundle.class))
+        {
+            if (element instanceof TypeElement)
+            {
+                bundle = element.getAnnotation(Bundle.class);
+                className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                entries.put(className, new BundleIndex.Entry(className, bundle.file(), bundle.root(), bundle.priority()));
+            }
+        }
+
+        if (environment.processingOver() && !entries.isEmpty())
+        {
+            writeIndex();
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes the index of the detected annotated types (merged with the previously generated index).
+     */
+    private void writeIndex()
+    {
+        mergeIndex();
+
+        try
+        {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", BundleIndex.LOCATION);
+            try (OutputStream output = resource.openOutputStream())
+            {
+                BundleIndex.write(output, entries.values());
+            }
+        }
+        catch (IOException e)
+        {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Can't write @Bundle index: '%s'", e.getMessage()));
+        }
+    }
+
+    /**
+     * Merges the entries of the index previously generated in the class output (if any) whose type still exists and
+     * is still annotated with the {@link Bundle} annotation.
+     */
+    private void mergeIndex()
+    {
+        FileObject resource;
+        TypeElement type;
+
+        try
+        {
+            resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", BundleIndex.LOCATION);
+            try (InputStream input = resource.openInputStream())
+            {
+                for (BundleIndex.Entry entry : BundleIndex.read(input))
+                {
+                    if (!entries.containsKey(entry.getClassName()))
+                    {
+                        type = processingEnv.getElementUtils().getTypeElement(entry.getClassName().replace('$', '.'));
+                        if (type != null && type.getAnnotation(Bundle.class) != null)
+                        {
+                            entries.put(entry.getClassName(), entry);
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // No previous index (full compilation), the index only contains the detected annotated types.
+        }
+    }
+}
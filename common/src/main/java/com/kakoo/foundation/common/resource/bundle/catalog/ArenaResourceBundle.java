@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.catalog;
+
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A resource bundle packing its keys and values in a single byte array (the arena) held in the heap.
+ * <p>
+ * Unlike a {@link PropertyResourceBundle}, no string object nor hash table node is held per entry: strings are
+ * encoded in Latin-1 (one byte per character) when possible, in UTF-8 otherwise, and are only materialized when
+ * retrieved. Keys are looked up through an open-addressing index of primitive integers.
+ * <p>
+ * Entry table layout (5 integers per entry):
+ * <pre>
+ * int key hash
+ * int key offset in the arena
+ * int key length in bytes (high bit set when encoded in Latin-1)
+ * int value offset in the arena
+ * int value length in bytes (high bit set when encoded in Latin-1)
+ * </pre>
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+public final class ArenaResourceBundle extends ResourceBundle
+{
+    /**
+     * Number of integers of an entry of the entry table.
+     */
+    private static final int ENTRY_SIZE = 5;
+
+    /**
+     * Flag of the lengths of the strings encoded in Latin-1.
+     */
+    private static final int LATIN1 = 0x80000000;
+
+    /**
+     * Estimated heap size of the bundle object and of the array headers.
+     */
+    private static final int OVERHEAD = 96;
+
+    /**
+     * Encoded keys and values.
+     */
+    private final byte[] arena;
+
+    /**
+     * Entry table.
+     */
+    private final int[] table;
+
+    /**
+     * Open-addressing index of the entries (entry index plus one, {@code 0} for an empty slot).
+     */
+    private final int[] slots;
+
+    /**
+     * Number of entries.
+     */
+    private final int count;
+
+    /**
+     * Creates a new resource bundle packing the own entries (excluding its parents) of the given resource bundle.
+     * <p>
+     * @param bundle Resource bundle containing only string values.
+     */
+    public ArenaResourceBundle(final @NonNull ResourceBundle bundle)
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Set<String> keys = bundle.keySet();
+        int index = 0;
+        int slot;
+
+        count = keys.size();
+        table = new int[count * ENTRY_SIZE];
+        slots = new int[Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1];
+
+        for (String key : keys)
+        {
+            table[index * ENTRY_SIZE] = key.hashCode();
+            encode(output, key, index * ENTRY_SIZE + 1);
+            encode(output, bundle.getString(key), index * ENTRY_SIZE + 3);
+
+            slot = spread(key.hashCode()) & (slots.length - 1);
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = ++index;
+        }
+
+        arena = output.toByteArray();
+    }
+
+    /**
+     * Returns the number of entries of the bundle.
+     * <p>
+     * @return Number of entries (not including the ones of the parent bundles).
+     */
+    public final int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the estimated heap size of the bundle.
+     * <p>
+     * @return Estimated size in bytes.
+     */
+    public final long getWeight()
+    {
+        return OVERHEAD + arena.length + 4L * (table.length + slots.length);
+    }
+
+    /**
+     * Checks if the given bundle holds the same value, free of any placeholder, for the given key.
+     * <p>
+     * The values are compared in their encoded form, so none of them is materialized. As a string is always encoded
+     * the same way, equal strings have equal encoded forms.
+     * <p>
+     * @param key Key.
+     * @param other Other bundle.
+     * @return {@code True} if both bundles own the key with the same value not containing any '{' character,
+     * {@code false} otherwise.
+     */
+    public final boolean sharesValue(final @NonNull String key, final @NonNull ArenaResourceBundle other)
+    {
+        ArenaResourceBundle owner = owner(key);
+        ArenaResourceBundle otherOwner = other.owner(key);
+        int reference;
+        int otherReference;
+        int length;
+
+        if (owner == null || otherOwner == null)
+        {
+            return false;
+        }
+
+        reference = owner.find(key) * ENTRY_SIZE + 3;
+        otherReference = otherOwner.find(key) * ENTRY_SIZE + 3;
+        length = owner.table[reference + 1];
+        if (length != otherOwner.table[otherReference + 1])
+        {
+            return false;
+        }
+
+        // Multi-byte UTF-8 sequences never contain the '{' byte.
+        length &= ~LATIN1;
+        for (int i = 0; i < length; i++)
+        {
+            if (owner.arena[owner.table[reference] + i] == '{' || owner.arena[owner.table[reference] + i] != otherOwner.arena[otherOwner.table[otherReference] + i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the bundle of the arena bundles chain (this bundle and its parents) owning the given key.
+     * <p>
+     * @param key Key.
+     * @return Bundle owning the key or {@code null} if not owned by an arena bundle.
+     */
+    private ArenaResourceBundle owner(final String key)
+    {
+        for (ResourceBundle bundle = this; bundle instanceof ArenaResourceBundle; bundle = ((ArenaResourceBundle) bundle).parent)
+        {
+            if (((ArenaResourceBundle) bundle).find(key) >= 0)
+            {
+                return (ArenaResourceBundle) bundle;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    protected Object handleGetObject(final @NonNull String key)
+    {
+        int index = find(key);
+
+        return index < 0 ? null : decode(index * ENTRY_SIZE + 3);
+    }
+
+    @Override
+    public Enumeration<String> getKeys()
+    {
+        Set<String> keys = new LinkedHashSet<>(handleKeySet());
+
+        if (parent != null)
+        {
+            keys.addAll(Collections.list(parent.getKeys()));
+        }
+
+        return Collections.enumeration(keys);
+    }
+
+    @Override
+    protected Set<String> handleKeySet()
+    {
+        Set<String> keys = new LinkedHashSet<>(count * 4 / 3 + 1);
+
+        for (int i = 0; i < count; i++)
+        {
+            keys.add(decode(i * ENTRY_SIZE + 1));
+        }
+
+        return keys;
+    }
+
+    /**
+     * Looks up the given key in the index.
+     * <p>
+     * @param key Key.
+     * @return Index of the entry or a negative value if not found.
+     */
+    private int find(final String key)
+    {
+        int hash = key.hashCode();
+        int slot = spread(hash) & (slots.length - 1);
+        int index;
+
+        while (slots[slot] != 0)
+        {
+            index = slots[slot] - 1;
+            if (table[index * ENTRY_SIZE] == hash && matches(index * ENTRY_SIZE + 1, key))
+            {
+                return index;
+            }
+
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks if the string referenced at the given position of the entry table is equal to the given key.
+     * <p>
+     * @param reference Position of the offset/length pair in the entry table.
+     * @param key Key.
+     * @return {@code True} if the strings are equal, {@code false} otherwise.
+     */
+    private boolean matches(final int reference, final String key)
+    {
+        int offset = table[reference];
+        int length = table[reference + 1];
+
+        if ((length & LATIN1) == 0)
+        {
+            return decode(reference).equals(key);
+        }
+
+        length &= ~LATIN1;
+        if (length != key.length())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if ((arena[offset + i] & 0xFF) != key.charAt(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Decodes the string referenced at the given position of the entry table.
+     * <p>
+     * @param reference Position of the offset/length pair in the entry table.
+     * @return Decoded string.
+     */
+    private String decode(final int reference)
+    {
+        int length = table[reference + 1];
+
+        return (length & LATIN1) != 0
+                ? new String(arena, table[reference], length & ~LATIN1, StandardCharsets.ISO_8859_1)
+                : new String(arena, table[reference], length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the given string at the end of the arena and records its offset and length in the entry table.
+     * <p>
+     * @param output Arena being built.
+     * @param value String to encode.
+     * @param reference Position of the offset/length pair in the entry table.
+     */
+    private void encode(final ByteArrayOutputStream output, final String value, final int reference)
+    {
+        boolean latin1 = true;
+        byte[] bytes;
+
+        for (int i = 0; i < value.length() && latin1; i++)
+        {
+            latin1 = value.charAt(i) <= 0xFF;
+        }
+
+        bytes = value.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        table[reference] = output.size();
+        table[reference + 1] = latin1 ? bytes.length | LATIN1 : bytes.length;
+        output.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Spreads the high bits of the given hash code to the low bits used to select the index slots.
+     * <p>
+     * @param hash Hash code.
+     * @return Spread hash code.
+     */
+    private static int spread(final int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+}
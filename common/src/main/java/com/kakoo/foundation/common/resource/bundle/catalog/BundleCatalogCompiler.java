@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.catalog;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import lombok.extern.log4j.Log4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Offline compiler turning the {@code .properties} files of a resource bundle family into binary catalogs served by
+ * {@link MappedResourceBundle}.
+ * <p>
+ * Each {@code .properties} file of the family (such as {@code i18n/colors.properties},
+ * {@code i18n/colors_fr.properties}, ...) is compiled into a catalog having the same name and the
+ * {@value #EXTENSION} extension, so that the catalogs can be packaged next to (or instead of) the properties files and
+ * loaded by the {@link BundleCatalogControl}.
+ * <p>
+ * The compiler can be run from a build using: {@code BundleCatalogCompiler <source directory> <output directory>
+ * <base bundle name>...}
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+@UtilityClass
+@Log4j
+public class BundleCatalogCompiler
+{
+    /**
+     * Extension of the catalog files.
+     */
+    public static final String EXTENSION = "kcat";
+
+    /**
+     * Compiles the {@code .properties} files of the given resource bundle families.
+     * <p>
+     * @param arguments Source directory, output directory and base bundle names.
+     * @throws IOException Thrown in case an error occurred while compiling a family.
+     */
+    public static void main(final String[] arguments) throws IOException
+    {
+        if (arguments.length < 3)
+        {
+            System.err.println("Usage: BundleCatalogCompiler <source directory> <output directory> <base bundle name>...");
+            System.exit(1);
+        }
+
+        for (int i = 2; i < arguments.length; i++)
+        {
+            compile(Paths.get(arguments[0]), arguments[i], Paths.get(arguments[1]));
+        }
+    }
+
+    /**
+     * Compiles the {@code .properties} files of a resource bundle family.
+     * <p>
+     * @param sourceDirectory Directory containing the properties files (such as {@code src/main/resources}).
+     * @param baseBundleName Base bundle name (such as {@code i18n/colors}).
+     * @param outputDirectory Directory receiving the catalogs (such as {@code target/classes}).
+     * @return Compiled catalog files.
+     * @throws IOException Thrown in case an error occurred while compiling the family.
+     */
+    public static List<Path> compile(final @NonNull Path sourceDirectory, final @NonNull String baseBundleName, final @NonNull Path outputDirectory) throws IOException
+    {
+        final List<Path> catalogs = new ArrayList<>();
+        final Path base = sourceDirectory.resolve(baseBundleName.replace('.', '/'));
+        final Path directory = base.getParent();
+        final String name = base.getFileName().toString();
+        final Pattern family = Pattern.compile(Pattern.quote(name) + "(_[A-Za-z0-9#_-]+)?\\.properties");
+        Path target;
+
+        if (!Files.isDirectory(directory))
+        {
+            throw new FileNotFoundException(String.format("Can't find resource bundle directory: '%s'", directory));
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+        {
+            for (Path file : files)
+            {
+                String fileName = file.getFileName().toString();
+
+                if (family.matcher(fileName).matches())
+                {
+                    target = outputDirectory.resolve(sourceDirectory.relativize(directory))
+                            .resolve(fileName.substring(0, fileName.length() - "properties".length()) + EXTENSION);
+
+                    Files.createDirectories(target.getParent());
+                    try (InputStream input = Files.newInputStream(file); OutputStream output = Files.newOutputStream(target))
+                    {
+                        compile(input, output);
+                    }
+
+                    catalogs.add(target);
+                    log.info(String.format("Compiled resource bundle file: '%s' to: '%s'", file, target));
+                }
+            }
+        }
+
+        if (catalogs.isEmpty())
+        {
+            throw new FileNotFoundException(String.format("Can't find resource bundle file: '%s'", baseBundleName));
+        }
+
+        return catalogs;
+    }
+
+    /**
+     * Compiles the content of a {@code .properties} file into a catalog.
+     * <p>
+     * The properties are read the same way as a {@link PropertyResourceBundle} would read them.
+     * <p>
+     * @param properties Properties file content.
+     * @param output Output stream receiving the catalog.
+     * @throws IOException Thrown in case an error occurred while reading the properties or writing the catalog.
+     */
+    public static void compile(final @NonNull InputStream properties, final @NonNull OutputStream output) throws IOException
+    {
+        PropertyResourceBundle bundle = new PropertyResourceBundle(properties);
+        Map<String, String> entries = new HashMap<>();
+
+        for (String key : Collections.list(bundle.getKeys()))
+        {
+            entries.put(key, bundle.getString(key));
+        }
+
+        output.write(compile(entries));
+    }
+
+    /**
+     * Compiles the given entries into a catalog.
+     * <p>
+     * @param entries Keys and values.
+     * @return Catalog content.
+     * @throws IOException Thrown in case the catalog cannot be written.
+     */
+    public static byte[] compile(final @NonNull Map<String, String> entries) throws IOException
+    {
+        final List<byte[][]> encoded = new ArrayList<>(entries.size());
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(content);
+        int offset = 0;
+
+        for (Map.Entry<String, String> entry : entries.entrySet())
+        {
+            encoded.add(new byte[][] { entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue().getBytes(StandardCharsets.UTF_8) });
+        }
+
+        // Sorted on the unsigned UTF-8 bytes of the keys as expected by the binary search of the mapped bundles.
+        encoded.sort((first, second) -> compare(first[0], second[0]));
+
+        output.writeInt(MappedResourceBundle.MAGIC);
+        output.writeInt(MappedResourceBundle.FORMAT_VERSION);
+        output.writeInt(encoded.size());
+
+        for (byte[][] entry : encoded)
+        {
+            output.writeInt(offset);
+            output.writeInt(entry[0].length);
+            offset += entry[0].length;
+            output.writeInt(offset);
+            output.writeInt(entry[1].length);
+            offset += entry[1].length;
+        }
+
+        for (byte[][] entry : encoded)
+        {
+            output.write(entry[0]);
+            output.write(entry[1]);
+        }
+
+        output.flush();
+
+        return content.toByteArray();
+    }
+
+    /**
+     * Compares two byte arrays as unsigned bytes.
+     * <p>
+     * @param first First byte array.
+     * @param second Second byte array.
+     * @return Negative, zero or positive value if the first array is less than, equal to or greater than the second.
+     */
+    private static int compare(final byte[] first, final byte[] second)
+    {
+        int limit = Math.min(first.length, second.length);
+        int difference;
+
+        for (int i = 0; i < limit; i++)
+        {
+            difference = (first[i] & 0xFF) - (second[i] & 0xFF);
+            if (difference != 0)
+            {
+                return difference;
+            }
+        }
+
+        return first.length - second.length;
+    }
+}
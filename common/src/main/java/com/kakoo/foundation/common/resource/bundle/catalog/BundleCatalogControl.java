@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.catalog;
+
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * A resource bundle control loading the compiled binary catalogs (see {@link BundleCatalogCompiler}) in priority over
+ * the standard {@code .properties} files and classes.
+ * <p>
+ * Catalogs located in a directory are memory-mapped. Catalogs located in a jar file cannot be mapped and are read
+ * into a direct buffer (outside of the heap). The keys and values of the {@code .properties} files are canonicalized
+ * (see {@link PooledResourceBundle}) or, for the {@link #COMPACT} control, packed in compact arenas (see
+ * {@link ArenaResourceBundle}).
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+public final class BundleCatalogControl extends ResourceBundle.Control
+{
+    /**
+     * Format of the compiled binary catalogs.
+     */
+    public static final String FORMAT_CATALOG = "kakoo.catalog";
+
+    /**
+     * Shared instance.
+     */
+    public static final BundleCatalogControl INSTANCE = new BundleCatalogControl(false);
+
+    /**
+     * Shared instance packing the content of the {@code .properties} files in compact arenas (see
+     * {@link ArenaResourceBundle}).
+     */
+    public static final BundleCatalogControl COMPACT = new BundleCatalogControl(true);
+
+    /**
+     * Supported formats (in priority order).
+     */
+    private static final List<String> FORMATS = Collections.unmodifiableList(Arrays.asList(FORMAT_CATALOG, "java.properties", "java.class"));
+
+    /**
+     * Indicates if the content of the {@code .properties} files is packed in compact arenas.
+     */
+    private final boolean compact;
+
+    /**
+     * Creates a new resource bundle control.
+     * <p>
+     * @param compact Indicates if the content of the {@code .properties} files is packed in compact arenas.
+     */
+    private BundleCatalogControl(final boolean compact)
+    {
+        this.compact = compact;
+    }
+
+    @Override
+    public List<String> getFormats(final @NonNull String baseName)
+    {
+        return FORMATS;
+    }
+
+    @Override
+    public ResourceBundle newBundle(final String baseName, final Locale locale, final String format, final ClassLoader loader, final boolean reload) throws IllegalAccessException, InstantiationException, IOException
+    {
+        ResourceBundle bundle;
+
+        if ("java.properties".equals(format))
+        {
+            bundle = super.newBundle(baseName, locale, format, loader, reload);
+
+            if (bundle == null)
+            {
+                return null;
+            }
+
+            return compact ? new ArenaResourceBundle(bundle) : new PooledResourceBundle(bundle);
+        }
+
+        if (!FORMAT_CATALOG.equals(format))
+        {
+            return super.newBundle(baseName, locale, format, loader, reload);
+        }
+
+        URL url = loader.getResource(toResourceName(toBundleName(baseName, locale), BundleCatalogCompiler.EXTENSION));
+        if (url == null)
+        {
+            return null;
+        }
+
+        if ("file".equals(url.getProtocol()))
+        {
+            try
+            {
+                return MappedResourceBundle.open(Paths.get(url.toURI()));
+            }
+            catch (URISyntaxException e)
+            {
+                throw new IOException(e);
+            }
+        }
+
+        return new MappedResourceBundle(read(url));
+    }
+
+    /**
+     * Reads the content of the given catalog into a direct buffer.
+     * <p>
+     * @param url Catalog URL.
+     * @return Catalog content.
+     * @throws IOException Thrown in case the catalog cannot be read.
+     */
+    private static ByteBuffer read(final @NonNull URL url) throws IOException
+    {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        ByteBuffer buffer;
+        int length;
+
+        try (InputStream input = url.openStream())
+        {
+            while ((length = input.read(chunk)) > 0)
+            {
+                content.write(chunk, 0, length);
+            }
+        }
+
+        buffer = ByteBuffer.allocateDirect(content.size());
+        buffer.put(content.toByteArray());
+        buffer.flip();
+
+        return buffer;
+    }
+}
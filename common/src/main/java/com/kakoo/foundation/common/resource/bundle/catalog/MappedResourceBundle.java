@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.catalog;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A resource bundle served from a compiled binary catalog (see {@link BundleCatalogCompiler}).
+ * <p>
+ * The catalog is usually memory-mapped read-only so that its content is not held in the heap and is shared (through
+ * the page cache) by all the JVMs of a host using the same catalog file. Values are decoded on demand each time they
+ * are retrieved, keys are looked up by a binary search on their UTF-8 encoding.
+ * <p>
+ * Catalog layout (big-endian):
+ * <pre>
+ * int     magic
+ * int     format version
+ * int     number of entries (n)
+ * int[4n] entry table sorted by key: key offset, key length, value offset, value length
+ * byte[]  UTF-8 arena containing the keys and the values (offsets are relative to the start of the arena)
+ * </pre>
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+public final class MappedResourceBundle extends ResourceBundle
+{
+    /**
+     * Catalog magic number.
+     */
+    static final int MAGIC = 0x4B434154;
+
+    /**
+     * Catalog format version.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Size of the catalog header (magic, format version and number of entries).
+     */
+    static final int HEADER_SIZE = 12;
+
+    /**
+     * Size of an entry of the entry table.
+     */
+    static final int ENTRY_SIZE = 16;
+
+    /**
+     * Catalog content (never modified, always accessed using absolute positions).
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Number of entries.
+     */
+    private final int count;
+
+    /**
+     * Position of the arena.
+     */
+    private final int arena;
+
+    /**
+     * Creates a new resource bundle from the given catalog content.
+     * <p>
+     * The entry table is validated once so that a corrupted catalog is rejected when opened rather than when its
+     * entries are retrieved.
+     * <p>
+     * @param buffer Catalog content.
+     * @throws IOException Thrown in case the content is not a valid catalog.
+     */
+    public MappedResourceBundle(final @NonNull ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+
+        if (this.buffer.capacity() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != FORMAT_VERSION)
+        {
+            throw new IOException("Not a resource bundle catalog or unsupported format version");
+        }
+
+        count = this.buffer.getInt(8);
+        if (count < 0 || count > (this.buffer.capacity() - HEADER_SIZE) / ENTRY_SIZE)
+        {
+            throw new IOException("Truncated resource bundle catalog");
+        }
+
+        arena = HEADER_SIZE + count * ENTRY_SIZE;
+        for (int i = 0; i < count; i++)
+        {
+            if (!isInArena(HEADER_SIZE + i * ENTRY_SIZE) || !isInArena(HEADER_SIZE + i * ENTRY_SIZE + 8))
+            {
+                throw new IOException(String.format("Corrupted resource bundle catalog: entry %d is out of bounds", Integer.valueOf(i)));
+            }
+        }
+    }
+
+    /**
+     * Checks if the string referenced at the given position of the entry table lies within the arena.
+     * <p>
+     * @param reference Position of the offset/length pair in the entry table.
+     * @return {@code True} if the string lies within the arena, {@code false} otherwise.
+     */
+    private boolean isInArena(final int reference)
+    {
+        int offset = buffer.getInt(reference);
+        int length = buffer.getInt(reference + 4);
+
+        return offset >= 0 && length >= 0 && offset <= buffer.capacity() - arena - length;
+    }
+
+    /**
+     * Opens the given catalog file as a memory-mapped resource bundle.
+     * <p>
+     * @param file Catalog file.
+     * @return Resource bundle.
+     * @throws IOException Thrown in case the file cannot be mapped or is not a valid catalog.
+     */
+    public static MappedResourceBundle open(final @NonNull Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            // The mapping remains valid once the channel is closed.
+            return new MappedResourceBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the number of entries of the catalog.
+     * <p>
+     * @return Number of entries (not including the ones of the parent bundles).
+     */
+    public final int size()
+    {
+        return count;
+    }
+
+    @Override
+    protected Object handleGetObject(final @NonNull String key)
+    {
+        int index = find(key.getBytes(StandardCharsets.UTF_8));
+
+        return index < 0 ? null : decode(HEADER_SIZE + index * ENTRY_SIZE + 8);
+    }
+
+    @Override
+    public Enumeration<String> getKeys()
+    {
+        Set<String> keys = new LinkedHashSet<>(handleKeySet());
+
+        if (parent != null)
+        {
+            keys.addAll(Collections.list(parent.getKeys()));
+        }
+
+        return Collections.enumeration(keys);
+    }
+
+    @Override
+    protected Set<String> handleKeySet()
+    {
+        Set<String> keys = new LinkedHashSet<>(count * 4 / 3 + 1);
+
+        for (int i = 0; i < count; i++)
+        {
+            keys.add(decode(HEADER_SIZE + i * ENTRY_SIZE));
+        }
+
+        return keys;
+    }
+
+    /**
+     * Looks up the given key using a binary search on the entry table.
+     * <p>
+     * @param key UTF-8 encoded key.
+     * @return Index of the entry or a negative value if not found.
+     */
+    private int find(final byte[] key)
+    {
+        int low = 0;
+        int high = count - 1;
+        int middle;
+        int comparison;
+
+        while (low <= high)
+        {
+            middle = (low + high) >>> 1;
+            comparison = compare(HEADER_SIZE + middle * ENTRY_SIZE, key);
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compares (as unsigned bytes) the key of the given entry with the given key.
+     * <p>
+     * @param entry Position of the entry in the entry table.
+     * @param key UTF-8 encoded key.
+     * @return Negative, zero or positive value if the key of the entry is less than, equal to or greater than the key.
+     */
+    private int compare(final int entry, final byte[] key)
+    {
+        int offset = arena + buffer.getInt(entry);
+        int length = buffer.getInt(entry + 4);
+        int limit = Math.min(length, key.length);
+        int difference;
+
+        for (int i = 0; i < limit; i++)
+        {
+            difference = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0)
+            {
+                return difference;
+            }
+        }
+
+        return length - key.length;
+    }
+
+    /**
+     * Decodes the string referenced at the given position of the entry table.
+     * <p>
+     * @param reference Position of the offset/length pair in the entry table.
+     * @return Decoded string.
+     */
+    private String decode(final int reference)
+    {
+        ByteBuffer view = buffer.duplicate();
+        byte[] bytes = new byte[buffer.getInt(reference + 4)];
+
+        view.position(arena + buffer.getInt(reference));
+        view.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.catalog;
+
+import com.kakoo.foundation.common.resource.bundle.BundleValuePool;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * A resource bundle holding the content of a loaded {@code .properties} file whose keys and values are canonicalized
+ * through the {@link BundleValuePool}, so identical strings of several files or locales are held only once.
+ * <hr>
+ * @author <a href="mailto:christophe.resse@gmail.com">Christophe Resse - Kakoo</a>
+ * @version 1.0.0
+ */
+final class PooledResourceBundle extends ResourceBundle
+{
+    /**
+     * Resource bundle keys and values.
+     */
+    private final Map<String, Object> values;
+
+    /**
+     * Creates a new resource bundle from the own content (excluding its parents) of the given resource bundle.
+     * <p>
+     * @param bundle Loaded resource bundle.
+     */
+    PooledResourceBundle(final @NonNull ResourceBundle bundle)
+    {
+        Object value;
+
+        values = new HashMap<>(Math.max(16, bundle.keySet().size() * 4 / 3 + 1));
+        for (String key : bundle.keySet())
+        {
+            value = bundle.getObject(key);
+            values.put(BundleValuePool.canonicalize(key), value instanceof String ? BundleValuePool.canonicalize((String) value) : value);
+        }
+    }
+
+    @Override
+    protected Object handleGetObject(final @NonNull String key)
+    {
+        return values.get(key);
+    }
+
+    @Override
+    public Enumeration<String> getKeys()
+    {
+        Set<String> keys = new HashSet<>(values.keySet());
+
+        if (parent != null)
+        {
+            keys.addAll(parent.keySet());
+        }
+
+        return Collections.enumeration(keys);
+    }
+
+    @Override
+    protected Set<String> handleKeySet()
+    {
+        return values.keySet();
+    }
+}
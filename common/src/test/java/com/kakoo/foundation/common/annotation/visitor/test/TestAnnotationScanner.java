@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.annotation.visitor.test;
+
+import com.kakoo.foundation.common.annotation.visitor.AnnotationScanner;
+import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
+import com.kakoo.foundation.common.resource.bundle.annotation.Bundle;
+import eu.infomas.annotation.AnnotationDetector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A test case for the annotation scanner.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link AnnotationScanner}
+ */
+public final class TestAnnotationScanner
+{
+    /**
+     * Test the detection of the annotated types belonging to an included package.
+     * <p>
+     * @throws IOException In case an error occurs while scanning the classpath.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testScanIncludedPackage() throws IOException
+    {
+        List<String> detected = scan(new AnnotationScanner().include("com.kakoo.foundation").parallelism(2));
+
+        Assert.assertTrue(detected.contains(KakooFoundationCommonBundle.class.getName()));
+    }
+
+    /**
+     * Test the annotated types belonging to an excluded package are not detected.
+     * <p>
+     * @throws IOException In case an error occurs while scanning the classpath.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testScanExcludedPackage() throws IOException
+    {
+        List<String> detected = scan(new AnnotationScanner().include("com.kakoo").exclude("com.kakoo.foundation.common.resource"));
+
+        Assert.assertFalse(detected.contains(KakooFoundationCommonBundle.class.getName()));
+    }
+
+    /**
+     * Test an invalid parallelism system property falls back to the default parallelism.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testInvalidParallelismProperty()
+    {
+        try
+        {
+            System.setProperty(AnnotationScanner.PROPERTY_PARALLELISM, "-1");
+            Assert.assertEquals(Runtime.getRuntime().availableProcessors(), AnnotationScanner.fromSystemProperties().getParallelism());
+
+            System.setProperty(AnnotationScanner.PROPERTY_PARALLELISM, "abc");
+            Assert.assertEquals(Runtime.getRuntime().availableProcessors(), AnnotationScanner.fromSystemProperties().getParallelism());
+        }
+        finally
+        {
+            System.clearProperty(AnnotationScanner.PROPERTY_PARALLELISM);
+        }
+    }
+
+    /**
+     * Scans the classpath for types annotated with {@link Bundle}.
+     * <p>
+     * @param scanner Annotation scanner.
+     * @return Names of the detected types.
+     * @throws IOException In case an error occurs while scanning the classpath.
+     */
+    private static List<String> scan(final AnnotationScanner scanner) throws IOException
+    {
+        final List<String> detected = new ArrayList<>();
+
+        scanner.scan(new AnnotationDetector.TypeReporter()
+        {
+            @SuppressWarnings("unchecked")
+            @Override
+            public Class<? extends Annotation>[] annotations()
+            {
+                return new Class[] { Bundle.class };
+            }
+
+            @Override
+            public void reportTypeAnnotation(final Class<? extends Annotation> annotation, final String className)
+            {
+                detected.add(className);
+            }
+        });
+
+        return detected;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.annotation.visitor.test;
+
+import com.kakoo.foundation.common.annotation.visitor.AnnotationScanner;
+import com.kakoo.foundation.common.annotation.visitor.AnnotationVisitorCoordinator;
+import com.kakoo.foundation.common.annotation.visitor.IAnnotationTypeVisitor;
+import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
+import com.kakoo.foundation.common.resource.bundle.annotation.Bundle;
+import com.kakoo.foundation.common.resource.bundle.annotation.BundleAnnotationTypeVisitor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A test case for the annotation visitor coordinator.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link AnnotationVisitorCoordinator}
+ */
+public final class TestAnnotationVisitorCoordinator
+{
+    /**
+     * Test the visitors declared as services are discovered.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testLoadServices()
+    {
+        AnnotationVisitorCoordinator coordinator = AnnotationVisitorCoordinator.load(getClass().getClassLoader());
+
+        Assert.assertFalse(coordinator.addIfAbsent(new BundleAnnotationTypeVisitor()));
+    }
+
+    /**
+     * Test the visitors of a given type can be removed (when their annotated types are restored from a snapshot).
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testRemove()
+    {
+        RecordingVisitor other = new RecordingVisitor();
+        AnnotationVisitorCoordinator coordinator = new AnnotationVisitorCoordinator(Arrays.asList(new BundleAnnotationTypeVisitor(), other));
+
+        Assert.assertTrue(coordinator.remove(BundleAnnotationTypeVisitor.class));
+        Assert.assertEquals(Collections.singletonList(other), coordinator.getVisitors());
+        Assert.assertFalse(coordinator.remove(BundleAnnotationTypeVisitor.class));
+    }
+
+    /**
+     * Test a single scan dispatches the detected types to all the interested visitors.
+     * <p>
+     * @throws IOException In case an error occurs while scanning the classpath.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testDetectDispatch() throws IOException
+    {
+        RecordingVisitor first = new RecordingVisitor();
+        RecordingVisitor second = new RecordingVisitor();
+        AnnotationVisitorCoordinator coordinator = new AnnotationVisitorCoordinator(Arrays.asList(first, second));
+
+        coordinator.detect(getClass().getClassLoader(), new AnnotationScanner().include("com.kakoo.foundation"));
+
+        Assert.assertTrue(first.detected.contains(KakooFoundationCommonBundle.class.getName()));
+        Assert.assertEquals(first.detected, second.detected);
+    }
+
+    /**
+     * Test the classpath roots indexed by all the visitors involved in the scan are not scanned.
+     * <p>
+     * @throws IOException In case an error occurs while scanning the classpath.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testDetectIndexedRoots() throws IOException
+    {
+        RecordingVisitor indexed = new RecordingVisitor(true);
+        RecordingVisitor other = new RecordingVisitor();
+        AnnotationScanner scanner = new AnnotationScanner().include("com.kakoo.foundation");
+
+        new AnnotationVisitorCoordinator(Collections.singletonList(indexed)).detect(getClass().getClassLoader(), scanner);
+        Assert.assertTrue(indexed.detected.isEmpty());
+
+        new AnnotationVisitorCoordinator(Arrays.asList(indexed, other)).detect(getClass().getClassLoader(), scanner);
+        Assert.assertTrue(other.detected.contains(KakooFoundationCommonBundle.class.getName()));
+    }
+
+    /**
+     * Visitor recording the types annotated with {@link Bundle}.
+     */
+    private static final class RecordingVisitor implements IAnnotationTypeVisitor
+    {
+        /**
+         * Names of the detected types.
+         */
+        private final List<String> detected = new ArrayList<>();
+
+        /**
+         * Indicates if all the classpath roots are considered as indexed.
+         */
+        private final boolean indexed;
+
+        /**
+         * Creates a new visitor not supporting any index.
+         */
+        private RecordingVisitor()
+        {
+            this(false);
+        }
+
+        /**
+         * Creates a new visitor.
+         * <p>
+         * @param indexed Indicates if all the classpath roots are considered as indexed.
+         */
+        private RecordingVisitor(final boolean indexed)
+        {
+            this.indexed = indexed;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Class<? extends Annotation>[] annotations()
+        {
+            return new Class[] { Bundle.class };
+        }
+
+        @Override
+        public void reportTypeAnnotation(final Class<? extends Annotation> annotation, final String className)
+        {
+            detected.add(className);
+        }
+
+        @Override
+        public void delegateRegistration()
+        {
+            // Nothing to register.
+        }
+
+        @Override
+        public boolean isIndexed(final File root)
+        {
+            return indexed;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.exception.test;
+
+import com.kakoo.foundation.common.exception.InvalidArgumentException;
+import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Locale;
+
+/**
+ * A test case for the lazily resolved messages of the exceptions created from enumerated values.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link com.kakoo.foundation.common.exception.AbstractUncheckedException}
+ */
+public final class TestExceptionMessage
+{
+    /**
+     * Test the message of an exception is resolved, formatted and memoized on first access.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testLazyMessage()
+    {
+        InvalidArgumentException exception = new InvalidArgumentException(KakooFoundationCommonBundle.TEST_DUMMY);
+        String message = exception.getMessage();
+
+        Assert.assertEquals(ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY), message);
+        Assert.assertSame(message, exception.getMessage());
+        Assert.assertSame(message, exception.getLocalizedMessage());
+    }
+
+    /**
+     * Test the message of an exception can be rendered in a given locale.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testLocaleMessage()
+    {
+        InvalidArgumentException exception = new InvalidArgumentException(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, "gelb", "Erdbeere");
+
+        Assert.assertEquals("Die gewählte Farbe ist: 'gelb' und die ausgewählte Frucht ist: 'Erdbeere'", exception.getMessage(Locale.GERMAN));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.exception.test;
+
+import com.kakoo.foundation.common.exception.AbstractUncheckedException;
+import com.kakoo.foundation.common.exception.InvalidArgumentException;
+import com.kakoo.foundation.common.exception.StackTracePolicy;
+import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleException;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Locale;
+
+/**
+ * A test case for the stackless and preallocated exceptions.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link StackTracePolicy}
+ */
+public final class TestStackTracePolicy
+{
+    /**
+     * Tears down the fixture.
+     */
+    @After
+    public final void tearDown()
+    {
+        StackTracePolicy.reset();
+        StackTracePolicy.setForced(false);
+    }
+
+    /**
+     * Test the exceptions of a stackless class have no stack trace.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testStacklessClass()
+    {
+        Assert.assertNotEquals(0, new InvalidArgumentException("message").getStackTrace().length);
+
+        StackTracePolicy.setStackless(InvalidArgumentException.class, true);
+        Assert.assertEquals(0, new InvalidArgumentException("message").getStackTrace().length);
+        Assert.assertEquals(0, new InvalidArgumentException(KakooFoundationCommonBundle.TEST_DUMMY).getStackTrace().length);
+
+        StackTracePolicy.setForced(true);
+        Assert.assertNotEquals(0, new InvalidArgumentException("message").getStackTrace().length);
+    }
+
+    /**
+     * Test the exceptions created from a stackless enumerated value have no stack trace.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testStacklessKey()
+    {
+        StackTracePolicy.setStackless(KakooFoundationCommonBundle.TEST_DUMMY, true);
+
+        Assert.assertEquals(0, new InvalidArgumentException(KakooFoundationCommonBundle.TEST_DUMMY).getStackTrace().length);
+        Assert.assertNotEquals(0, new InvalidArgumentException(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE).getStackTrace().length);
+    }
+
+    /**
+     * Test the decision taken for a stackless enumerated value does not apply to the next exception created by the
+     * thread when the stack trace of the exception has not been filled in.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testStacklessKeyNotFilledIn()
+    {
+        StackTracePolicy.setStackless(KakooFoundationCommonBundle.TEST_DUMMY, true);
+
+        Assert.assertNotNull(new UnfilledException(KakooFoundationCommonBundle.TEST_DUMMY));
+        Assert.assertNotEquals(0, new InvalidArgumentException(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE).getStackTrace().length);
+        Assert.assertNotEquals(0, new InvalidArgumentException("message").getStackTrace().length);
+    }
+
+    /**
+     * Test the cause of the exceptions created from an enumerated value can still be initialized.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testInitCause()
+    {
+        IllegalStateException cause = new IllegalStateException("cause");
+
+        Assert.assertSame(cause, new ResourceBundleException(KakooFoundationCommonBundle.TEST_DUMMY).initCause(cause).getCause());
+
+        StackTracePolicy.setStackless(KakooFoundationCommonBundle.TEST_DUMMY, true);
+        ResourceBundleException exception = new ResourceBundleException(KakooFoundationCommonBundle.TEST_DUMMY);
+        Assert.assertSame(cause, exception.initCause(cause).getCause());
+        Assert.assertEquals(0, exception.getStackTrace().length);
+    }
+
+    /**
+     * Test the preallocated exceptions are shared and immutable.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testSharedException()
+    {
+        InvalidArgumentException exception = InvalidArgumentException.shared(KakooFoundationCommonBundle.TEST_DUMMY);
+
+        Assert.assertSame(exception, InvalidArgumentException.shared(KakooFoundationCommonBundle.TEST_DUMMY));
+        Assert.assertEquals(0, exception.getStackTrace().length);
+
+        exception.addSuppressed(new IllegalStateException());
+        Assert.assertEquals(0, exception.getSuppressed().length);
+
+        StackTracePolicy.setForced(true);
+        Assert.assertNotSame(exception, InvalidArgumentException.shared(KakooFoundationCommonBundle.TEST_DUMMY));
+    }
+
+    /**
+     * Test the message of a shared exception follows the locale of the resource bundle manager.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testSharedExceptionLocale()
+    {
+        Locale locale = ResourceBundleManager.getLocale();
+        ResourceBundleException exception = ResourceBundleException.shared(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE);
+
+        ResourceBundleManager.register("i18n/kakoo-foundation-common", Locale.ENGLISH);
+        ResourceBundleManager.register("i18n/kakoo-foundation-common", Locale.FRENCH);
+        try
+        {
+            ResourceBundleManager.setLocale(Locale.ENGLISH);
+            Assert.assertEquals("English", exception.getMessage());
+
+            ResourceBundleManager.setLocale(Locale.FRENCH);
+            Assert.assertEquals("Fran\u00e7ais", exception.getMessage());
+        }
+        finally
+        {
+            ResourceBundleManager.setLocale(locale);
+        }
+    }
+
+    /**
+     * An exception never filling in its stack trace.
+     */
+    private static final class UnfilledException extends AbstractUncheckedException
+    {
+        /**
+         * Default serialization identifier.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Creates a new exception.
+         * <p>
+         * @param key Exception key.
+         */
+        private UnfilledException(final Enum<?> key)
+        {
+            super(key, new Object[0]);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    }
+}
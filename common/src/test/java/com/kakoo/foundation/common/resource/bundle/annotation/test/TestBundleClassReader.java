@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.annotation.test;
+
+import com.kakoo.foundation.common.resource.bundle.annotation.BundleClassReader;
+import com.kakoo.foundation.common.resource.bundle.annotation.BundleIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * A test case for the reading of the {@link com.kakoo.foundation.common.resource.bundle.annotation.Bundle} annotation
+ * element values from class files.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link BundleClassReader}
+ */
+public final class TestBundleClassReader
+{
+    /**
+     * Test the reading of the annotation element values of an annotated type.
+     * <p>
+     * @throws IOException In case an error occurs while reading the class file.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testReadAnnotatedType() throws IOException
+    {
+        String className = "com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle";
+        BundleIndex.Entry entry = BundleClassReader.read(getClass().getClassLoader(), className);
+
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(className, entry.getClassName());
+        Assert.assertEquals("i18n/kakoo-foundation-common", entry.getFile());
+        Assert.assertEquals("kakoo-foundation-common.", entry.getRoot());
+        Assert.assertEquals(1, entry.getPriority());
+    }
+
+    /**
+     * Test the reading of a type not annotated with the annotation.
+     * <p>
+     * @throws IOException In case an error occurs while reading the class file.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testReadNotAnnotatedType() throws IOException
+    {
+        Assert.assertNull(BundleClassReader.read(getClass().getClassLoader(), BundleIndex.class.getName()));
+    }
+}
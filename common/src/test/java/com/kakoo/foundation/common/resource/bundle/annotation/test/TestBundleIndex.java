@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.annotation.test;
+
+import com.kakoo.foundation.common.resource.bundle.annotation.BundleIndex;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A test case for the build-time index of the {@link com.kakoo.foundation.common.resource.bundle.annotation.Bundle}
+ * annotated types.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link BundleIndex}
+ */
+public final class TestBundleIndex
+{
+    /**
+     * Temporary folder (deleted once each test completes).
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test the index entries written can be read back.
+     * <p>
+     * @throws IOException In case an error occurs while writing or reading the index.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testWriteRead() throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        BundleIndex.write(output, Arrays.asList(
+                new BundleIndex.Entry("com.kakoo.Fruits", "i18n/fruits", "fruit.", 10),
+                new BundleIndex.Entry("com.kakoo.Colors$Nested", "i18n/colors", "color", 100)));
+
+        List<BundleIndex.Entry> entries = BundleIndex.read(new ByteArrayInputStream(output.toByteArray()));
+
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals("com.kakoo.Fruits", entries.get(0).getClassName());
+        Assert.assertEquals("i18n/fruits", entries.get(0).getFile());
+        Assert.assertEquals("fruit.", entries.get(0).getRoot());
+        Assert.assertEquals(10, entries.get(0).getPriority());
+        Assert.assertEquals("com.kakoo.Colors$Nested", entries.get(1).getClassName());
+        Assert.assertEquals(100, entries.get(1).getPriority());
+    }
+
+    /**
+     * Test an invalid index line is rejected.
+     * <p>
+     * @throws IOException Expected as the index is invalid.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test(expected = IOException.class)
+    public final void testReadInvalid() throws IOException
+    {
+        BundleIndex.read(new ByteArrayInputStream("com.kakoo.Fruits\ti18n/fruits\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Test the index resources are grouped by the classpath root containing them.
+     * <p>
+     * @throws IOException In case an error occurs while writing or reading the index.
+     */
+    @SuppressWarnings("nls")
+    @Test
+    public final void testLoadByRoot() throws IOException
+    {
+        File root = folder.newFolder("kakoo-index");
+        File index = new File(root, BundleIndex.LOCATION);
+        Map<File, List<BundleIndex.Entry>> entries;
+
+        Assert.assertTrue(index.getParentFile().mkdirs());
+        try (OutputStream output = new FileOutputStream(index))
+        {
+            BundleIndex.write(output, Arrays.asList(new BundleIndex.Entry("com.kakoo.Fruits", "i18n/fruits", "fruit.", 10)));
+        }
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null))
+        {
+            entries = BundleIndex.loadByRoot(loader);
+        }
+
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals(root.getCanonicalFile(), entries.keySet().iterator().next().getCanonicalFile());
+        Assert.assertEquals("com.kakoo.Fruits", entries.get(entries.keySet().iterator().next()).get(0).getClassName());
+    }
+}
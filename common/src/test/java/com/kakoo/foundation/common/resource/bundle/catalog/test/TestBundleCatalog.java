@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.catalog.test;
+
+import com.kakoo.foundation.common.resource.bundle.catalog.ArenaResourceBundle;
+import com.kakoo.foundation.common.resource.bundle.catalog.BundleCatalogCompiler;
+import com.kakoo.foundation.common.resource.bundle.catalog.BundleCatalogControl;
+import com.kakoo.foundation.common.resource.bundle.catalog.MappedResourceBundle;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * A test case for the compiled binary catalogs.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link BundleCatalogCompiler}
+ * see {@link MappedResourceBundle}
+ * see {@link ArenaResourceBundle}
+ */
+public final class TestBundleCatalog
+{
+    /**
+     * Temporary folder (deleted once each test completes).
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test a compiled catalog serves the same entries as its properties file.
+     * <p>
+     * @throws Exception In case an error occurs while compiling or reading the catalog.
+     */
+    @SuppressWarnings("nls")
+    @Test
+    public final void testCompileFamily() throws Exception
+    {
+        Path output = folder.newFolder("catalog").toPath();
+        List<Path> catalogs = BundleCatalogCompiler.compile(getSourceDirectory(), "i18n/colors", output);
+        ResourceBundle expected = ResourceBundle.getBundle("i18n/colors", Locale.FRENCH);
+        MappedResourceBundle bundle = MappedResourceBundle.open(output.resolve("i18n/colors_fr.kcat"));
+
+        Assert.assertTrue(catalogs.contains(output.resolve("i18n/colors.kcat")));
+        Assert.assertEquals(Collections.list(expected.getKeys()).size(), bundle.size());
+        for (String key : Collections.list(expected.getKeys()))
+        {
+            Assert.assertEquals(expected.getString(key), bundle.getString(key));
+        }
+
+        Assert.assertFalse(bundle.containsKey("color.unknown.name"));
+    }
+
+    /**
+     * Test the catalogs are loaded in priority by the catalog control.
+     * <p>
+     * @throws Exception In case an error occurs while compiling or loading the catalog.
+     */
+    @SuppressWarnings("nls")
+    @Test
+    public final void testControl() throws Exception
+    {
+        Path output = folder.newFolder("catalog").toPath();
+        Map<String, String> entries = new HashMap<>();
+
+        entries.put("greeting", "Gr\u00fc\u00df dich {0}");
+        entries.put("farewell", "Tsch\u00fcss");
+        Files.createDirectories(output.resolve("i18n"));
+        Files.write(output.resolve("i18n/greetings_de.kcat"), BundleCatalogCompiler.compile(entries));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, null))
+        {
+            ResourceBundle bundle = ResourceBundle.getBundle("i18n/greetings", Locale.GERMAN, loader, BundleCatalogControl.INSTANCE);
+
+            Assert.assertTrue(bundle instanceof MappedResourceBundle);
+            Assert.assertEquals("Gr\u00fc\u00df dich {0}", bundle.getString("greeting"));
+            Assert.assertEquals(new HashSet<>(entries.keySet()), bundle.keySet());
+        }
+    }
+
+    /**
+     * Test a corrupted catalog is rejected when opened.
+     * <p>
+     * @throws Exception In case an error occurs while compiling the catalog.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testCorruptedCatalog() throws Exception
+    {
+        Map<String, String> entries = new HashMap<>();
+        ByteBuffer catalog;
+
+        entries.put("greeting", "Hello");
+        catalog = ByteBuffer.wrap(BundleCatalogCompiler.compile(entries));
+        Assert.assertEquals("Hello", new MappedResourceBundle(catalog).getString("greeting"));
+
+        // Number of entries overflowing the size of the entry table.
+        assertCorrupted(catalog.duplicate().putInt(8, Integer.MAX_VALUE));
+        assertCorrupted(catalog.duplicate().putInt(8, -1));
+
+        // Value length exceeding the arena.
+        catalog = ByteBuffer.wrap(BundleCatalogCompiler.compile(entries));
+        assertCorrupted(catalog.duplicate().putInt(24, 1000));
+
+        // Negative key offset.
+        catalog = ByteBuffer.wrap(BundleCatalogCompiler.compile(entries));
+        assertCorrupted(catalog.duplicate().putInt(12, -1));
+    }
+
+    /**
+     * Test a compact arena serves the same entries as the resource bundle it is built from.
+     * <p>
+     * @throws Exception In case an error occurs while reading the properties.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testArena() throws Exception
+    {
+        ResourceBundle expected = new PropertyResourceBundle(new StringReader("greeting=Gr\\u00fc\\u00df dich {0}\nfarewell=Tsch\\u00fcss\nhello=\\u3053\\u3093\\u306b\\u3061\\u306f\n\\u30ad\\u30fc=key\n"));
+        ArenaResourceBundle bundle = new ArenaResourceBundle(expected);
+
+        Assert.assertEquals(4, bundle.size());
+        Assert.assertEquals(expected.keySet(), bundle.keySet());
+        for (String key : expected.keySet())
+        {
+            Assert.assertEquals(expected.getString(key), bundle.getString(key));
+        }
+
+        Assert.assertFalse(bundle.containsKey("greetings"));
+        Assert.assertTrue(bundle.getWeight() > 0);
+
+        // Values are compared in their encoded form, values containing placeholders are never shared.
+        ArenaResourceBundle other = new ArenaResourceBundle(new PropertyResourceBundle(new StringReader("farewell=Tsch\\u00fcss\nhello=hi\n")));
+        Assert.assertTrue(bundle.sharesValue("farewell", other));
+        Assert.assertFalse(bundle.sharesValue("hello", other));
+        Assert.assertFalse(bundle.sharesValue("greeting", bundle));
+        Assert.assertFalse(bundle.sharesValue("greeting", other));
+    }
+
+    /**
+     * Asserts the given catalog content is rejected.
+     * <p>
+     * @param catalog Catalog content.
+     */
+    private static void assertCorrupted(final ByteBuffer catalog)
+    {
+        try
+        {
+            new MappedResourceBundle(catalog);
+            Assert.fail("Corrupted catalog accepted");
+        }
+        catch (IOException e)
+        {
+            // Expected.
+        }
+    }
+
+    /**
+     * Returns the directory containing the test resources.
+     * <p>
+     * @return Test resources directory.
+     * @throws IOException In case the test resources cannot be found.
+     * @throws URISyntaxException In case the test resources cannot be found.
+     */
+    private static Path getSourceDirectory() throws IOException, URISyntaxException
+    {
+        URL url = TestBundleCatalog.class.getClassLoader().getResource("i18n/colors.properties");
+
+        if (url == null)
+        {
+            throw new IOException("Can't find test resources");
+        }
+
+        return Paths.get(url.toURI()).getParent().getParent();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import lombok.extern.log4j.Log4j;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A multi-threaded benchmark of the resource bundle manager read path.
+ * <p>
+ * The benchmark measures the throughput of {@link ResourceBundleManager#get(Enum, Locale, Object...)} and
+ * {@link ResourceBundleManager#get(String, Locale, Object...)} with an increasing number of threads (from one up to
+ * the number of available processors). As the read path does not acquire the manager lock once initialized, the
+ * throughput is expected to grow with the number of threads: the benchmark fails if the throughput measured with all
+ * the processors is lower than {@link #MIN_SCALING} times the single thread throughput per thread.
+ * <p>
+ * This class is not part of the regular test suite; run it using the {@code benchmark} profile:
+ * <code>mvn test -Pbenchmark</code>
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * @see ResourceBundleManager
+ */
+@Log4j
+public final class BenchmarkResourceBundleManager
+{
+    /**
+     * Duration of the warm up phase (in milliseconds).
+     */
+    private static final long WARMUP_DURATION = 500;
+
+    /**
+     * Duration of a measurement for a given number of threads (in milliseconds).
+     */
+    private static final long MEASURE_DURATION = 1000;
+
+    /**
+     * Minimum ratio between the throughput per thread measured with all the processors and the single thread
+     * throughput.
+     */
+    private static final double MIN_SCALING = 0.5;
+
+    /**
+     * Initialization of the benchmark.
+     */
+    @BeforeClass
+    public static final void setUpBeforeClass()
+    {
+        ResourceBundleManager.initialize();
+    }
+
+    /**
+     * Benchmarks the retrieving of resource bundle values using an enumerated key.
+     * <p>
+     * @throws InterruptedException Thrown in case the benchmark has been interrupted.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void benchmarkEnumKey() throws InterruptedException
+    {
+        benchmark("get(Enum, Locale)", () -> ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY, Locale.ENGLISH));
+    }
+
+    /**
+     * Benchmarks the retrieving of resource bundle values using a string key and parameters.
+     * <p>
+     * @throws InterruptedException Thrown in case the benchmark has been interrupted.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void benchmarkStringKeyFormatted() throws InterruptedException
+    {
+        benchmark("get(String, Locale, Object...)", () -> ResourceBundleManager.get("kakoo-foundation-common.resource.bundle.alreadyRegistered", Locale.ENGLISH, "a", "b"));
+    }
+
+    /**
+     * Runs the given operation with an increasing number of threads, logs the measured throughput and checks it
+     * scales with the number of threads.
+     * <p>
+     * @param name Name of the benchmarked operation.
+     * @param operation Operation to benchmark.
+     * @throws InterruptedException Thrown in case the benchmark has been interrupted.
+     */
+    private static void benchmark(final String name, final Callable<String> operation) throws InterruptedException
+    {
+        int processors = Runtime.getRuntime().availableProcessors();
+        List<Integer> threads = new ArrayList<>();
+        long single = 0;
+        long throughput = 0;
+
+        for (int count = 1; count < processors; count *= 2)
+        {
+            threads.add(count);
+        }
+        threads.add(processors);
+
+        // Warm up the read path.
+        measure(operation, processors, WARMUP_DURATION);
+
+        for (int count : threads)
+        {
+            throughput = measure(operation, count, MEASURE_DURATION) * 1000 / MEASURE_DURATION;
+            if (count == 1)
+            {
+                single = throughput;
+            }
+            log.info(String.format("Benchmark: '%s', threads: %d, throughput: %d ops/s", name, count, throughput));
+        }
+
+        Assert.assertTrue(single > 0);
+        Assert.assertTrue(String.format("Throughput of '%s' does not scale: %d ops/s with 1 thread, %d ops/s with %d threads", name, single, throughput, processors), throughput >= MIN_SCALING * processors * single);
+    }
+
+    /**
+     * Executes the given operation concurrently on the given number of threads for the given duration.
+     * <p>
+     * @param operation Operation to execute.
+     * @param threads Number of threads.
+     * @param duration Duration (in milliseconds).
+     * @return Total number of executed operations.
+     * @throws InterruptedException Thrown in case the measurement has been interrupted.
+     */
+    private static long measure(final Callable<String> operation, final int threads, final long duration) throws InterruptedException
+    {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final LongAdder counter = new LongAdder();
+
+        for (int i = 0; i < threads; i++)
+        {
+            executor.execute(() ->
+            {
+                try
+                {
+                    start.await();
+                    while (running.get())
+                    {
+                        operation.call();
+                        counter.increment();
+                    }
+                }
+                catch (Exception e)
+                {
+                    log.error(e.getMessage(), e);
+                }
+            });
+        }
+
+        start.countDown();
+        Thread.sleep(duration);
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        return counter.sum();
+    }
+}
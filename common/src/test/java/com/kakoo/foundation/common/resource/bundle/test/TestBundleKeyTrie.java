@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.BundleEntry;
+import com.kakoo.foundation.common.resource.bundle.BundleKeyTrie;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * A test case for the prefix queries on the resource bundle keys.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link BundleKeyTrie}
+ */
+public final class TestBundleKeyTrie
+{
+    /**
+     * Test the entries below a prefix are returned sorted by key.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testSubtree()
+    {
+        List<BundleEntry> entries = new ArrayList<>();
+
+        for (String key : Arrays.asList("b", "a.bc", "a", "a.b", "a.c.d"))
+        {
+            entries.add(new BundleEntry("test", Locale.ENGLISH, key, key.toUpperCase(), 0));
+        }
+
+        BundleKeyTrie trie = new BundleKeyTrie(entries);
+
+        Assert.assertEquals(5, trie.getSize());
+        Assert.assertEquals(Arrays.asList("a", "a.b", "a.bc", "a.c.d", "b"), keys(trie.getSubtree("")));
+        Assert.assertEquals(Arrays.asList("a.b", "a.bc", "a.c.d"), keys(trie.getSubtree("a.")));
+        Assert.assertEquals(Arrays.asList("a.b", "a.bc"), keys(trie.getSubtree("a.b")));
+        Assert.assertEquals(Collections.singletonList("a.c.d"), keys(trie.getSubtree("a.c")));
+        Assert.assertTrue(trie.getSubtree("a.bd").isEmpty());
+        Assert.assertTrue(trie.getSubtree("c").isEmpty());
+    }
+
+    /**
+     * Test the values of a section of the resource bundles are retrieved through the manager.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testManagerSubtree()
+    {
+        ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+
+        SortedMap<String, String> values = ResourceBundleManager.getSubtree("color.", Locale.FRENCH);
+
+        Assert.assertEquals("Jaune", values.get("color.yellow.name"));
+        Assert.assertEquals("Bleu", values.get("color.blue.name"));
+        Assert.assertTrue(ResourceBundleManager.getSubtree("color.unknown.", Locale.FRENCH).isEmpty());
+    }
+
+    /**
+     * Returns the keys of the given entries.
+     * <p>
+     * @param entries Resource bundle entries.
+     * @return Keys.
+     */
+    private static List<String> keys(final List<BundleEntry> entries)
+    {
+        List<String> keys = new ArrayList<>();
+
+        for (BundleEntry entry : entries)
+        {
+            keys.add(entry.getKey());
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.BundleRegistry;
+import com.kakoo.foundation.common.resource.bundle.BundleSnapshot;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A test case for the persistent snapshots of the resource bundle manager state.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link BundleSnapshot}
+ */
+public final class TestBundleSnapshot
+{
+    /**
+     * Temporary folder (deleted once each test completes).
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test a written snapshot is restored with the same entries.
+     * <p>
+     * @throws IOException In case an error occurs while writing the snapshot.
+     */
+    @SuppressWarnings("nls")
+    @Test
+    public final void testWriteRead() throws IOException
+    {
+        Path directory = folder.newFolder("snapshot").toPath();
+        BundleSnapshot snapshot = new BundleSnapshot(directory.resolve("bundle.snapshot"), Collections.singletonList(directory));
+        BundleRegistry registry = createRegistry();
+
+        snapshot.write(Locale.ENGLISH, Collections.singletonMap("annotation", Collections.singletonMap("type", "i18n/colors")),
+                Collections.singletonMap("i18n/colors", 5), registry);
+
+        BundleSnapshot.Content content = snapshot.read(Locale.ENGLISH);
+
+        Assert.assertNotNull(content);
+        Assert.assertEquals("i18n/colors", content.getAnnotations().get("annotation").get("type"));
+        Assert.assertEquals(Integer.valueOf(5), content.getPriorities().get("i18n/colors"));
+        Assert.assertEquals(registry.getLocales(), content.getRegistry().getLocales());
+        Assert.assertEquals(registry.getEntries(Locale.FRENCH).keySet(), content.getRegistry().getEntries(Locale.FRENCH).keySet());
+        Assert.assertEquals(registry.getEntry("color.red.name", Locale.FRENCH).getValue(), content.getRegistry().getEntry("color.red.name", Locale.FRENCH).getValue());
+        Assert.assertTrue(content.getRegistry().exist("i18n/colors", Locale.FRENCH));
+
+        // Snapshot written for another locale.
+        Assert.assertNull(snapshot.read(Locale.GERMAN));
+    }
+
+    /**
+     * Test a snapshot is ignored when the classpath changed or when it is corrupted.
+     * <p>
+     * @throws IOException In case an error occurs while writing the snapshot.
+     */
+    @SuppressWarnings("nls")
+    @Test
+    public final void testInvalidSnapshot() throws IOException
+    {
+        Path directory = folder.newFolder("snapshot").toPath();
+        Path file = directory.resolve("bundle.snapshot");
+        Path classpath = Files.createDirectory(directory.resolve("classes"));
+        byte[] content;
+
+        new BundleSnapshot(file, Collections.singletonList(classpath)).write(Locale.ENGLISH, Collections.emptyMap(), Collections.emptyMap(), createRegistry());
+        Assert.assertNotNull(new BundleSnapshot(file, Collections.singletonList(classpath)).read(Locale.ENGLISH));
+
+        // Classpath changed.
+        Files.write(classpath.resolve("added.properties"), "key=value".getBytes("UTF-8"));
+        Assert.assertNull(new BundleSnapshot(file, Collections.singletonList(classpath)).read(Locale.ENGLISH));
+
+        // Corrupted snapshot.
+        new BundleSnapshot(file, Collections.singletonList(classpath)).write(Locale.ENGLISH, Collections.emptyMap(), Collections.emptyMap(), createRegistry());
+        content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 0x7F;
+        Files.write(file, content);
+        Assert.assertNull(new BundleSnapshot(file, Collections.singletonList(classpath)).read(Locale.ENGLISH));
+    }
+
+    /**
+     * Creates a registry containing the test resource bundle in English and French.
+     * <p>
+     * @return Registry.
+     */
+    private static BundleRegistry createRegistry()
+    {
+        return BundleRegistry.EMPTY.toBuilder()
+                .register(ResourceBundle.getBundle("i18n/colors", Locale.ENGLISH), Locale.ENGLISH, 5)
+                .register(ResourceBundle.getBundle("i18n/colors", Locale.FRENCH), Locale.FRENCH, 5)
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.LocaleFormatters;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * A test case for the formatters cached per locale.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link LocaleFormatters}
+ */
+public final class TestLocaleFormatters
+{
+    /**
+     * Locales to test.
+     */
+    private static final Locale[] LOCALES = { Locale.ENGLISH, Locale.FRENCH, Locale.GERMANY, new Locale("hi", "IN"), new Locale("th", "TH"), new Locale("ar", "EG") };
+
+    /**
+     * Test the formatters are shared per locale.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testShared()
+    {
+        Assert.assertSame(LocaleFormatters.of(Locale.FRENCH), LocaleFormatters.of(Locale.FRENCH));
+        Assert.assertNotSame(LocaleFormatters.of(Locale.FRENCH), LocaleFormatters.of(Locale.GERMAN));
+    }
+
+    /**
+     * Test the numbers are formatted the same way as with a number format.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFormatNumber()
+    {
+        long[] integers = { 0, 7, -42, 12345, -1234567, Long.MIN_VALUE, Long.MAX_VALUE };
+        double[] decimals = { 0.5, -3.14159, 1234567.891 };
+
+        for (Locale locale : LOCALES)
+        {
+            for (long value : integers)
+            {
+                Assert.assertEquals(NumberFormat.getInstance(locale).format(value), LocaleFormatters.of(locale).format(value));
+            }
+
+            for (double value : decimals)
+            {
+                Assert.assertEquals(NumberFormat.getInstance(locale).format(value), LocaleFormatters.of(locale).format(value));
+            }
+        }
+    }
+
+    /**
+     * Test the dates are formatted the same way as with a date format.
+     *
+     * @throws IOException Thrown in case an error occurred while formatting a date.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFormatDate() throws IOException
+    {
+        Date date = new Date(1700000000000L);
+        StringBuilder output = new StringBuilder();
+
+        for (Locale locale : LOCALES)
+        {
+            output.setLength(0);
+            LocaleFormatters.of(locale).formatDate(output, date);
+            Assert.assertEquals(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale).format(date), output.toString());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
+import com.kakoo.foundation.common.resource.bundle.MessageCache;
+import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A test case for the cache of the formatted messages.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link MessageCache}
+ */
+public final class TestMessageCache
+{
+    /**
+     * Test only the messages having immutable arguments can be cached.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testCacheable()
+    {
+        Assert.assertTrue(MessageCache.isCacheable(new Object[] { "yellow", 12, Locale.Category.FORMAT, null }));
+        Assert.assertFalse(MessageCache.isCacheable(new Object[] { "yellow", new Date() }));
+        Assert.assertFalse(MessageCache.isCacheable(new Object[0]));
+        Assert.assertFalse(MessageCache.isCacheable(null));
+    }
+
+    /**
+     * Test an invalid maximum weight system property does not enable the cache.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testInvalidSystemProperty()
+    {
+        try
+        {
+            System.setProperty(MessageCache.PROPERTY_WEIGHT, "abc");
+            Assert.assertNull(MessageCache.fromSystemProperties());
+
+            System.setProperty(MessageCache.PROPERTY_WEIGHT, "0");
+            Assert.assertNull(MessageCache.fromSystemProperties());
+
+            System.setProperty(MessageCache.PROPERTY_WEIGHT, "1000");
+            Assert.assertEquals(1000, MessageCache.fromSystemProperties().getMaximumWeight());
+        }
+        finally
+        {
+            System.clearProperty(MessageCache.PROPERTY_WEIGHT);
+        }
+    }
+
+    /**
+     * Test the cache is bounded by its maximum weight and keeps the frequently used messages.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testEviction()
+    {
+        MessageCache cache = new MessageCache(1000);
+        Object[] hot = { "hot" };
+
+        cache.put(1, "key", Locale.ENGLISH, Locale.ENGLISH, hot, "0123456789");
+        for (int i = 0; i < 1000; i++)
+        {
+            Assert.assertEquals("0123456789", cache.get(1, "key", Locale.ENGLISH, Locale.ENGLISH, hot));
+            if (cache.get(1, "key", Locale.ENGLISH, Locale.ENGLISH, new Object[] { i }) == null)
+            {
+                cache.put(1, "key", Locale.ENGLISH, Locale.ENGLISH, new Object[] { i }, "0123456789");
+            }
+            Assert.assertTrue(cache.getWeight() <= cache.getMaximumWeight());
+        }
+
+        Assert.assertTrue(cache.getStatistics().getEvictionCount() > 0);
+        Assert.assertEquals(1000, cache.getStatistics().getHitCount());
+    }
+
+    /**
+     * Test the striped shared cache stays consistent and bounded when accessed concurrently.
+     * <p>
+     * @throws Exception In case an error occurs while accessing the cache.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testConcurrentAccess() throws Exception
+    {
+        final MessageCache cache = new MessageCache(4096);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> results = new ArrayList<>();
+
+        try
+        {
+            for (int t = 0; t < 8; t++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    String message;
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        message = cache.get(1, "key", Locale.ENGLISH, Locale.ENGLISH, new Object[] { i % 500 });
+                        if (message == null)
+                        {
+                            cache.put(1, "key", Locale.ENGLISH, Locale.ENGLISH, new Object[] { i % 500 }, "message-" + i % 500);
+                        }
+                        else
+                        {
+                            Assert.assertEquals("message-" + i % 500, message);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Assert.assertTrue(cache.getWeight() <= cache.getMaximumWeight());
+        Assert.assertTrue(cache.getStatistics().getHitCount() > 0);
+    }
+
+    /**
+     * Test the cache is invalidated when the registry version changes.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testInvalidation()
+    {
+        MessageCache cache = new MessageCache(1000);
+        Object[] arguments = { "yellow" };
+
+        cache.put(1, "key", Locale.ENGLISH, Locale.ENGLISH, arguments, "value");
+        Assert.assertEquals("value", cache.get(1, "key", Locale.ENGLISH, Locale.ENGLISH, arguments));
+        Assert.assertNull(cache.get(2, "key", Locale.ENGLISH, Locale.ENGLISH, arguments));
+
+        // Messages formatted from an outdated registry are not cached.
+        cache.put(1, "key", Locale.ENGLISH, Locale.ENGLISH, arguments, "value");
+        Assert.assertNull(cache.get(2, "key", Locale.ENGLISH, Locale.ENGLISH, arguments));
+
+        cache.put(2, "key", Locale.ENGLISH, Locale.ENGLISH, arguments, "value");
+        cache.invalidate();
+        Assert.assertNull(cache.get(2, "key", Locale.ENGLISH, Locale.ENGLISH, arguments));
+    }
+
+    /**
+     * Test the messages formatted by the resource bundle manager are cached until the registry is modified.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testManagerCache()
+    {
+        MessageCache cache = new MessageCache(10000);
+
+        // Make sure the German resource bundles are registered before caching.
+        ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE, Locale.GERMAN);
+
+        ResourceBundleManager.setCache(cache);
+        try
+        {
+            String message = ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, new Object[] { "Gelb", "Erdbeere" });
+            Assert.assertEquals(message, ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, new Object[] { "Gelb", "Erdbeere" }));
+            Assert.assertEquals(1, cache.getStatistics().getHitCount());
+
+            ResourceBundleManager.clear();
+            Assert.assertEquals(message, ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, new Object[] { "Gelb", "Erdbeere" }));
+            Assert.assertEquals(1, cache.getStatistics().getHitCount());
+        }
+        finally
+        {
+            ResourceBundleManager.setCache(null);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.MessageTemplate;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A test case for the pre-compiled message templates.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link MessageTemplate}
+ */
+public final class TestMessageTemplate
+{
+    /**
+     * Test a pattern without placeholder is returned as-is.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testConstantPattern()
+    {
+        String pattern = "A message without any placeholder";
+        MessageTemplate template = MessageTemplate.compile(pattern, Locale.ENGLISH);
+
+        Assert.assertTrue(template.isConstant());
+        Assert.assertSame(pattern, template.format());
+        Assert.assertSame(pattern, template.format("unused"));
+    }
+
+    /**
+     * Test a pattern with quotes is unquoted the same way as with a message format.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testQuotedPattern()
+    {
+        assertSameAsMessageFormat("It''s a '{quoted}' message for {0}", "Kakoo");
+        assertSameAsMessageFormat("It''s a constant message");
+    }
+
+    /**
+     * Test a pattern with simple placeholders is formatted the same way as with a message format.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testSimplePlaceholders()
+    {
+        assertSameAsMessageFormat("The chosen color is: '{0}' and the chosen fruit is: '{1}'", "yellow", "strawberry");
+        assertSameAsMessageFormat("{1} before {0}, then {2} is missing", "first", "second");
+        assertSameAsMessageFormat("Count: {0}, null: {1}", 12345, null);
+    }
+
+    /**
+     * Test a pattern with typed placeholders is formatted the same way as with a message format.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testTypedPlaceholders()
+    {
+        assertSameAsMessageFormat("Amount: {0,number,#.##} for {1}", 3.14159, "Kakoo");
+        assertSameAsMessageFormat("There {0,choice,0#are no files|1#is one file|1<are {0,number,integer} files}", 3);
+    }
+
+    /**
+     * Test the number arguments are formatted in the locale of the template rather than in the default locale of the
+     * JVM (as {@link MessageFormat#format(String, Object...)} did).
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testTemplateLocale()
+    {
+        Locale locale = Locale.getDefault();
+
+        Locale.setDefault(Locale.US);
+        try
+        {
+            Assert.assertEquals("Amount: 1.234,5", MessageTemplate.compile("Amount: {0}", Locale.GERMAN).format(1234.5));
+            Assert.assertEquals("Amount: 1234,5", MessageTemplate.compile("Amount: {0,number,#.##}", Locale.GERMAN).format(1234.5));
+            Assert.assertEquals("Amount: 1,234.5", MessageTemplate.compile("Amount: {0}", Locale.ENGLISH).format(1234.5));
+        }
+        finally
+        {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Test templates with typed placeholders (more than the per thread pool of message formats can hold) can be
+     * used concurrently.
+     * <p>
+     * @throws Exception In case an error occurs while formatting.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testTypedPlaceholdersConcurrent() throws Exception
+    {
+        final List<MessageTemplate> templates = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++)
+        {
+            templates.add(MessageTemplate.compile("Template " + i + ": {0,number,#.##}", Locale.ENGLISH));
+        }
+
+        try
+        {
+            for (int t = 0; t < 4; t++)
+            {
+                results.add(executor.submit(() ->
+                {
+                    for (int i = 0; i < 20000; i++)
+                    {
+                        Assert.assertEquals("Template " + i % 200 + ": " + i + ".5", templates.get(i % 200).format(i + 0.5));
+                    }
+                }));
+            }
+
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test the fixed-arity and primitive overloads produce the same message as the variable-arity one.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFixedArity()
+    {
+        MessageTemplate template = MessageTemplate.compile("{0} / {1} / {2} / {3} / {4}", Locale.FRENCH);
+
+        Assert.assertEquals(template.format(new Object[] { "a" }), template.format("a"));
+        Assert.assertEquals(template.format(new Object[] { "a", "b" }), template.format("a", "b"));
+        Assert.assertEquals(template.format(new Object[] { "a", 2, "c" }), template.format("a", 2, "c"));
+        Assert.assertEquals(template.format(new Object[] { "a", 2, "c", null }), template.format("a", 2, "c", null));
+        Assert.assertEquals(template.format(new Object[] { 12345 }), template.format(12345));
+        Assert.assertEquals(template.format(new Object[] { 1234567890123L }), template.format(1234567890123L));
+        Assert.assertEquals(template.format(new Object[] { 3.14159 }), template.format(3.14159));
+
+        template = MessageTemplate.compile("Amount: {0,number,#.##}", Locale.ENGLISH);
+        Assert.assertEquals("Amount: 3.14", template.format(3.14159));
+    }
+
+    /**
+     * Test a template formatted into a string builder produces the same message as a formatted one.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFormatTo()
+    {
+        MessageTemplate template = MessageTemplate.compile("The chosen color is: '{0}' and the chosen fruit is: '{1}'", Locale.ENGLISH);
+        StringBuilder output = new StringBuilder("> ");
+
+        Assert.assertSame(output, template.formatTo(output, "yellow", "strawberry"));
+        Assert.assertEquals("> " + template.format("yellow", "strawberry"), output.toString());
+    }
+
+    /**
+     * Asserts a compiled template formats the given pattern the same way as a message format.
+     * <p>
+     * @param pattern Pattern.
+     * @param parameters Parameters.
+     */
+    private static void assertSameAsMessageFormat(final String pattern, final Object... parameters)
+    {
+        Assert.assertEquals(new MessageFormat(pattern, Locale.ENGLISH).format(parameters), MessageTemplate.compile(pattern, Locale.ENGLISH).format(parameters));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019 by Kakoo Ltd.
+ * ---------------------------------------------------------------------------
+ * This file is part of the Kakoo Foundation Software (KFS) project which is
+ * licensed under the Apache license version 2 and use is subject to license
+ * terms. You should have received a copy of the license with the project's
+ * artifact binaries and/or sources.
+ *
+ * License can be consulted at http://www.apache.org/licenses/LICENSE-2.0
+ * ---------------------------------------------------------------------------
+ */
+package com.kakoo.foundation.common.resource.bundle.test;
+
+import com.kakoo.foundation.common.resource.bundle.BundleEntry;
+import com.kakoo.foundation.common.resource.bundle.PerfectHashIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A test case for the perfect hash index of the resource bundle entries.
+ * <hr>
+ * @author  <a href="mailto:christophe.resse@gmail.com">Resse Christophe - Kakoo</a>
+ * @version 1.0.0
+ * see {@link PerfectHashIndex}
+ */
+public final class TestPerfectHashIndex
+{
+    /**
+     * Test each key of the index is found in its own slot and unknown keys are not found.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testLookup()
+    {
+        for (int count : new int[] { 0, 1, 2, 10, 1000, 50000 })
+        {
+            Map<String, BundleEntry> entries = createEntries(count);
+            Map<String, BundleEntry> index = PerfectHashIndex.of(entries);
+
+            Assert.assertTrue(index instanceof PerfectHashIndex);
+            Assert.assertEquals(entries, index);
+            for (Map.Entry<String, BundleEntry> element : entries.entrySet())
+            {
+                Assert.assertSame(element.getValue(), index.get(element.getKey()));
+            }
+
+            Assert.assertNull(index.get("kakoo-foundation-common.test.unknown"));
+            Assert.assertNull(index.get(Integer.valueOf(1)));
+        }
+    }
+
+    /**
+     * Test the perfect hash function is built in the background once the index is first looked up (iterating the
+     * index does not build it), the lookups being served by the entries until then.
+     * <p>
+     * @throws InterruptedException In case the test has been interrupted.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testLazyBuild() throws InterruptedException
+    {
+        Map<String, BundleEntry> entries = createEntries(100);
+        PerfectHashIndex index = (PerfectHashIndex) PerfectHashIndex.of(entries);
+        long deadline = System.currentTimeMillis() + 10000;
+
+        Assert.assertEquals(entries, new HashMap<>(index));
+        Assert.assertFalse(index.isBuilt());
+
+        Assert.assertSame(entries.get("kakoo-foundation-common.test.key42"), index.get("kakoo-foundation-common.test.key42"));
+        while (!index.isBuilt() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(1);
+        }
+
+        Assert.assertTrue(index.isBuilt());
+        Assert.assertSame(entries.get("kakoo-foundation-common.test.key42"), index.get("kakoo-foundation-common.test.key42"));
+        Assert.assertEquals(entries, new HashMap<>(index));
+    }
+
+    /**
+     * Test keys having the same hash code are still indexed.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testSameHashCode()
+    {
+        Map<String, BundleEntry> entries = createEntries(10);
+        Map<String, BundleEntry> index;
+
+        // "Aa" and "BB" have the same hash code.
+        entries.put("Aa", new BundleEntry("test", Locale.ENGLISH, "Aa", "first", 0));
+        entries.put("BB", new BundleEntry("test", Locale.ENGLISH, "BB", "second", 0));
+        index = PerfectHashIndex.of(entries);
+
+        Assert.assertEquals("first", index.get("Aa").getValue());
+        Assert.assertEquals("second", index.get("BB").getValue());
+        Assert.assertEquals(entries, index);
+    }
+
+    /**
+     * Creates entries having the given number of distinct keys.
+     * <p>
+     * @param count Number of entries.
+     * @return Entries indexed by key.
+     */
+    private static Map<String, BundleEntry> createEntries(final int count)
+    {
+        Map<String, BundleEntry> entries = new HashMap<>();
+        String key;
+
+        for (int i = 0; i < count; i++)
+        {
+            key = "kakoo-foundation-common.test.key" + i;
+            entries.put(key, new BundleEntry("test", Locale.ENGLISH, key, "value" + i, 0));
+        }
+
+        return entries;
+    }
+}
@@ -11,14 +11,16 @@
  */
 package com.kakoo.foundation.common.resource.bundle.test;
 
+import com.kakoo.foundation.common.resource.bundle.BundleKey;
+import com.kakoo.foundation.common.resource.bundle.BundleMemoryReport;
 import com.kakoo.foundation.common.resource.bundle.KakooFoundationCommonBundle;
 import com.kakoo.foundation.common.resource.bundle.ResourceBundleException;
 import com.kakoo.foundation.common.resource.bundle.ResourceBundleManager;
 import lombok.extern.log4j.Log4j;
 import org.junit.*;
 
-import java.util.Locale;
-import java.util.MissingResourceException;
+import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.fail;
 
@@ -214,6 +216,296 @@ public final class TestResourceBundleManager
         ResourceBundleManager.get("kakoo-foundation-common.test.dummy.value", Locale.GERMAN);
     }
 
+    /**
+     * Test the finding of resource bundle keys does not throw any exception for a non existing key.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFindKey()
+    {
+        ResourceBundleManager.clear();
+        ResourceBundleManager.register("i18n/kakoo-foundation-common", Locale.FRENCH);
+
+        Assert.assertEquals(Optional.of("Français"), ResourceBundleManager.find("kakoo-foundation-common.test.dummy.language", Locale.FRENCH));
+        Assert.assertEquals(Optional.of("Français"), ResourceBundleManager.find(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE, Locale.FRENCH));
+        Assert.assertFalse(ResourceBundleManager.find("kakoo-foundation-common.test.dummy.value", Locale.FRENCH).isPresent());
+        Assert.assertFalse(ResourceBundleManager.find("kakoo-foundation-common.test.dummy.value", Locale.GERMAN).isPresent());
+    }
+
+    /**
+     * Test the retrieving of several resource bundle keys in one call.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testGetAll()
+    {
+        ResourceBundleManager.clear();
+
+        Map<String, String> values = ResourceBundleManager.getAll(Arrays.asList("kakoo-foundation-common.test.dummy.language", "kakoo-foundation-common.test.dummy.value"), Locale.FRENCH);
+        Assert.assertEquals(Collections.singletonMap("kakoo-foundation-common.test.dummy.language", "Français"), values);
+
+        Map<Locale, Map<String, String>> locales = ResourceBundleManager.getAll(Collections.singletonList("kakoo-foundation-common.test.dummy.language"), Arrays.asList(Locale.FRENCH, Locale.GERMAN));
+        Assert.assertEquals("Français", locales.get(Locale.FRENCH).get("kakoo-foundation-common.test.dummy.language"));
+        Assert.assertEquals(ResourceBundleManager.get("kakoo-foundation-common.test.dummy.language", Locale.GERMAN), locales.get(Locale.GERMAN).get("kakoo-foundation-common.test.dummy.language"));
+
+        EnumMap<KakooFoundationCommonBundle, String> enums = ResourceBundleManager.getAll(KakooFoundationCommonBundle.class, Locale.FRENCH);
+        Assert.assertEquals("Français", enums.get(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE));
+        for (KakooFoundationCommonBundle key : enums.keySet())
+        {
+            Assert.assertEquals(ResourceBundleManager.get(key, Locale.FRENCH), enums.get(key));
+        }
+    }
+
+    /**
+     * Test the formatting of resource bundle values directly into an appendable.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFormatTo()
+    {
+        ResourceBundleManager.clear();
+
+        StringBuilder output = new StringBuilder();
+        ResourceBundleManager.formatTo(output, KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, "Gelb", "Erdbeere");
+        Assert.assertEquals(ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, "Gelb", "Erdbeere"), output.toString());
+
+        Assert.assertEquals(output.toString(), ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, new Object[] { "Gelb", "Erdbeere" }));
+
+        output.setLength(0);
+        ResourceBundleManager.formatTo(output, "kakoo-foundation-common.test.dummy.language", Locale.FRENCH).append(" / ");
+        KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE.appendTo(output);
+        Assert.assertEquals("Français / " + KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE.getValue(), output.toString());
+    }
+
+    /**
+     * Test the number parameters are formatted in the requested locale, whatever the default locale of the JVM.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testFormatLocale()
+    {
+        Locale locale = Locale.getDefault();
+
+        Locale.setDefault(Locale.US);
+        try
+        {
+            ResourceBundleManager.clear();
+            Assert.assertEquals("Die gew\u00e4hlte Farbe ist: '1.234,5' und die ausgew\u00e4hlte Frucht ist: 'Erdbeere'",
+                    ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_MESSAGE_FORMATTED, Locale.GERMAN, 1234.5, "Erdbeere"));
+        }
+        finally
+        {
+            Locale.setDefault(locale);
+        }
+    }
+
+    /**
+     * Test the retrieving of resource bundle keys located in several registered resource bundles.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testRetrieveKeyMultipleBundles()
+    {
+        ResourceBundleManager.clear();
+        ResourceBundleManager.register("i18n/fruits", Locale.FRENCH);
+        ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+
+        Assert.assertEquals("Français", ResourceBundleManager.get("kakoo-foundation-common.test.dummy.language", Locale.FRENCH));
+        Assert.assertEquals("Pomme", ResourceBundleManager.get("fruit.apple.name", Locale.FRENCH));
+        Assert.assertEquals("Jaune", ResourceBundleManager.get("color.yellow.name", Locale.FRENCH));
+    }
+
+    /**
+     * Test the resource bundles of the least recently used locales are evicted when the memory budget is exceeded,
+     * and registered again on their next access.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testLocaleBudget()
+    {
+        ResourceBundleManager.clear();
+        ResourceBundleManager.pin(Locale.ITALIAN);
+        ResourceBundleManager.setBudget(1);
+        try
+        {
+            ResourceBundleManager.register("i18n/colors", Locale.ITALIAN);
+            ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+            Assert.assertTrue(ResourceBundleManager.getCount(Locale.FRENCH) > 0);
+
+            // Registering German evicts French (but not the pinned Italian).
+            ResourceBundleManager.register("i18n/colors", Locale.GERMAN);
+            Assert.assertEquals(0, ResourceBundleManager.getCount(Locale.FRENCH));
+            Assert.assertTrue(ResourceBundleManager.getCount(Locale.ITALIAN) > 0);
+            Assert.assertTrue(ResourceBundleManager.getCount(ResourceBundleManager.getLocale()) > 0);
+
+            // French is registered again on its next access.
+            Assert.assertEquals("Jaune", ResourceBundleManager.get("color.yellow.name", Locale.FRENCH));
+            Assert.assertEquals("Giallo", ResourceBundleManager.get("color.yellow.name", Locale.ITALIAN));
+        }
+        finally
+        {
+            ResourceBundleManager.setBudget(0);
+            ResourceBundleManager.unpin(Locale.ITALIAN);
+            ResourceBundleManager.clear();
+        }
+    }
+
+    /**
+     * Test the entries of a child locale are shared with its parent locale.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testSharedLocale()
+    {
+        ResourceBundleManager.clear();
+        try
+        {
+            ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+            long entries = ResourceBundleManager.getMemoryReport().getEntryCount();
+
+            // No 'fr_CA' file, all the entries of the 'fr' file are shared.
+            ResourceBundleManager.register("i18n/colors", Locale.CANADA_FRENCH);
+            BundleMemoryReport report = ResourceBundleManager.getMemoryReport();
+            Assert.assertEquals(entries, report.getEntryCount());
+            Assert.assertTrue(report.getSharedCount() > 0);
+            Assert.assertTrue(report.getSavedBytes() > 0);
+
+            Assert.assertEquals("Jaune", ResourceBundleManager.get("color.yellow.name", Locale.CANADA_FRENCH));
+
+            // The keys of the other locales are canonicalized, the savings are measured on the live registry.
+            ResourceBundleManager.register("i18n/colors", Locale.ITALIAN);
+            report = ResourceBundleManager.getMemoryReport();
+            Assert.assertTrue(report.getDeduplicatedCount() > 0);
+            Assert.assertEquals(report.getDeduplicatedBytes(), ResourceBundleManager.getMemoryReport().getDeduplicatedBytes());
+            Assert.assertEquals(report.getSharedCount(), ResourceBundleManager.getMemoryReport().getSharedCount());
+        }
+        finally
+        {
+            ResourceBundleManager.clear();
+        }
+    }
+
+    /**
+     * Test the value of a child locale file is served by all the lookup paths, even when the file is not yet
+     * registered for the child locale while another file is.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testChildLocaleOverride()
+    {
+        final String expected = "Fran\u00E7ais (Canada)";
+        final String name = "kakoo-foundation-common.test.dummy.language";
+        final KakooFoundationCommonBundle key = KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE;
+        final Map<String, Supplier<String>> paths = new LinkedHashMap<>();
+
+        paths.put("get(String, Locale)", () -> ResourceBundleManager.get(name, Locale.CANADA_FRENCH));
+        paths.put("get(Enum, Locale)", () -> ResourceBundleManager.get(key, Locale.CANADA_FRENCH));
+        paths.put("get(Enum, Locale, Object)", () -> ResourceBundleManager.get(key, Locale.CANADA_FRENCH, "unused"));
+        paths.put("get(BundleKey, Locale)", () -> ResourceBundleManager.get(ResourceBundleManager.key(name), Locale.CANADA_FRENCH));
+        paths.put("find(String, Locale)", () -> ResourceBundleManager.find(name, Locale.CANADA_FRENCH).orElse(null));
+        paths.put("find(Enum, Locale)", () -> ResourceBundleManager.find(key, Locale.CANADA_FRENCH).orElse(null));
+        paths.put("formatTo(Enum, Locale)", () -> ResourceBundleManager.formatTo(new StringBuilder(), key, Locale.CANADA_FRENCH).toString());
+        paths.put("getAll(Collection, Locale)", () -> ResourceBundleManager.getAll(Collections.singleton(name), Locale.CANADA_FRENCH).get(name));
+        paths.put("getAll(Class, Locale)", () -> ResourceBundleManager.getAll(KakooFoundationCommonBundle.class, Locale.CANADA_FRENCH).get(key));
+
+        try
+        {
+            for (Map.Entry<String, Supplier<String>> path : paths.entrySet())
+            {
+                ResourceBundleManager.clear();
+                ResourceBundleManager.register("i18n/kakoo-foundation-common", Locale.FRENCH);
+                ResourceBundleManager.register("i18n/colors", Locale.CANADA_FRENCH);
+                Assert.assertEquals("Fran\u00E7ais", ResourceBundleManager.get(key, Locale.FRENCH));
+
+                Assert.assertEquals(path.getKey(), expected, path.getValue().get());
+            }
+        }
+        finally
+        {
+            ResourceBundleManager.clear();
+        }
+    }
+
+    /**
+     * Test the resource bundles are served the same way when packed in compact arenas.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testCompact()
+    {
+        ResourceBundleManager.setCompact(true);
+        try
+        {
+            ResourceBundleManager.clear();
+            ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+            long entries = ResourceBundleManager.getMemoryReport().getEntryCount();
+
+            Assert.assertEquals("Jaune", ResourceBundleManager.get("color.yellow.name", Locale.FRENCH));
+
+            // Arena values are shared with the parent locale as well.
+            ResourceBundleManager.register("i18n/colors", Locale.CANADA_FRENCH);
+            Assert.assertEquals(entries, ResourceBundleManager.getMemoryReport().getEntryCount());
+            Assert.assertEquals("Jaune", ResourceBundleManager.get("color.yellow.name", Locale.CANADA_FRENCH));
+        }
+        finally
+        {
+            ResourceBundleManager.setCompact(false);
+            ResourceBundleManager.clear();
+        }
+    }
+
+    /**
+     * Test the values retrieved through key handles, across registrations and clearings.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testKeyHandle()
+    {
+        BundleKey key = ResourceBundleManager.key("color.yellow.name");
+
+        Assert.assertSame(key, ResourceBundleManager.key("color.yellow.name"));
+
+        ResourceBundleManager.clear();
+        ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+        Assert.assertEquals("Jaune", ResourceBundleManager.get(key, Locale.FRENCH));
+
+        // The handle is resolved again against the new registry.
+        ResourceBundleManager.clear();
+        ResourceBundleManager.register("i18n/colors", Locale.ITALIAN);
+        Assert.assertEquals("Giallo", ResourceBundleManager.get(key, Locale.ITALIAN));
+        ResourceBundleManager.register("i18n/colors", Locale.FRENCH);
+        Assert.assertEquals("Jaune", ResourceBundleManager.get(key, Locale.FRENCH));
+    }
+
+    /**
+     * Test an exception is thrown when retrieving an unknown key through a key handle.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test(expected = ResourceBundleException.class)
+    public final void testKeyHandleUnknown()
+    {
+        ResourceBundleManager.get(ResourceBundleManager.key("color.unknown.name"), Locale.FRENCH);
+    }
+
+    /**
+     * Test the registry version is incremented each time the registry is modified.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testRegistryVersion()
+    {
+        ResourceBundleManager.clear();
+        long version = ResourceBundleManager.getVersion();
+
+        ResourceBundleManager.register("i18n/fruits");
+        Assert.assertTrue(ResourceBundleManager.getVersion() > version);
+
+        version = ResourceBundleManager.getVersion();
+        ResourceBundleManager.clear();
+        Assert.assertTrue(ResourceBundleManager.getVersion() > version);
+        Assert.assertEquals(1, ResourceBundleManager.getCount());
+    }
+
     /**
      * Returns the expected dummy language value according to the current locale.
      * <p>
@@ -315,6 +607,25 @@ public final class TestResourceBundleManager
         Assert.assertEquals(expected, ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY, Locale.GERMAN));
     }
 
+    /**
+     * Test the retrieving of a resource bundle key through enumeration in several locales, before and after the
+     * registry has changed.
+     */
+    @SuppressWarnings({ "static-method", "nls" })
+    @Test
+    public final void testRetrieveEnumKeyRegistryChanged()
+    {
+        String expected = "Eine Nachricht von der Komponente: kakoo-foundation-common";
+
+        Assert.assertEquals(expected, ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY, Locale.GERMAN));
+        Assert.assertEquals("Français", ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE, Locale.FRENCH));
+        Assert.assertEquals(expected, ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY, Locale.GERMAN));
+
+        ResourceBundleManager.clear();
+        Assert.assertEquals(expected, ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY, Locale.GERMAN));
+        Assert.assertEquals("Français", ResourceBundleManager.get(KakooFoundationCommonBundle.TEST_DUMMY_LANGUAGE, Locale.FRENCH));
+    }
+
     /**
      * Test the retrieving of a resource bundle key through enumeration in a given locale for which the resource
      * bundle file in the given locale does not exist.